@@ -3,6 +3,7 @@ plugins {
     kotlin("plugin.spring") version "1.9.25"
     id("org.springframework.boot") version "3.5.7"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "ru.itmo.calls"
@@ -29,7 +30,9 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-websocket")
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
     implementation("com.fasterxml.jackson.module:jackson-module-kotlin")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
@@ -47,4 +50,29 @@ kotlin {
 
 tasks.withType<Test> {
     useJUnitPlatform()
+}
+
+val loadtest: SourceSet by sourceSets.creating
+
+configurations[loadtest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadtest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+tasks.register<JavaExec>("loadtest") {
+    group = "verification"
+    description = "Runs the WebSocket load generator against a running server. Pass options with --args."
+    classpath = loadtest.runtimeClasspath
+    mainClass = "ru.itmo.calls.loadtest.LoadGenerator"
+}
+
+tasks.register<JavaExec>("journalDump") {
+    group = "application"
+    description = "Prints the binary event journal as text. Pass the file and filters with --args."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass = "ru.itmo.calls.cli.JournalDump"
+}
+
+jmh {
+    jmhVersion = "1.37"
+    profilers.add("gc")
+    resultFormat = "JSON"
 }
\ No newline at end of file
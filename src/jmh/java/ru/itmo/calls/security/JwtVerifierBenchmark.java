@@ -0,0 +1,123 @@
+package ru.itmo.calls.security;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itmo.calls.config.JacksonConfig;
+import ru.itmo.calls.config.JwtConfig;
+
+/**
+ * {@link JwtVerifier#verify} per algorithm, with keys loaded from a JWKS document built
+ * from freshly generated key pairs. Compare with the auth backend round trip that
+ * {@code ApiAuthProvider} makes on a cache miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifierBenchmark {
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    @Param({"RS256", "ES256", "HS256"})
+    public String algorithm;
+
+    private JwtVerifier verifier;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        verifier = new JwtVerifier(new JwtConfig(), objectMapper.getFactory(), () -> { });
+
+        String jwk;
+        String header = "{\"alg\":\"" + algorithm + "\",\"typ\":\"JWT\",\"kid\":\"bench\"}";
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        String claims = "{\"sub\":\"1001\",\"iat\":" + (exp - 3600) + ",\"exp\":" + exp + "}";
+        String signingInput = encode(header) + "." + encode(claims);
+        byte[] signature;
+
+        switch (algorithm) {
+            case "RS256" -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                KeyPair pair = generator.generateKeyPair();
+                RSAPublicKey key = (RSAPublicKey) pair.getPublic();
+                jwk = "{\"kty\":\"RSA\",\"kid\":\"bench\",\"n\":\"" + unsigned(key.getModulus())
+                        + "\",\"e\":\"" + unsigned(key.getPublicExponent()) + "\"}";
+                signature = sign("SHA256withRSA", pair.getPrivate(), signingInput);
+            }
+            case "ES256" -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                KeyPair pair = generator.generateKeyPair();
+                ECPublicKey key = (ECPublicKey) pair.getPublic();
+                jwk = "{\"kty\":\"EC\",\"crv\":\"P-256\",\"kid\":\"bench\",\"x\":\"" + unsigned(key.getW().getAffineX())
+                        + "\",\"y\":\"" + unsigned(key.getW().getAffineY()) + "\"}";
+                signature = sign("SHA256withECDSAinP1363Format", pair.getPrivate(), signingInput);
+            }
+            default -> {
+                byte[] secret = new byte[32];
+                ThreadLocalRandom.current().nextBytes(secret);
+                jwk = "{\"kty\":\"oct\",\"kid\":\"bench\",\"k\":\"" + BASE64URL.encodeToString(secret) + "\"}";
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+                signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+
+        verifier.setKeys(JwkSet.parse(objectMapper.readTree("{\"keys\":[" + jwk + "]}")));
+        token = signingInput + "." + BASE64URL.encodeToString(signature);
+        verifier.verify(token);
+    }
+
+    private static String encode(String json) {
+        return BASE64URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        return BASE64URL.encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+    }
+
+    private static byte[] sign(String jcaName, PrivateKey key, String input) throws GeneralSecurityException {
+        Signature signer = Signature.getInstance(jcaName);
+        signer.initSign(key);
+        signer.update(input.getBytes(StandardCharsets.US_ASCII));
+        return signer.sign();
+    }
+
+    @Benchmark
+    public int verify() {
+        return verifier.verify(token);
+    }
+}
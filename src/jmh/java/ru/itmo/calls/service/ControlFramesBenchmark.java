@@ -0,0 +1,67 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+import ru.itmo.calls.config.JacksonConfig;
+import ru.itmo.calls.model.SignalMessage;
+import ru.itmo.calls.model.SignalType;
+
+/**
+ * Compares Jackson encoding of control frames with {@link ControlFrames}.
+ * Run with {@code ./gradlew jmh}; the gc profiler reports gc.alloc.rate.norm per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControlFramesBenchmark {
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private int userId = 1_234_567;
+
+    @Benchmark
+    public TextMessage pingViaJackson() throws JsonProcessingException {
+        SignalMessage ping = new SignalMessage(SignalType.PING, null, userId, null);
+        return new TextMessage(objectMapper.writeValueAsString(ping));
+    }
+
+    @Benchmark
+    public TextMessage pingViaTemplate() {
+        return new TextMessage(ControlFrames.PING.fill(userId));
+    }
+
+    @Benchmark
+    public TextMessage incomingCallViaJackson() throws JsonProcessingException {
+        SignalMessage incomingCall = new SignalMessage(SignalType.INCOMING_CALL, userId, userId + 1, null);
+        return new TextMessage(objectMapper.writeValueAsString(incomingCall));
+    }
+
+    @Benchmark
+    public TextMessage incomingCallViaTemplate() {
+        return new TextMessage(ControlFrames.INCOMING_CALL.fill(userId, userId + 1));
+    }
+
+    @Benchmark
+    public TextMessage authSuccessViaJackson() throws JsonProcessingException {
+        SignalMessage authSuccess = new SignalMessage(SignalType.AUTH_SUCCESS, null, null, null);
+        return new TextMessage(objectMapper.writeValueAsString(authSuccess));
+    }
+
+    @Benchmark
+    public TextMessage authSuccessPreEncoded() {
+        return ControlFrames.AUTH_SUCCESS;
+    }
+}
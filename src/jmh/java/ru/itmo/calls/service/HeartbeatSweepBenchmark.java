@@ -0,0 +1,67 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One {@link HeartbeatService#tick} in which every tracked session is due, so each is
+ * checked, pinged and rescheduled. The heartbeat interval is zero and the wheel ticks
+ * every millisecond; each invocation gets a freshly populated wheel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+public class HeartbeatSweepBenchmark {
+    @Param({"10000", "100000"})
+    private int users;
+
+    private SignallingFixture fixture;
+    private StubSession[] sessions;
+    private HeartbeatService heartbeatService;
+
+    @Setup(Level.Trial)
+    public void connect() {
+        fixture = new SignallingFixture();
+        sessions = new StubSession[users];
+        for (int i = 0; i < users; i++) {
+            sessions[i] = fixture.connect(i + 1);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void track() throws InterruptedException {
+        heartbeatService = fixture.newHeartbeatService();
+        for (int i = 0; i < users; i++) {
+            heartbeatService.startTracking(i + 1, sessions[i]);
+        }
+        // Let the wheel's first tick elapse so the sweep finds every session due
+        Thread.sleep(2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public HeartbeatService sweep() {
+        heartbeatService.tick();
+        return heartbeatService;
+    }
+}
@@ -0,0 +1,113 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * {@link OnlineUsersService} under contention. The registry is pre-populated with
+ * {@code users} sessions; churning threads register and unregister users outside that
+ * range, so lookups of the populated range always hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnlineUsersBenchmark {
+    @Param({"10000", "100000"})
+    private int users;
+
+    private SignallingFixture fixture;
+    private OnlineUsersService onlineUsers;
+
+    @Setup
+    public void setUp() {
+        fixture = new SignallingFixture();
+        onlineUsers = fixture.onlineUsersService;
+        for (int userId = 1; userId <= users; userId++) {
+            fixture.connect(userId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Churn {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+
+        private int nextUserId;
+        private int firstUserId;
+        private StubSession session;
+
+        @Setup
+        public void setUp(OnlineUsersBenchmark benchmark) {
+            firstUserId = benchmark.users + 1 + THREADS.getAndIncrement() * 1_000_000;
+            nextUserId = firstUserId;
+            session = new StubSession(firstUserId);
+        }
+
+        int nextUserId() {
+            int userId = nextUserId++;
+            if (nextUserId == firstUserId + 1_000_000) {
+                nextUserId = firstUserId;
+            }
+            return userId;
+        }
+    }
+
+    private int randomOnlineUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Connection lookup() {
+        return onlineUsers.getSession(randomOnlineUser());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean registerAndUnregister(Churn churn) {
+        int userId = churn.nextUserId();
+        onlineUsers.registerUser(userId, churn.session);
+        return onlineUsers.unregisterUser(userId, churn.session);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Connection mixedLookup() {
+        return onlineUsers.getSession(randomOnlineUser());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean mixedChurn(Churn churn) {
+        int userId = churn.nextUserId();
+        onlineUsers.registerUser(userId, churn.session);
+        return onlineUsers.unregisterUser(userId, churn.session);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+import ru.itmo.calls.model.SignalFrame;
+
+/**
+ * Fan-out of one frame to every member of a room: a room broadcast, which encodes once,
+ * against sending the same frame to each member in turn, which encodes per recipient.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomBroadcastBenchmark {
+    private static final int FIRST_MEMBER = 2_001;
+
+    @Param({"8", "50"})
+    public int members;
+
+    private SignallingFixture fixture;
+    private StubSession last;
+    private int roomId;
+    private SignalFrame broadcast;
+    private SignalFrame unicast;
+
+    @Setup
+    public void setUp() {
+        fixture = new SignallingFixture();
+        for (int i = 0; i < members; i++) {
+            last = fixture.connect(FIRST_MEMBER + i);
+        }
+        roomId = fixture.roomService.create(FIRST_MEMBER);
+        int[] invited = new int[members - 1];
+        for (int i = 1; i < members; i++) {
+            invited[i - 1] = FIRST_MEMBER + i;
+        }
+        fixture.roomService.invite(roomId, FIRST_MEMBER, invited);
+        for (int userId : invited) {
+            fixture.roomService.join(roomId, userId);
+        }
+
+        broadcast = fixture.wireCodec.decode(new TextMessage(
+                "{\"type\":\"ROOM_BROADCAST\",\"to\":" + roomId + ",\"payload\":" + SignallingFixture.OFFER_PAYLOAD + "}"
+        )).withFrom(FIRST_MEMBER);
+        unicast = fixture.wireCodec.decode(new TextMessage(
+                "{\"type\":\"WEBRTC_OFFER\",\"to\":" + FIRST_MEMBER + ",\"payload\":" + SignallingFixture.OFFER_PAYLOAD + "}"
+        )).withFrom(FIRST_MEMBER);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public long roomBroadcast() {
+        fixture.roomService.broadcast(roomId, broadcast);
+        return last.sentFrames();
+    }
+
+    @Benchmark
+    public long sendToEachMember() {
+        for (int i = 1; i < members; i++) {
+            fixture.messageSenderService.sendFrame(FIRST_MEMBER + i, unicast);
+        }
+        return last.sentFrames();
+    }
+}
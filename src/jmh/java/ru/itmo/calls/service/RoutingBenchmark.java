@@ -0,0 +1,99 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.socket.TextMessage;
+import ru.itmo.calls.model.SignalFrame;
+
+/**
+ * {@link SignallingService#routeMessage} from a decoded frame to the recipient's socket,
+ * with and without decoding the client's text frame first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+    private static final int CALLER = 1_001;
+    private static final int CALLEE = 1_002;
+
+    private SignallingFixture fixture;
+    private StubSession callee;
+    private TextMessage offerText;
+    private TextMessage candidateText;
+    private SignalFrame offer;
+    private SignalFrame candidate;
+    private SignalFrame callInit;
+    private SignalFrame callEnd;
+
+    @Setup
+    public void setUp() {
+        fixture = new SignallingFixture();
+        fixture.connect(CALLER);
+        callee = fixture.connect(CALLEE);
+
+        offerText = new TextMessage(frame("WEBRTC_OFFER", SignallingFixture.OFFER_PAYLOAD));
+        candidateText = new TextMessage(frame("WEBRTC_CANDIDATE", SignallingFixture.CANDIDATE_PAYLOAD));
+        offer = fixture.wireCodec.decode(offerText);
+        candidate = fixture.wireCodec.decode(candidateText);
+        callInit = fixture.wireCodec.decode(new TextMessage("{\"type\":\"CALL_INIT\",\"to\":" + CALLEE + "}"));
+        callEnd = fixture.wireCodec.decode(new TextMessage("{\"type\":\"CALL_END\",\"to\":" + CALLEE + "}"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    private static String frame(String type, String payload) {
+        return "{\"type\":\"" + type + "\",\"to\":" + CALLEE + ",\"payload\":" + payload + "}";
+    }
+
+    @Benchmark
+    public long routeOffer() {
+        fixture.signallingService.routeMessage(offer, CALLER);
+        return callee.sentFrames();
+    }
+
+    @Benchmark
+    public long routeCandidate() {
+        fixture.signallingService.routeMessage(candidate, CALLER);
+        return callee.sentFrames();
+    }
+
+    @Benchmark
+    public long decodeAndRouteOffer() {
+        fixture.signallingService.routeMessage(fixture.wireCodec.decode(offerText), CALLER);
+        return callee.sentFrames();
+    }
+
+    @Benchmark
+    public long decodeAndRouteCandidate() {
+        fixture.signallingService.routeMessage(fixture.wireCodec.decode(candidateText), CALLER);
+        return callee.sentFrames();
+    }
+
+    /**
+     * Rings and hangs up, so every op starts with both users idle.
+     */
+    @Benchmark
+    public void callSetupAndTeardown(Blackhole blackhole) {
+        fixture.signallingService.routeMessage(callInit, CALLER);
+        fixture.signallingService.routeMessage(callEnd, CALLER);
+        blackhole.consume(callee.sentFrames());
+    }
+}
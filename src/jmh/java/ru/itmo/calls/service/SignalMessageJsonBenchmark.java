@@ -0,0 +1,105 @@
+package ru.itmo.calls.service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itmo.calls.config.JacksonConfig;
+import ru.itmo.calls.model.SignalMessage;
+import ru.itmo.calls.model.SignalType;
+
+/**
+ * Jackson binding of {@link SignalMessage} with the application's {@link ObjectMapper}, as
+ * used for server-originated messages, against the streaming {@link SignalFrameCodec} used
+ * for relayed frames.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignalMessageJsonBenchmark {
+    private static final String[] SCALAR_PAYLOADS = {"\"x\"", "\"a \\\"quoted\\\" \\u00e9\"", "42", "-1.5e3", "true", "null"};
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SignalFrameCodec signalFrameCodec = new SignalFrameCodec(objectMapper, new PayloadValidator());
+
+    private SignalMessage offer;
+    private SignalMessage candidate;
+    private String offerJson;
+    private String candidateJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        offer = new SignalMessage(
+                SignalType.WEBRTC_OFFER, 1_001, 1_002, objectMapper.readTree(SignallingFixture.OFFER_PAYLOAD)
+        );
+        candidate = new SignalMessage(
+                SignalType.WEBRTC_CANDIDATE, 1_001, 1_002, objectMapper.readTree(SignallingFixture.CANDIDATE_PAYLOAD)
+        );
+        offerJson = objectMapper.writeValueAsString(offer);
+        candidateJson = objectMapper.writeValueAsString(candidate);
+
+        for (String payload : SCALAR_PAYLOADS) {
+            checkSpliceRoundTrip(payload);
+        }
+    }
+
+    /**
+     * The relay path splices the payload's source text into the outgoing frame; it must
+     * come out as the same JSON value for scalars as well as for objects.
+     */
+    private void checkSpliceRoundTrip(String payload) throws IOException {
+        String relayed = signalFrameCodec.encode(signalFrameCodec.decode(
+                "{\"type\":\"CALL_INIT\",\"to\":1002,\"payload\":" + payload + "}"
+        ));
+        JsonNode expected = objectMapper.readTree(payload);
+        JsonNode actual = objectMapper.readTree(relayed).path("payload");
+        boolean same = expected.isNull() ? actual.isMissingNode() || actual.isNull() : expected.equals(actual);
+        if (!same) {
+            throw new IllegalStateException("Payload " + payload + " relayed as " + relayed);
+        }
+    }
+
+    @Benchmark
+    public String encodeOffer() throws IOException {
+        return objectMapper.writeValueAsString(offer);
+    }
+
+    @Benchmark
+    public String encodeCandidate() throws IOException {
+        return objectMapper.writeValueAsString(candidate);
+    }
+
+    @Benchmark
+    public SignalMessage decodeOffer() throws IOException {
+        return objectMapper.readValue(offerJson, SignalMessage.class);
+    }
+
+    @Benchmark
+    public SignalMessage decodeCandidate() throws IOException {
+        return objectMapper.readValue(candidateJson, SignalMessage.class);
+    }
+
+    @Benchmark
+    public String relayOfferViaFrameCodec() {
+        return signalFrameCodec.encode(signalFrameCodec.decode(offerJson));
+    }
+
+    @Benchmark
+    public String relayCandidateViaFrameCodec() {
+        return signalFrameCodec.encode(signalFrameCodec.decode(candidateJson));
+    }
+}
@@ -0,0 +1,221 @@
+package ru.itmo.calls.service;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.util.ReflectionUtils;
+import ru.itmo.calls.config.CandidateBatchingConfig;
+import ru.itmo.calls.config.ClusterConfig;
+import ru.itmo.calls.config.CompressionConfig;
+import ru.itmo.calls.config.JacksonConfig;
+import ru.itmo.calls.config.JournalConfig;
+import ru.itmo.calls.config.OutboundConfig;
+import ru.itmo.calls.config.PresenceConfig;
+import ru.itmo.calls.config.ResumeConfig;
+import ru.itmo.calls.config.RoomConfig;
+
+/**
+ * The signalling services wired by hand with default configuration, on a single node.
+ * Outbound queues drain on the calling thread, so a benchmark op includes the write
+ * to the {@link StubSession}.
+ */
+final class SignallingFixture implements AutoCloseable {
+    static final String OFFER_SDP = String.join("\r\n",
+            "v=0",
+            "o=- 4611731400430051336 2 IN IP4 127.0.0.1",
+            "s=-",
+            "t=0 0",
+            "a=group:BUNDLE 0 1",
+            "a=extmap-allow-mixed",
+            "a=msid-semantic: WMS 3b1e8c2a-6f4d-4b8e-9a51-2c7d0e9f1a44",
+            "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xk3f",
+            "a=ice-pwd:9sJq2mVw4hTz8cLp1rNb6dYe",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 5B:1D:9A:0C:7E:44:2F:8B:93:61:AF:3C:D2:58:0E:B7:16:C4:7A:E9:22:0D:6B:F1:85:3E:A0:4C:79:D6:1B:E2",
+            "a=setup:actpass",
+            "a=mid:0",
+            "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+            "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+            "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+            "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+            "a=sendrecv",
+            "a=msid:3b1e8c2a-6f4d-4b8e-9a51-2c7d0e9f1a44 8d2f5b61-0a3e-4c97-b1d8-6e4f2a9c0b35",
+            "a=rtcp-mux",
+            "a=rtpmap:111 opus/48000/2",
+            "a=rtcp-fb:111 transport-cc",
+            "a=fmtp:111 minptime=10;useinbandfec=1",
+            "a=rtpmap:63 red/48000/2",
+            "a=fmtp:63 111/111",
+            "a=rtpmap:9 G722/8000",
+            "a=rtpmap:0 PCMU/8000",
+            "a=rtpmap:8 PCMA/8000",
+            "a=rtpmap:13 CN/8000",
+            "a=rtpmap:110 telephone-event/48000",
+            "a=rtpmap:126 telephone-event/8000",
+            "a=ssrc:2704392125 cname:q8Vh3kRf0ZpL2wXe",
+            "a=ssrc:2704392125 msid:3b1e8c2a-6f4d-4b8e-9a51-2c7d0e9f1a44 8d2f5b61-0a3e-4c97-b1d8-6e4f2a9c0b35",
+            "m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103 45 46",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xk3f",
+            "a=ice-pwd:9sJq2mVw4hTz8cLp1rNb6dYe",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 5B:1D:9A:0C:7E:44:2F:8B:93:61:AF:3C:D2:58:0E:B7:16:C4:7A:E9:22:0D:6B:F1:85:3E:A0:4C:79:D6:1B:E2",
+            "a=setup:actpass",
+            "a=mid:1",
+            "a=extmap:14 urn:ietf:params:rtp-hdrext:toffset",
+            "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+            "a=extmap:13 urn:3gpp:video-orientation",
+            "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+            "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+            "a=sendrecv",
+            "a=msid:3b1e8c2a-6f4d-4b8e-9a51-2c7d0e9f1a44 f0c3a7e2-5d19-4b6a-8e20-91b4d7c6a358",
+            "a=rtcp-mux",
+            "a=rtcp-rsize",
+            "a=rtpmap:96 VP8/90000",
+            "a=rtcp-fb:96 goog-remb",
+            "a=rtcp-fb:96 transport-cc",
+            "a=rtcp-fb:96 ccm fir",
+            "a=rtcp-fb:96 nack",
+            "a=rtcp-fb:96 nack pli",
+            "a=rtpmap:97 rtx/90000",
+            "a=fmtp:97 apt=96",
+            "a=rtpmap:102 H264/90000",
+            "a=rtcp-fb:102 goog-remb",
+            "a=rtcp-fb:102 transport-cc",
+            "a=rtcp-fb:102 ccm fir",
+            "a=rtcp-fb:102 nack",
+            "a=rtcp-fb:102 nack pli",
+            "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+            "a=rtpmap:103 rtx/90000",
+            "a=fmtp:103 apt=102",
+            "a=rtpmap:45 AV1/90000",
+            "a=rtcp-fb:45 goog-remb",
+            "a=rtcp-fb:45 transport-cc",
+            "a=rtcp-fb:45 nack",
+            "a=rtpmap:46 rtx/90000",
+            "a=fmtp:46 apt=45",
+            "a=ssrc-group:FID 1830461527 3029884815",
+            "a=ssrc:1830461527 cname:q8Vh3kRf0ZpL2wXe",
+            "a=ssrc:3029884815 cname:q8Vh3kRf0ZpL2wXe",
+            ""
+    );
+
+    static final String OFFER_PAYLOAD = "{\"type\":\"offer\",\"sdp\":\"" + OFFER_SDP.replace("\r\n", "\\r\\n") + "\"}";
+
+    static final String CANDIDATE_PAYLOAD = "{\"candidate\":\"candidate:842163049 1 udp 1677729535 "
+            + "203.0.113.47 51234 typ srflx raddr 192.168.1.23 rport 51234 generation 0 ufrag Xk3f network-cost 999\","
+            + "\"sdpMid\":\"0\",\"sdpMLineIndex\":0,\"usernameFragment\":\"Xk3f\"}";
+
+    final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final PayloadValidator payloadValidator = new PayloadValidator();
+    final SignalFrameCodec signalFrameCodec = new SignalFrameCodec(objectMapper, payloadValidator);
+    final WireCodec wireCodec;
+    final OutboundQueueService outboundQueueService;
+    final OnlineUsersService onlineUsersService;
+    final SignallingMetrics metrics;
+    final CallRegistry callRegistry;
+    final MessageSenderService messageSenderService;
+    final RoomService roomService;
+    final SignallingService signallingService;
+
+    private final ScheduledExecutorService candidateScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    SignallingFixture() {
+        FrameCompression frameCompression = new FrameCompression(new CompressionConfig(), meterRegistry);
+        wireCodec = new WireCodec(objectMapper, signalFrameCodec, new BinaryFrameCodec(objectMapper, frameCompression));
+        outboundQueueService = new OutboundQueueService(
+                new OutboundConfig(), new ExecutorServiceAdapter(new SyncTaskExecutor())
+        );
+
+        ClusterConfig clusterConfig = new ClusterConfig();
+        ClusterRouter clusterRouter = new ClusterRouter(
+                clusterConfig,
+                new InProcessPresenceDirectory(clusterConfig),
+                new StaticListableBeanFactory().getBeanProvider(NodeTransport.class)
+        );
+        ResumeService resumeService = new ResumeService(new ResumeConfig(), meterRegistry);
+        resumeService.initWheel();
+        onlineUsersService = new OnlineUsersService(clusterRouter, resumeService);
+        metrics = new SignallingMetrics(true, meterRegistry, onlineUsersService);
+
+        callRegistry = new CallRegistry();
+        setField(callRegistry, "ringingTimeout", 30_000L);
+        setField(callRegistry, "tickDuration", 1_000L);
+        callRegistry.initWheel();
+
+        CandidateCoalescer candidateCoalescer = new CandidateCoalescer(
+                new CandidateBatchingConfig(), wireCodec, candidateScheduler, objectMapper
+        );
+        messageSenderService = new MessageSenderService(
+                onlineUsersService,
+                outboundQueueService,
+                wireCodec,
+                clusterRouter,
+                candidateCoalescer,
+                callRegistry,
+                resumeService,
+                metrics,
+                new EventJournal(new JournalConfig(), meterRegistry)
+        );
+        roomService = new RoomService(new RoomConfig(), messageSenderService, wireCodec, meterRegistry);
+        signallingService = new SignallingService(
+                new CallSignallingService(onlineUsersService, messageSenderService, callRegistry),
+                new WebRTCSignallingService(onlineUsersService, messageSenderService),
+                messageSenderService,
+                roomService,
+                new PresenceService(
+                        new PresenceConfig(), onlineUsersService, messageSenderService, wireCodec, meterRegistry
+                ),
+                metrics
+        );
+    }
+
+    /**
+     * A heartbeat service that pings every tracked session on each tick of a 1 ms wheel.
+     */
+    HeartbeatService newHeartbeatService() {
+        HeartbeatService heartbeatService = new HeartbeatService(outboundQueueService, wireCodec, metrics);
+        setField(heartbeatService, "heartbeatInterval", 0L);
+        setField(heartbeatService, "heartbeatTimeout", Long.MAX_VALUE);
+        setField(heartbeatService, "maxMissedPings", 2);
+        setField(heartbeatService, "heartbeatJitter", 0L);
+        setField(heartbeatService, "tickDuration", 1L);
+        heartbeatService.initWheel();
+        return heartbeatService;
+    }
+
+    StubSession connect(int userId) {
+        StubSession session = new StubSession(userId);
+        outboundQueueService.getQueue(session);
+        onlineUsersService.registerUser(userId, session);
+        return session;
+    }
+
+    /**
+     * Sets a field normally injected from {@code @Value}.
+     */
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getSimpleName() + " has no field " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    @Override
+    public void close() {
+        candidateScheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.itmo.calls.service;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Connection that accepts and discards every frame, so benchmarks measure the server up to the socket.
+ */
+final class StubSession implements Connection {
+    private static final CompletableFuture<Void> SENT = CompletableFuture.completedFuture(null);
+
+    private final String id;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+    private long sentFrames;
+
+    StubSession(int id) {
+        this.id = Integer.toString(id);
+    }
+
+    long sentFrames() {
+        return sentFrames;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return null;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return HttpHeaders.EMPTY;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(WebSocketMessage<?> message) {
+        sentFrames++;
+        return SENT;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        open = false;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.itmo.calls.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads the server's heap and direct buffer use from the actuator {@code metrics} endpoint.
+ */
+final class HeapProbe {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final URI heapUsed;
+    private final URI directUsed;
+    private long peakBytes = -1;
+
+    HeapProbe(HttpClient httpClient, URI actuatorUrl) {
+        this.httpClient = httpClient;
+        this.heapUsed = URI.create(actuatorUrl + "/metrics/jvm.memory.used?tag=area:heap");
+        this.directUsed = URI.create(actuatorUrl + "/metrics/jvm.buffer.memory.used?tag=id:direct");
+    }
+
+    /**
+     * @return bytes of heap in use, or -1 if the actuator could not be reached
+     */
+    synchronized long sample() {
+        long bytes = read(heapUsed);
+        peakBytes = Math.max(peakBytes, bytes);
+        return bytes;
+    }
+
+    /**
+     * @return bytes of direct buffers in use, where Netty keeps its socket buffers, or -1
+     */
+    long sampleDirect() {
+        return read(directUsed);
+    }
+
+    private long read(URI metric) {
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(metric).timeout(Duration.ofSeconds(2)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()
+            );
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            JsonNode measurements = JSON.readTree(response.body()).path("measurements");
+            return measurements.isEmpty() ? -1 : measurements.get(0).path("value").asLong(-1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    synchronized long peakBytes() {
+        return peakBytes;
+    }
+
+    static String format(long bytes) {
+        return bytes < 0 ? "n/a" : String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,89 @@
+package ru.itmo.calls.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load generator settings, passed as {@code --name=value} arguments.
+ *
+ * @param serverUrl      signalling endpoint
+ * @param actuatorUrl    server actuator base, polled for heap use
+ * @param users          simulated clients; every two form a caller/callee pair
+ * @param callsPerSecond rate at which idle pairs start a call; 0 keeps every connection idle
+ * @param duration       how long calls are started for, after all clients are connected
+ * @param hold           how long a call stays up after the answer before CALL_END
+ * @param candidates     trickle-ICE candidates sent by each side of a call
+ * @param connectRate    client handshakes started per second while ramping up
+ * @param reportInterval period of the progress report
+ * @param setupTimeout   a call not answered within this time counts as an error
+ * @param backendPort    port of the embedded /api/v1/users/me stub, 0 to not start it
+ * @param backendLatency delay the stub adds to every response
+ * @param settle         how long server memory is sampled before and after connecting;
+ *                       the lowest sample stands for the live set
+ */
+record LoadConfig(
+        URI serverUrl,
+        URI actuatorUrl,
+        int users,
+        double callsPerSecond,
+        Duration duration,
+        Duration hold,
+        int candidates,
+        int connectRate,
+        Duration reportInterval,
+        Duration setupTimeout,
+        int backendPort,
+        Duration backendLatency,
+        Duration settle
+) {
+    static LoadConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        URI serverUrl = URI.create(options.getOrDefault("url", "ws://localhost:8080/signalling"));
+        // The server's management.server.port, which only listens on loopback
+        String defaultActuator = "http://" + serverUrl.getHost() + ":8081/actuator";
+        LoadConfig config = new LoadConfig(
+                serverUrl,
+                URI.create(options.getOrDefault("actuator", defaultActuator)),
+                Integer.parseInt(options.getOrDefault("users", "2000")),
+                Double.parseDouble(options.getOrDefault("calls-per-second", "50")),
+                duration(options.getOrDefault("duration", "60s")),
+                duration(options.getOrDefault("hold", "5s")),
+                Integer.parseInt(options.getOrDefault("candidates", "8")),
+                Integer.parseInt(options.getOrDefault("connect-rate", "500")),
+                duration(options.getOrDefault("report-interval", "5s")),
+                duration(options.getOrDefault("setup-timeout", "10s")),
+                Integer.parseInt(options.getOrDefault("backend-port", "0")),
+                duration(options.getOrDefault("backend-latency", "20ms")),
+                duration(options.getOrDefault("settle", "10s"))
+        );
+        if (config.users < 2) {
+            throw new IllegalArgumentException("At least two users are needed to place a call");
+        }
+        return config;
+    }
+
+    /**
+     * Accepts the same {@code 500ms}, {@code 30s}, {@code 5m} shorthand as the application properties.
+     */
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+}
@@ -0,0 +1,223 @@
+package ru.itmo.calls.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens {@code users} WebSocket clients against a running server and places calls between
+ * fixed pairs at {@code calls-per-second}, then reports call-setup latency, frame
+ * throughput, errors and server heap use.
+ *
+ * <p>The server must authenticate tokens that are user ids: either run it with
+ * {@code auth.provider.enabled=false}, or pass {@code --backend-port} and point
+ * {@code auth.provider.api.url} at the embedded {@link StubAuthBackend}.
+ *
+ * <p>Server memory is sampled before and after the clients connect, giving the cost of
+ * one idle connection; with {@code --calls-per-second=0} no calls are placed, to compare
+ * transports on idle connections alone.
+ *
+ * <pre>./gradlew loadtest --args="--users=4000 --calls-per-second=200 --duration=2m"</pre>
+ */
+public final class LoadGenerator {
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int FIRST_USER_ID = 1_000_000;
+
+    private final LoadConfig config;
+    private final LoadStats stats = new LoadStats();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+            4, Thread.ofPlatform().name("loadgen-", 0).daemon().factory()
+    );
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ConcurrentLinkedQueue<SimulatedClient> idleCallers = new ConcurrentLinkedQueue<>();
+    private final List<SimulatedClient> clients = new ArrayList<>();
+    private final HeapProbe heapProbe;
+
+    private LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.heapProbe = new HeapProbe(httpClient, config.actuatorUrl());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        StubAuthBackend backend = config.backendPort() > 0
+                ? new StubAuthBackend(config.backendPort(), config.backendLatency())
+                : null;
+        try {
+            new LoadGenerator(config).run();
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+        }
+    }
+
+    private void run() throws InterruptedException {
+        MemoryUse baseline = settledMemory();
+        connectAll();
+        MemoryUse connected = settledMemory();
+
+        long started = System.nanoTime();
+        ScheduledFuture<?> calls = null;
+        if (config.callsPerSecond() > 0) {
+            long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.callsPerSecond());
+            calls = scheduler.scheduleAtFixedRate(this::startNextCall, 0, periodNanos, TimeUnit.NANOSECONDS);
+        }
+        ScheduledFuture<?> reports = scheduler.scheduleAtFixedRate(
+                new ProgressReport(started), config.reportInterval().toMillis(),
+                config.reportInterval().toMillis(), TimeUnit.MILLISECONDS
+        );
+
+        Thread.sleep(config.duration());
+        if (calls != null) {
+            calls.cancel(false);
+            log.info("Stopped placing calls, waiting for calls in progress to end");
+            Thread.sleep(config.hold().plus(config.setupTimeout()));
+        }
+        reports.cancel(false);
+
+        printSummary(System.nanoTime() - started);
+        printConnectionCost(baseline, connected);
+        clients.forEach(SimulatedClient::close);
+        scheduler.shutdownNow();
+    }
+
+    private void connectAll() throws InterruptedException {
+        int pairs = config.users() / 2;
+        List<CompletableFuture<SimulatedClient>> connected = new ArrayList<>(pairs * 2);
+        long pauseNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.connectRate());
+
+        log.info("Connecting {} clients to {}", pairs * 2, config.serverUrl());
+        for (int i = 0; i < pairs; i++) {
+            SimulatedClient caller = new SimulatedClient(FIRST_USER_ID + 2 * i, config, stats, scheduler);
+            SimulatedClient callee = new SimulatedClient(FIRST_USER_ID + 2 * i + 1, config, stats, scheduler);
+            SimulatedClient.pair(caller, callee, () -> idleCallers.add(caller));
+            clients.add(caller);
+            clients.add(callee);
+            connected.add(caller.connect(httpClient, config.serverUrl()));
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            connected.add(callee.connect(httpClient, config.serverUrl()));
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        }
+
+        try {
+            CompletableFuture.allOf(connected.toArray(CompletableFuture[]::new))
+                    .exceptionally(error -> null)
+                    .get(30, TimeUnit.SECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Not all clients authenticated within 30s");
+        }
+
+        for (int i = 0; i < clients.size(); i += 2) {
+            SimulatedClient caller = clients.get(i);
+            if (caller.isConnected() && clients.get(i + 1).isConnected()) {
+                idleCallers.add(caller);
+            }
+        }
+        log.info("{} of {} pairs connected. Errors: {}", idleCallers.size(), pairs, stats.errorSummary());
+    }
+
+    /**
+     * Samples server memory for {@code settle} and keeps the lowest reading, which is
+     * closest to what survives a collection.
+     */
+    private MemoryUse settledMemory() throws InterruptedException {
+        long heap = Long.MAX_VALUE;
+        long direct = Long.MAX_VALUE;
+        long deadline = System.nanoTime() + config.settle().toNanos();
+        do {
+            heap = Math.min(heap, heapProbe.sample());
+            direct = Math.min(direct, heapProbe.sampleDirect());
+            Thread.sleep(200);
+        } while (System.nanoTime() < deadline);
+        return new MemoryUse(heap, direct);
+    }
+
+    private void startNextCall() {
+        SimulatedClient caller = idleCallers.poll();
+        if (caller == null) {
+            stats.callsSkipped.increment();
+            return;
+        }
+        caller.startCall();
+    }
+
+    private void printSummary(long elapsedNanos) {
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        long heap = heapProbe.sample();
+        System.out.printf("%n=== Load test summary (%.0fs, %d users, %.0f calls/s requested) ===%n",
+                seconds, clients.size(), config.callsPerSecond());
+        System.out.printf("calls:      started=%d established=%d ended=%d skipped(no idle pair)=%d%n",
+                stats.callsStarted.sum(), stats.callsEstablished.sum(), stats.callsEnded.sum(), stats.callsSkipped.sum());
+        System.out.printf("ringing:    %s%n", stats.ringing.snapshot().describe());
+        System.out.printf("call setup: %s%n", stats.setup.snapshot().describe());
+        System.out.printf("frames:     sent=%d (%.0f/s) received=%d (%.0f/s)%n",
+                stats.framesSent.sum(), stats.framesSent.sum() / seconds,
+                stats.framesReceived.sum(), stats.framesReceived.sum() / seconds);
+        System.out.printf("errors:     %d (%s)%n", stats.errorCount(), stats.errorSummary());
+        System.out.printf("server heap: now=%s peak=%s%n", HeapProbe.format(heap), HeapProbe.format(heapProbe.peakBytes()));
+    }
+
+    private void printConnectionCost(MemoryUse baseline, MemoryUse connected) {
+        long connections = clients.stream().filter(SimulatedClient::isConnected).count();
+        if (connections == 0 || baseline.heap() < 0 || connected.heap() < 0) {
+            System.out.println("per connection: n/a");
+            return;
+        }
+        System.out.printf("per connection (%d idle): heap=%d B direct=%s%n",
+                connections,
+                (connected.heap() - baseline.heap()) / connections,
+                baseline.direct() < 0 || connected.direct() < 0
+                        ? "n/a"
+                        : (connected.direct() - baseline.direct()) / connections + " B");
+    }
+
+    private record MemoryUse(long heap, long direct) {
+    }
+
+    private final class ProgressReport implements Runnable {
+        private final long started;
+        private long lastAt;
+        private long lastSent;
+        private long lastReceived;
+
+        private ProgressReport(long started) {
+            this.started = started;
+            this.lastAt = started;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            double interval = (now - lastAt) / (double) TimeUnit.SECONDS.toNanos(1);
+            long sent = stats.framesSent.sum();
+            long received = stats.framesReceived.sum();
+            System.out.printf(
+                    "[%4ds] calls %d/%d established, setup %s | frames out %.0f/s in %.0f/s | errors %d | heap %s%n",
+                    Duration.ofNanos(now - started).toSeconds(),
+                    stats.callsEstablished.sum(), stats.callsStarted.sum(),
+                    stats.setup.snapshot().describe(),
+                    (sent - lastSent) / interval, (received - lastReceived) / interval,
+                    stats.errorCount(),
+                    HeapProbe.format(heapProbe.sample())
+            );
+            lastAt = now;
+            lastSent = sent;
+            lastReceived = received;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.itmo.calls.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency samples shared by all simulated clients.
+ */
+final class LoadStats {
+    final Latencies ringing = new Latencies();
+    final Latencies setup = new Latencies();
+
+    final LongAdder framesSent = new LongAdder();
+    final LongAdder framesReceived = new LongAdder();
+    final LongAdder callsStarted = new LongAdder();
+    final LongAdder callsEstablished = new LongAdder();
+    final LongAdder callsEnded = new LongAdder();
+    final LongAdder callsSkipped = new LongAdder();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void error(String kind) {
+        errors.computeIfAbsent(kind, key -> new LongAdder()).increment();
+    }
+
+    long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    String errorSummary() {
+        if (errors.isEmpty()) {
+            return "none";
+        }
+        StringBuilder summary = new StringBuilder();
+        errors.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> summary.append(entry.getKey()).append('=').append(entry.getValue().sum()).append(' '));
+        return summary.toString().trim();
+    }
+
+    /**
+     * Every sample is kept; at load-test call rates that is a few megabytes at most.
+     */
+    static final class Latencies {
+        private long[] samples = new long[1024];
+        private int count;
+
+        synchronized void record(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+
+        synchronized Snapshot snapshot() {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return new Snapshot(sorted);
+        }
+    }
+
+    record Snapshot(long[] sorted) {
+        int count() {
+            return sorted.length;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        String describe() {
+            return String.format(
+                    "n=%d p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                    count(), percentileMillis(50), percentileMillis(99), percentileMillis(99.9), percentileMillis(100)
+            );
+        }
+    }
+}
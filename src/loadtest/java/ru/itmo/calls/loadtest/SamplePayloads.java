@@ -0,0 +1,87 @@
+package ru.itmo.calls.loadtest;
+
+/**
+ * Payloads shaped like a browser's, so frame sizes and validation work are realistic.
+ */
+final class SamplePayloads {
+    private static final String SDP = String.join("\\r\\n",
+            "v=0",
+            "o=- 4611731400430051336 2 IN IP4 127.0.0.1",
+            "s=-",
+            "t=0 0",
+            "a=group:BUNDLE 0 1",
+            "a=msid-semantic: WMS 3b1e8c2a-6f4d-4b8e-9a51-2c7d0e9f1a44",
+            "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xk3f",
+            "a=ice-pwd:9sJq2mVw4hTz8cLp1rNb6dYe",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 5B:1D:9A:0C:7E:44:2F:8B:93:61:AF:3C:D2:58:0E:B7:16:C4:7A:E9:22:0D:6B:F1:85:3E:A0:4C:79:D6:1B:E2",
+            "a=setup:%s",
+            "a=mid:0",
+            "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+            "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+            "a=sendrecv",
+            "a=rtcp-mux",
+            "a=rtpmap:111 opus/48000/2",
+            "a=rtcp-fb:111 transport-cc",
+            "a=fmtp:111 minptime=10;useinbandfec=1",
+            "a=rtpmap:9 G722/8000",
+            "a=rtpmap:0 PCMU/8000",
+            "a=rtpmap:8 PCMA/8000",
+            "a=rtpmap:110 telephone-event/48000",
+            "a=ssrc:2704392125 cname:q8Vh3kRf0ZpL2wXe",
+            "m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103",
+            "c=IN IP4 0.0.0.0",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "a=ice-ufrag:Xk3f",
+            "a=ice-pwd:9sJq2mVw4hTz8cLp1rNb6dYe",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 5B:1D:9A:0C:7E:44:2F:8B:93:61:AF:3C:D2:58:0E:B7:16:C4:7A:E9:22:0D:6B:F1:85:3E:A0:4C:79:D6:1B:E2",
+            "a=setup:%s",
+            "a=mid:1",
+            "a=extmap:13 urn:3gpp:video-orientation",
+            "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+            "a=sendrecv",
+            "a=rtcp-mux",
+            "a=rtcp-rsize",
+            "a=rtpmap:96 VP8/90000",
+            "a=rtcp-fb:96 goog-remb",
+            "a=rtcp-fb:96 transport-cc",
+            "a=rtcp-fb:96 ccm fir",
+            "a=rtcp-fb:96 nack",
+            "a=rtcp-fb:96 nack pli",
+            "a=rtpmap:97 rtx/90000",
+            "a=fmtp:97 apt=96",
+            "a=rtpmap:102 H264/90000",
+            "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+            "a=rtpmap:103 rtx/90000",
+            "a=fmtp:103 apt=102",
+            "a=ssrc-group:FID 1830461527 3029884815",
+            "a=ssrc:1830461527 cname:q8Vh3kRf0ZpL2wXe",
+            "a=ssrc:3029884815 cname:q8Vh3kRf0ZpL2wXe",
+            ""
+    );
+
+    private static final String OFFER = "{\"type\":\"offer\",\"sdp\":\"" + SDP.formatted("actpass", "actpass") + "\"}";
+    private static final String ANSWER = "{\"type\":\"answer\",\"sdp\":\"" + SDP.formatted("active", "active") + "\"}";
+
+    private SamplePayloads() {
+    }
+
+    static String offer() {
+        return OFFER;
+    }
+
+    static String answer() {
+        return ANSWER;
+    }
+
+    static String candidate(int index) {
+        return "{\"candidate\":\"candidate:842163049 1 udp 1677729535 203.0.113.47 "
+                + (51000 + index) + " typ srflx raddr 192.168.1.23 rport " + (51000 + index)
+                + " generation 0 ufrag Xk3f network-cost 999\",\"sdpMid\":\"" + (index % 2)
+                + "\",\"sdpMLineIndex\":" + (index % 2) + ",\"usernameFragment\":\"Xk3f\"}";
+    }
+}
@@ -0,0 +1,239 @@
+package ru.itmo.calls.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One user with one WebSocket, authenticated with an AUTH message whose token is the
+ * user id. Callers drive CALL_INIT -> CALL_ACCEPT -> OFFER/ANSWER -> candidates -> CALL_END
+ * against their fixed callee, which answers automatically.
+ */
+final class SimulatedClient implements WebSocket.Listener {
+    private static final String SUB_PROTOCOL = "signalling.json.v1";
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final AtomicLong CALL_IDS = new AtomicLong();
+
+    private final int userId;
+    private final LoadConfig config;
+    private final LoadStats stats;
+    private final ScheduledExecutorService scheduler;
+    private final CompletableFuture<SimulatedClient> authenticated = new CompletableFuture<>();
+    private final StringBuilder partial = new StringBuilder();
+
+    private SimulatedClient peer;
+    private Runnable onCallFinished = () -> { };
+
+    private volatile WebSocket webSocket;
+    private CompletableFuture<?> sending = CompletableFuture.completedFuture(null);
+
+    private volatile long callId;
+    private volatile long callStartedAt;
+    private volatile boolean established;
+
+    SimulatedClient(int userId, LoadConfig config, LoadStats stats, ScheduledExecutorService scheduler) {
+        this.userId = userId;
+        this.config = config;
+        this.stats = stats;
+        this.scheduler = scheduler;
+    }
+
+    static void pair(SimulatedClient caller, SimulatedClient callee, Runnable onCallFinished) {
+        caller.peer = callee;
+        caller.onCallFinished = onCallFinished;
+        callee.peer = caller;
+    }
+
+    int userId() {
+        return userId;
+    }
+
+    boolean isConnected() {
+        return webSocket != null && !webSocket.isOutputClosed() && authenticated.isDone()
+                && !authenticated.isCompletedExceptionally();
+    }
+
+    CompletableFuture<SimulatedClient> connect(HttpClient httpClient, URI serverUrl) {
+        httpClient.newWebSocketBuilder()
+                .subprotocols(SUB_PROTOCOL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .buildAsync(serverUrl, this)
+                .whenComplete((socket, error) -> {
+                    if (error != null) {
+                        stats.error("connect");
+                        authenticated.completeExceptionally(error);
+                    }
+                });
+        return authenticated;
+    }
+
+    void close() {
+        WebSocket socket = webSocket;
+        if (socket != null) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "load test finished");
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        send("{\"type\":\"AUTH\",\"payload\":{\"token\":\"" + userId + "\"}}");
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String text = partial.toString();
+            partial.setLength(0);
+            stats.framesReceived.increment();
+            try {
+                onFrame(JSON.readTree(text));
+            } catch (Exception e) {
+                stats.error("client-" + e.getClass().getSimpleName());
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (!authenticated.isDone()) {
+            authenticated.completeExceptionally(new IllegalStateException("Closed during auth: " + reason));
+        }
+        if (statusCode != WebSocket.NORMAL_CLOSURE) {
+            stats.error("closed-" + statusCode);
+        }
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        stats.error("transport");
+        authenticated.completeExceptionally(error);
+    }
+
+    private void onFrame(JsonNode frame) {
+        String type = frame.path("type").asText();
+        switch (type) {
+            case "AUTH_SUCCESS" -> authenticated.complete(this);
+            case "AUTH_FAILED" -> {
+                stats.error("auth-failed");
+                authenticated.completeExceptionally(new IllegalStateException(frame.toString()));
+            }
+            case "PING" -> send("{\"type\":\"PONG\"}");
+            case "INCOMING_CALL" -> {
+                long startedAt = peer.callStartedAt;
+                if (startedAt != 0) {
+                    stats.ringing.record(System.nanoTime() - startedAt);
+                }
+                send(control("CALL_ACCEPT"));
+            }
+            case "CALL_ACCEPT" -> send(signal("WEBRTC_OFFER", SamplePayloads.offer()));
+            case "WEBRTC_OFFER" -> {
+                send(signal("WEBRTC_ANSWER", SamplePayloads.answer()));
+                sendCandidates();
+            }
+            case "WEBRTC_ANSWER" -> onAnswer();
+            case "CALL_REJECT" -> {
+                stats.error("rejected-" + frame.path("payload").path("reason").asText("UNKNOWN"));
+                finishCall(callId);
+            }
+            case "ERROR" -> stats.error("server-error");
+            default -> {
+                // CALL_END, candidates and batches need no reply
+            }
+        }
+    }
+
+    void startCall() {
+        long id = CALL_IDS.incrementAndGet();
+        callId = id;
+        established = false;
+        callStartedAt = System.nanoTime();
+        stats.callsStarted.increment();
+        send(control("CALL_INIT"));
+        scheduler.schedule(() -> checkSetup(id), config.setupTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void onAnswer() {
+        long id = callId;
+        if (established || callStartedAt == 0) {
+            return;
+        }
+        established = true;
+        stats.setup.record(System.nanoTime() - callStartedAt);
+        stats.callsEstablished.increment();
+        sendCandidates();
+        scheduler.schedule(() -> hangUp(id), config.hold().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void checkSetup(long id) {
+        if (callId == id && !established && callStartedAt != 0) {
+            stats.error("setup-timeout");
+            send(control("CALL_END"));
+            finishCall(id);
+        }
+    }
+
+    private void hangUp(long id) {
+        if (callId == id) {
+            send(control("CALL_END"));
+            stats.callsEnded.increment();
+            finishCall(id);
+        }
+    }
+
+    private void finishCall(long id) {
+        if (callId == id && callStartedAt != 0) {
+            callStartedAt = 0;
+            onCallFinished.run();
+        }
+    }
+
+    private void sendCandidates() {
+        for (int i = 0; i < config.candidates(); i++) {
+            send(signal("WEBRTC_CANDIDATE", SamplePayloads.candidate(i)));
+        }
+    }
+
+    private String control(String type) {
+        return "{\"type\":\"" + type + "\",\"to\":" + peer.userId + "}";
+    }
+
+    private String signal(String type, String payload) {
+        return "{\"type\":\"" + type + "\",\"to\":" + peer.userId + ",\"payload\":" + payload + "}";
+    }
+
+    /**
+     * The JDK client allows one outstanding send per socket, so sends are chained.
+     */
+    private synchronized void send(String text) {
+        WebSocket socket = webSocket;
+        if (socket == null || socket.isOutputClosed()) {
+            stats.error("send-closed");
+            return;
+        }
+        sending = sending
+                .thenCompose(ignored -> socket.sendText(text, true))
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        stats.error("send");
+                    } else {
+                        stats.framesSent.increment();
+                    }
+                    return null;
+                });
+    }
+}
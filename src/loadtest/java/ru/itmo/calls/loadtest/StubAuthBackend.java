@@ -0,0 +1,72 @@
+package ru.itmo.calls.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for the {@code /api/v1/users/me} backend used by {@code ApiAuthProvider}.
+ * A bearer token that is a number authenticates as that user id; anything else gets 401.
+ * Start the server with {@code auth.provider.enabled=true} and
+ * {@code auth.provider.api.url=http://localhost:<backend-port>}.
+ */
+final class StubAuthBackend implements AutoCloseable {
+    private static final String USER_ENDPOINT = "/api/v1/users/me";
+    private static final String BEARER = "Bearer ";
+
+    private final HttpServer server;
+    private final Duration latency;
+
+    StubAuthBackend(int port, Duration latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext(USER_ENDPOINT, this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+
+            Integer userId = userId(exchange.getRequestHeaders().getFirst("Authorization"));
+            if (userId == null) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            byte[] body = ("{\"user\":{\"id\":" + userId + "}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Integer userId(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(authorization.substring(BEARER.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.itmo.calls.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Predicate;
+
+import ru.itmo.calls.model.JournalEvent;
+import ru.itmo.calls.model.JournalRecord;
+import ru.itmo.calls.service.JournalFile;
+
+/**
+ * Prints an event journal as text, oldest record first.
+ *
+ * <pre>./gradlew journalDump --args="logs/signalling.journal --user=42 --last=200"</pre>
+ *
+ * Options: {@code --user=ID} (sender or recipient), {@code --connection=ID},
+ * {@code --event=NAME}, {@code --last=N}.
+ */
+public final class JournalDump {
+
+    private JournalDump() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = null;
+        Predicate<JournalRecord> filter = record -> true;
+        int last = 0;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                path = Path.of(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                usage("Option " + arg + " needs a value");
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "user" -> {
+                    Integer userId = Integer.valueOf(value);
+                    filter = filter.and(record -> userId.equals(record.from()) || userId.equals(record.to()));
+                }
+                case "connection" -> {
+                    long connectionId = Long.parseLong(value);
+                    filter = filter.and(record -> record.connectionId() == connectionId);
+                }
+                case "event" -> {
+                    JournalEvent event = JournalEvent.valueOf(value);
+                    filter = filter.and(record -> record.event() == event);
+                }
+                case "last" -> last = Integer.parseInt(value);
+                default -> usage("Unknown option " + arg);
+            }
+        }
+        if (path == null) {
+            usage("Journal file is required");
+        }
+
+        PrintStream out = System.out;
+        Predicate<JournalRecord> matches = filter;
+        if (last <= 0) {
+            JournalFile.read(path, record -> {
+                if (matches.test(record)) {
+                    out.println(record.describe());
+                }
+            });
+            return;
+        }
+
+        int limit = last;
+        Deque<JournalRecord> tail = new ArrayDeque<>(limit);
+        JournalFile.read(path, record -> {
+            if (matches.test(record)) {
+                if (tail.size() == limit) {
+                    tail.removeFirst();
+                }
+                tail.addLast(record);
+            }
+        });
+        tail.forEach(record -> out.println(record.describe()));
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: JournalDump <file> [--user=ID] [--connection=ID] [--event=NAME] [--last=N]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Handshake admission. Each adaptive signal has a soft limit, above which a growing share
+ * of handshakes is shed, and a hard limit, at which all of them are.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.admission")
+public class AdmissionConfig {
+    private boolean enabled = true;
+    /**
+     * Cross-origin pages allowed to open {@code /signalling}. Empty admits only same-origin
+     * pages and clients that send no {@code Origin}; {@code *} admits any site.
+     */
+    private List<String> allowedOrigins = List.of();
+
+    private int maxConnections = 20_000;
+    private int handshakeBurst = 200;
+    private double handshakesPerSecond = 100;
+
+    private double heapSoftLimit = 0.75;
+    private double heapHardLimit = 0.90;
+    private int inboundBacklogSoftLimit = 10_000;
+    private int inboundBacklogHardLimit = 50_000;
+    private Duration authLatencySoftLimit = Duration.ofMillis(500);
+    private Duration authLatencyHardLimit = Duration.ofSeconds(2);
+
+    /**
+     * Rejected clients are told to retry after this long, plus up to as much again of
+     * jitter so they do not come back together.
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+}
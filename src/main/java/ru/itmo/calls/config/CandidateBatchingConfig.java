@@ -0,0 +1,18 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.candidates")
+public class CandidateBatchingConfig {
+    private boolean batchingEnabled = true;
+    private Duration window = Duration.ofMillis(20);
+    private int maxBatchSize = 32;
+}
@@ -0,0 +1,33 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.cluster")
+public class ClusterConfig {
+    private boolean enabled = false;
+    private String name = "default";
+    private String nodeId = "node-1";
+    private String host = "127.0.0.1";
+    private int port = 7400;
+    /**
+     * Forwarding addresses of the other nodes, as {@code nodeId -> host:port}.
+     */
+    private Map<String, String> peers = new HashMap<>();
+    private int maxBatchFrames = 256;
+    private int maxQueuedFrames = 4096;
+    /**
+     * First delay before reconnecting to an unreachable peer; doubles on each failure.
+     */
+    private Duration reconnectBackoff = Duration.ofMillis(200);
+    private Duration maxReconnectBackoff = Duration.ofSeconds(10);
+}
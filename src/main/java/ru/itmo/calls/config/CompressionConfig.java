@@ -0,0 +1,21 @@
+package ru.itmo.calls.config;
+
+import java.util.zip.Deflater;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.compression")
+public class CompressionConfig {
+    private boolean enabled = true;
+    private int minFrameSize = 512;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private boolean presetDictionary = true;
+    private boolean serverContextTakeover = true;
+    private int maxInflatedSize = 64 * 1024;
+}
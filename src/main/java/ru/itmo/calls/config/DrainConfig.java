@@ -0,0 +1,28 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.drain")
+public class DrainConfig {
+    /**
+     * Drain on shutdown (SIGTERM) before the web server stops.
+     */
+    private boolean onShutdown = true;
+    /**
+     * How long users in a call are left to finish it before they are told to reconnect.
+     */
+    private Duration callDeadline = Duration.ofMinutes(2);
+    /**
+     * Reconnect hints are spread uniformly over this window.
+     */
+    private Duration reconnectWindow = Duration.ofSeconds(30);
+    private Duration checkInterval = Duration.ofSeconds(1);
+}
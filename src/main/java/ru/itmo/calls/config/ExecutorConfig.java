@@ -0,0 +1,42 @@
+package ru.itmo.calls.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService authExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("auth-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService inboundExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("inbound-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService outboundExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("outbound-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService clusterExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cluster-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ScheduledExecutorService candidateScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("candidate-flush").daemon().factory());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ScheduledExecutorService drainScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("drain").daemon().factory());
+    }
+}
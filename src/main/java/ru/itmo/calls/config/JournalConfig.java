@@ -0,0 +1,30 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.journal")
+public class JournalConfig {
+    private boolean enabled = true;
+    private String path = "logs/signalling.journal";
+    /**
+     * Records kept in the ring file before the oldest are overwritten; 64 bytes each.
+     */
+    private int capacity = 1 << 20;
+    /**
+     * In-memory records awaiting the writer; events are dropped when it is full.
+     */
+    private int bufferSize = 1 << 14;
+    /**
+     * Keep the first bytes of one in this many frame payloads; 0 keeps none.
+     */
+    private int payloadSampleRate = 0;
+    private Duration idleWait = Duration.ofMillis(5);
+}
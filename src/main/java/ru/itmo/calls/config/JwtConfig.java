@@ -0,0 +1,37 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "auth.provider.jwt")
+public class JwtConfig {
+    /**
+     * JWKS document to load signing keys from; used when {@code jwks-file} is not set.
+     */
+    private String jwksUrl;
+    private String jwksFile;
+    /**
+     * Claim holding the numeric user id, as a number or a numeric string.
+     */
+    private String userIdClaim = "sub";
+    /**
+     * Required {@code iss}, or any issuer if unset.
+     */
+    private String issuer;
+    /**
+     * Required entry of {@code aud}, or any audience if unset.
+     */
+    private String audience;
+    private Duration clockSkew = Duration.ofSeconds(30);
+    /**
+     * A token signed with an unknown key triggers a reload at most this often.
+     */
+    private Duration minRefreshInterval = Duration.ofSeconds(30);
+}
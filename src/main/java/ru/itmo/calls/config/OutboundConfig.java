@@ -0,0 +1,20 @@
+package ru.itmo.calls.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.itmo.calls.model.OverflowPolicy;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.outbound")
+public class OutboundConfig {
+    private int maxQueuedFrames = 256;
+    /**
+     * Slots of {@code maxQueuedFrames} only call control frames may use.
+     */
+    private int controlReserve = 32;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+}
@@ -0,0 +1,15 @@
+package ru.itmo.calls.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.presence")
+public class PresenceConfig {
+    private boolean enabled = true;
+    private int maxWatchedPerUser = 500;
+}
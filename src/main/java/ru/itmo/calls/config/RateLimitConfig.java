@@ -0,0 +1,49 @@
+package ru.itmo.calls.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.itmo.calls.model.SignalType;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.rate-limit")
+public class RateLimitConfig {
+    private boolean enabled = true;
+    /**
+     * Bucket for every type without its own entry in {@link #types}.
+     */
+    private Limit defaults = new Limit(20, 10);
+    private Map<SignalType, Limit> types = new EnumMap<>(SignalType.class);
+    /**
+     * Distinct users a connection may address per minute.
+     */
+    private int maxTargetsPerMinute = 20;
+    /**
+     * Rejected frames per minute after which the connection is closed.
+     */
+    private int maxViolationsPerMinute = 30;
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private int burst;
+        /**
+         * Refill rate; zero or less disables the limit.
+         */
+        private double perSecond;
+
+        public Limit() {
+        }
+
+        public Limit(int burst, double perSecond) {
+            this.burst = burst;
+            this.perSecond = perSecond;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.itmo.calls.config;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.server.WebFilter;
+import ru.itmo.calls.handler.ReactiveSignallingHandler;
+import ru.itmo.calls.model.AdmissionVerdict;
+import ru.itmo.calls.service.AdmissionService;
+
+/**
+ * Serves {@code /signalling} from WebFlux on Reactor Netty when the application runs with
+ * {@code spring.main.web-application-type=reactive}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebSocketConfig {
+
+    /**
+     * Tomcat is on the classpath for the servlet transport and would otherwise be picked
+     * as the reactive server too.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public HandlerMapping signallingHandlerMapping(
+            ReactiveSignallingHandler reactiveSignallingHandler,
+            AdmissionConfig admissionConfig
+    ) {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of("/signalling", reactiveSignallingHandler), -1);
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(admissionConfig.getAllowedOrigins());
+        mapping.setCorsConfigurations(Map.of("/signalling", cors));
+        return mapping;
+    }
+
+    /**
+     * Refuses handshakes before the upgrade, as the servlet stack's handshake interceptor does.
+     */
+    @Bean
+    public WebFilter signallingAdmissionFilter(AdmissionService admissionService) {
+        return (exchange, chain) -> {
+            if (!"/signalling".equals(exchange.getRequest().getPath().value())
+                    || admissionService.admit() == AdmissionVerdict.ADMITTED) {
+                return chain.filter(exchange);
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders()
+                    .set(HttpHeaders.RETRY_AFTER, Long.toString(admissionService.retryAfterSeconds()));
+            return exchange.getResponse().setComplete();
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.resume")
+public class ResumeConfig {
+    private boolean enabled = true;
+    private Duration gracePeriod = Duration.ofSeconds(30);
+    private int maxBufferedFrames = 64;
+    private int maxBufferedBytes = 64 * 1024;
+}
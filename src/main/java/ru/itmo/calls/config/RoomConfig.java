@@ -0,0 +1,16 @@
+package ru.itmo.calls.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "signalling.rooms")
+public class RoomConfig {
+    private boolean enabled = true;
+    private int maxMembers = 50;
+    private int maxRoomsPerUser = 4;
+}
@@ -0,0 +1,23 @@
+package ru.itmo.calls.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "auth.provider.cache")
+public class TokenCacheConfig {
+    private long maximumSize = 100_000;
+    private Duration ttl = Duration.ofMinutes(5);
+    private Duration negativeTtl = Duration.ofSeconds(10);
+    /**
+     * Entries older than this are still served while a reload runs in the background,
+     * so a slow auth backend does not stall clients holding an already known token.
+     */
+    private Duration refreshAfter = Duration.ofMinutes(1);
+}
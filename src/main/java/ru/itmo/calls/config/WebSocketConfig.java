@@ -1,31 +1,36 @@
 package ru.itmo.calls.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
-import ru.itmo.calls.handler.SignallingWebSocketHandler;
+import ru.itmo.calls.handler.ServletSignallingHandler;
 import ru.itmo.calls.security.AuthHandshakeInterceptor;
 
 @Configuration
 @EnableWebSocket
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WebSocketConfig implements WebSocketConfigurer {
-    private final SignallingWebSocketHandler signallingWebSocketHandler;
+    private final ServletSignallingHandler servletSignallingHandler;
     private final AuthHandshakeInterceptor authHandshakeInterceptor;
+    private final AdmissionConfig admissionConfig;
 
     public WebSocketConfig(
-            SignallingWebSocketHandler signallingWebSocketHandler,
-            AuthHandshakeInterceptor authHandshakeInterceptor
+            ServletSignallingHandler servletSignallingHandler,
+            AuthHandshakeInterceptor authHandshakeInterceptor,
+            AdmissionConfig admissionConfig
     ) {
-        this.signallingWebSocketHandler = signallingWebSocketHandler;
+        this.servletSignallingHandler = servletSignallingHandler;
         this.authHandshakeInterceptor = authHandshakeInterceptor;
+        this.admissionConfig = admissionConfig;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(signallingWebSocketHandler, "/signalling")
+        registry.addHandler(servletSignallingHandler, "/signalling")
                 .addInterceptors(authHandshakeInterceptor)
-                .setAllowedOrigins("*");
+                .setAllowedOrigins(admissionConfig.getAllowedOrigins().toArray(String[]::new));
     }
 }
 
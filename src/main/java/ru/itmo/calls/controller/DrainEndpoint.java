@@ -0,0 +1,60 @@
+package ru.itmo.calls.controller;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import ru.itmo.calls.model.DrainState;
+import ru.itmo.calls.service.CallRegistry;
+import ru.itmo.calls.service.DrainService;
+import ru.itmo.calls.service.OnlineUsersService;
+
+@Component
+@Endpoint(id = "drain")
+public class DrainEndpoint {
+
+    private final DrainService drainService;
+    private final OnlineUsersService onlineUsersService;
+    private final CallRegistry callRegistry;
+
+    public DrainEndpoint(DrainService drainService, OnlineUsersService onlineUsersService, CallRegistry callRegistry) {
+        this.drainService = drainService;
+        this.onlineUsersService = onlineUsersService;
+        this.callRegistry = callRegistry;
+    }
+
+    @ReadOperation
+    public DrainStatus status() {
+        Instant startedAt = drainService.getStartedAt();
+        return new DrainStatus(
+                drainService.getState(),
+                startedAt,
+                startedAt != null ? Duration.between(startedAt, Instant.now()).toSeconds() : 0,
+                onlineUsersService.getOnlineCount(),
+                callRegistry.getActiveCount(),
+                drainService.getNotified()
+        );
+    }
+
+    /**
+     * Starts draining; the node keeps serving existing sessions until they are moved.
+     */
+    @WriteOperation
+    public DrainStatus drain() {
+        drainService.startDrain();
+        return status();
+    }
+
+    public record DrainStatus(
+            DrainState state,
+            Instant startedAt,
+            long elapsedSeconds,
+            int onlineUsers,
+            int activeCalls,
+            int reconnectsSent
+    ) {
+    }
+}
@@ -1,41 +1,109 @@
 package ru.itmo.calls.controller;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.itmo.calls.exception.InvalidMessageException;
+import ru.itmo.calls.service.DrainService;
 import ru.itmo.calls.service.OnlineUsersService;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
 public class HealthController {
-    
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int MAX_BITMAP_BITS = 1 << 23;
+
     private final OnlineUsersService onlineUsersService;
-    
-    public HealthController(OnlineUsersService onlineUsersService) {
+    private final DrainService drainService;
+
+    public HealthController(OnlineUsersService onlineUsersService, DrainService drainService) {
         this.onlineUsersService = onlineUsersService;
+        this.drainService = drainService;
     }
 
+    /**
+     * Answers 503 while the node drains, so load balancers stop sending it new clients.
+     */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
-        return ResponseEntity.ok(Map.of(
-            "status", "UP",
+        boolean draining = drainService.isDraining();
+        return ResponseEntity.status(draining ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK).body(Map.of(
+            "status", draining ? drainService.getState().name() : "UP",
             "service", "signalling-server",
             "onlineUsers", onlineUsersService.getOnlineCount()
         ));
     }
 
+    /**
+     * Pages through online users in ascending id order. {@code format=ids} returns plain ids,
+     * {@code format=ranges} collapses consecutive ids into {@code [first, last]} pairs and
+     * {@code format=bitmap} returns a base64 bitset of {@code size} ids starting at {@code from}.
+     */
     @GetMapping("/users/online")
-    public ResponseEntity<Map<String, Object>> getOnlineUsers() {
-        List<Integer> onlineUsers = onlineUsersService.getOnlineUsers();
-        
-        return ResponseEntity.ok(Map.of(
-            "count", onlineUsers.size(),
-            "users", onlineUsers
-        ));
+    public ResponseEntity<Map<String, Object>> getOnlineUsers(
+        @RequestParam(required = false) Integer cursor,
+        @RequestParam(defaultValue = "1000") int limit,
+        @RequestParam(defaultValue = "ids") String format,
+        @RequestParam(defaultValue = "0") int from,
+        @RequestParam(defaultValue = "1048576") int size
+    ) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("count", onlineUsersService.getOnlineCount());
+
+        if ("bitmap".equals(format)) {
+            int bits = Math.clamp(size, 1, MAX_BITMAP_BITS);
+            body.put("from", from);
+            body.put("size", bits);
+            body.put("bitmap", Base64.getEncoder().encodeToString(onlineBitmap(from, bits)));
+            return ResponseEntity.ok(body);
+        }
+
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        int[] page = onlineUsersService.getOnlineUsersPage(cursor != null ? cursor : Long.MIN_VALUE, pageSize);
+
+        switch (format) {
+            case "ids" -> body.put("users", page);
+            case "ranges" -> body.put("ranges", toRanges(page));
+            default -> throw new InvalidMessageException("Unknown format: " + format);
+        }
+        if (page.length == pageSize) {
+            body.put("nextCursor", page[page.length - 1]);
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    private byte[] onlineBitmap(int from, int bits) {
+        byte[] bitmap = new byte[(bits + 7) / 8];
+        onlineUsersService.forEachOnline((userId, session) -> {
+            long offset = (long) userId - from;
+            if (offset >= 0 && offset < bits) {
+                bitmap[(int) (offset >>> 3)] |= (byte) (1 << (offset & 7));
+            }
+        });
+        return bitmap;
     }
-}
 
+    private static List<int[]> toRanges(int[] sortedIds) {
+        List<int[]> ranges = new ArrayList<>();
+        int i = 0;
+        while (i < sortedIds.length) {
+            int first = sortedIds[i];
+            int last = first;
+            while (i + 1 < sortedIds.length && sortedIds[i + 1] == last + 1) {
+                last = sortedIds[++i];
+            }
+            ranges.add(new int[]{first, last});
+            i++;
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.itmo.calls.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+import ru.itmo.calls.service.OnlineUsersService;
+import ru.itmo.calls.service.OutboundQueue;
+import ru.itmo.calls.service.OutboundQueueService;
+import ru.itmo.calls.transport.Connection;
+
+@Component
+@Endpoint(id = "outbound")
+public class OutboundQueueEndpoint {
+
+    private final OnlineUsersService onlineUsersService;
+    private final OutboundQueueService outboundQueueService;
+
+    public OutboundQueueEndpoint(OnlineUsersService onlineUsersService, OutboundQueueService outboundQueueService) {
+        this.onlineUsersService = onlineUsersService;
+        this.outboundQueueService = outboundQueueService;
+    }
+
+    /**
+     * Lists only sessions that currently have a backlog or have dropped frames,
+     * so the response stays small with many healthy connections.
+     */
+    @ReadOperation
+    public Map<String, Object> congestedSessions() {
+        long[] totals = new long[2];
+        List<QueueStats> congested = new ArrayList<>();
+
+        onlineUsersService.forEachOnline((userId, session) -> {
+            OutboundQueue queue = outboundQueueService.findQueue(session);
+            if (queue == null) {
+                return;
+            }
+            totals[0] += queue.getDepth();
+            totals[1] += queue.getDropped();
+            if (queue.getDepth() > 0 || queue.getDropped() > 0) {
+                congested.add(toStats(userId, queue));
+            }
+        });
+
+        return Map.of(
+                "totalDepth", totals[0],
+                "totalDropped", totals[1],
+                "sessions", congested
+        );
+    }
+
+    @ReadOperation
+    public QueueStats userQueue(@Selector int userId) {
+        Connection session = onlineUsersService.getSession(userId);
+        OutboundQueue queue = session != null ? outboundQueueService.findQueue(session) : null;
+        return queue != null ? toStats(userId, queue) : null;
+    }
+
+    private static QueueStats toStats(int userId, OutboundQueue queue) {
+        return new QueueStats(userId, queue.getSessionId(), queue.getDepth(), queue.getSent(), queue.getDropped());
+    }
+
+    public record QueueStats(int userId, String sessionId, int depth, long sent, long dropped) {
+    }
+}
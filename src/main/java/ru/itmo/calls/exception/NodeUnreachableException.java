@@ -0,0 +1,13 @@
+package ru.itmo.calls.exception;
+
+import lombok.Getter;
+
+@Getter
+public class NodeUnreachableException extends SignallingException {
+    private final String nodeId;
+
+    public NodeUnreachableException(String nodeId) {
+        super("Node " + nodeId + " is not reachable");
+        this.nodeId = nodeId;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.itmo.calls.handler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.exception.InvalidMessageException;
+
+/**
+ * Holds frames that arrive while a session's token is still being validated,
+ * so they can be processed in arrival order once the outcome is known.
+ */
+final class PendingAuthentication {
+    static final String ATTRIBUTE = "pendingAuthentication";
+
+    private final ArrayDeque<WebSocketMessage<?>> frames = new ArrayDeque<>();
+    private final int maxFrames;
+    private boolean released;
+
+    PendingAuthentication(int maxFrames) {
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * @return {@code false} if authentication has already completed and the frame
+     * should be processed directly
+     */
+    synchronized boolean hold(WebSocketMessage<?> frame) {
+        if (released) {
+            return false;
+        }
+        if (frames.size() >= maxFrames) {
+            throw new InvalidMessageException("Too many messages before authentication completed");
+        }
+        frames.add(frame instanceof BinaryMessage binary ? copyOf(binary) : frame);
+        return true;
+    }
+
+    /**
+     * Returns the next held frame, or marks the buffer released once it is empty.
+     */
+    synchronized WebSocketMessage<?> nextOrRelease() {
+        WebSocketMessage<?> frame = frames.poll();
+        if (frame == null) {
+            released = true;
+        }
+        return frame;
+    }
+
+    synchronized void discard() {
+        frames.clear();
+        released = true;
+    }
+
+    /**
+     * The container may reuse a binary message's buffer once the handler returns.
+     */
+    private static BinaryMessage copyOf(BinaryMessage message) {
+        ByteBuffer payload = message.getPayload();
+        ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+        copy.put(payload.duplicate()).flip();
+        return new BinaryMessage(copy);
+    }
+}
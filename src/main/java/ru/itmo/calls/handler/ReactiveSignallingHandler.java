@@ -0,0 +1,76 @@
+package ru.itmo.calls.handler;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import reactor.core.publisher.Mono;
+import ru.itmo.calls.security.AuthHandshakeInterceptor;
+import ru.itmo.calls.transport.ReactorConnection;
+
+/**
+ * WebFlux (Reactor Netty) adapter for {@link SignallingWebSocketHandler}. Inbound frames
+ * are handled on the Netty event loop up to the inbound mailbox, as the servlet adapter
+ * does on container threads.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSignallingHandler implements WebSocketHandler {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveSignallingHandler.class);
+
+    private final SignallingWebSocketHandler signallingHandler;
+    private final AuthHandshakeInterceptor authHandshakeInterceptor;
+
+    public ReactiveSignallingHandler(
+            SignallingWebSocketHandler signallingHandler,
+            AuthHandshakeInterceptor authHandshakeInterceptor
+    ) {
+        this.signallingHandler = signallingHandler;
+        this.authHandshakeInterceptor = authHandshakeInterceptor;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return signallingHandler.getSubProtocols();
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        ReactorConnection connection = new ReactorConnection(session);
+        authHandshakeInterceptor.authenticate(connection.getHandshakeHeaders(), connection.getAttributes());
+        signallingHandler.afterConnectionEstablished(connection);
+
+        return session.receive()
+                .doOnNext(frame -> {
+                    WebSocketMessage<?> message = ReactorConnection.toMessage(frame);
+                    if (message != null) {
+                        signallingHandler.handleMessage(connection, message);
+                    }
+                })
+                .then()
+                .onErrorResume(error -> {
+                    transportError(connection, error);
+                    return Mono.empty();
+                })
+                .then(session.closeStatus())
+                .defaultIfEmpty(org.springframework.web.reactive.socket.CloseStatus.NO_STATUS_CODE)
+                .doOnNext(status -> signallingHandler.afterConnectionClosed(
+                        connection, new CloseStatus(status.getCode(), status.getReason())
+                ))
+                .then();
+    }
+
+    private void transportError(ReactorConnection connection, Throwable error) {
+        try {
+            signallingHandler.handleTransportError(connection, error);
+        } catch (Exception e) {
+            log.debug("Failed to close session {} after transport error", connection.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.itmo.calls.handler;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import ru.itmo.calls.transport.ServletConnection;
+
+/**
+ * Servlet container (Tomcat) adapter for {@link SignallingWebSocketHandler}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ServletSignallingHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
+    private final SignallingWebSocketHandler signallingHandler;
+
+    public ServletSignallingHandler(SignallingWebSocketHandler signallingHandler) {
+        this.signallingHandler = signallingHandler;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return signallingHandler.getSubProtocols();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        signallingHandler.afterConnectionEstablished(ServletConnection.of(session));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        signallingHandler.handleMessage(ServletConnection.of(session), message);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        signallingHandler.handleMessage(ServletConnection.of(session), message);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        signallingHandler.afterConnectionClosed(ServletConnection.of(session), status);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        signallingHandler.handleTransportError(ServletConnection.of(session), exception);
+    }
+}
@@ -1,70 +1,172 @@
 package ru.itmo.calls.handler;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.util.UriComponentsBuilder;
 import ru.itmo.calls.exception.InvalidMessageException;
 import ru.itmo.calls.exception.UserOfflineException;
+import ru.itmo.calls.model.AuthRequest;
+import ru.itmo.calls.model.ClientFeature;
+import ru.itmo.calls.model.JournalEvent;
+import ru.itmo.calls.model.RateLimitVerdict;
+import ru.itmo.calls.model.SignalFrame;
 import ru.itmo.calls.model.SignalMessage;
 import ru.itmo.calls.model.SignalType;
 import ru.itmo.calls.model.UserIdentity;
+import ru.itmo.calls.model.WireFormat;
 import ru.itmo.calls.security.AuthHandshakeInterceptor;
+import ru.itmo.calls.service.DrainService;
+import ru.itmo.calls.service.EventJournal;
+import ru.itmo.calls.service.FrameCompression;
+import ru.itmo.calls.service.InboundDispatcher;
 import ru.itmo.calls.service.OnlineUsersService;
+import ru.itmo.calls.service.OutboundQueue;
+import ru.itmo.calls.service.OutboundQueueService;
+import ru.itmo.calls.service.RateLimiter;
+import ru.itmo.calls.service.ResumeService;
+import ru.itmo.calls.service.RoomService;
+import ru.itmo.calls.service.SignallingMetrics;
+import ru.itmo.calls.service.WireCodec;
 import ru.itmo.calls.service.SignallingService;
 import ru.itmo.calls.service.HeartbeatService;
 import ru.itmo.calls.security.AuthProvider;
+import ru.itmo.calls.transport.Connection;
 
+/**
+ * Signalling protocol over any {@link Connection}. The servlet and Reactor Netty adapters
+ * translate their stack's callbacks into these calls.
+ */
 @Component
-public class SignallingWebSocketHandler extends TextWebSocketHandler {
+public class SignallingWebSocketHandler {
     
     private static final Logger log = LoggerFactory.getLogger(SignallingWebSocketHandler.class);
     
     private final OnlineUsersService onlineUsersService;
     private final SignallingService signallingService;
-    private final ObjectMapper objectMapper;
     private final HeartbeatService heartbeatService;
     private final AuthProvider authProvider;
+    private final OutboundQueueService outboundQueueService;
+    private final WireCodec wireCodec;
+    private final FrameCompression frameCompression;
+    private final ResumeService resumeService;
+    private final SignallingMetrics metrics;
+    private final InboundDispatcher inboundDispatcher;
+    private final RateLimiter rateLimiter;
+    private final EventJournal journal;
+
+    @Value("${signalling.auth.max-pending-frames:32}")
+    private int maxPendingFrames;
     
     public SignallingWebSocketHandler(
         OnlineUsersService onlineUsersService,
         SignallingService signallingService,
-        ObjectMapper objectMapper,
         HeartbeatService heartbeatService,
-        AuthProvider authProvider
+        AuthProvider authProvider,
+        OutboundQueueService outboundQueueService,
+        WireCodec wireCodec,
+        FrameCompression frameCompression,
+        ResumeService resumeService,
+        SignallingMetrics metrics,
+        InboundDispatcher inboundDispatcher,
+        RateLimiter rateLimiter,
+        EventJournal journal
     ) {
         this.onlineUsersService = onlineUsersService;
         this.signallingService = signallingService;
-        this.objectMapper = objectMapper;
         this.heartbeatService = heartbeatService;
         this.authProvider = authProvider;
+        this.outboundQueueService = outboundQueueService;
+        this.wireCodec = wireCodec;
+        this.frameCompression = frameCompression;
+        this.resumeService = resumeService;
+        this.metrics = metrics;
+        this.inboundDispatcher = inboundDispatcher;
+        this.rateLimiter = rateLimiter;
+        this.journal = journal;
+        inboundDispatcher.onFrame(this::routeInbound);
+        resumeService.onExpired(this::handleResumeExpired);
+    }
+
+    /**
+     * Clients that offer no subprotocol still get JSON.
+     */
+    public List<String> getSubProtocols() {
+        if (frameCompression.isEnabled()) {
+            return List.of(FrameCompression.SUB_PROTOCOL, WireFormat.BINARY.subProtocol(), WireFormat.JSON.subProtocol());
+        }
+        return List.of(WireFormat.BINARY.subProtocol(), WireFormat.JSON.subProtocol());
     }
     
-    @Override
-    public void afterConnectionEstablished(WebSocketSession session) {
-        if (AuthHandshakeInterceptor.isAuthenticated(session.getAttributes())) {
-            UserIdentity userIdentity = AuthHandshakeInterceptor.getUserIdentity(session.getAttributes());
-            Integer userId = userIdentity.userId();
-            
-            onlineUsersService.registerUser(userId, session);
-            heartbeatService.recordActivity(userId);
-            
-            log.info("User {} connected via header auth. Session: {}", userId, session.getId());
+    public void afterConnectionEstablished(Connection session) {
+        metrics.connectionOpened();
+        journal.record(JournalEvent.CONNECTED, session, null, null, null, 0);
+        WireFormat.set(session.getAttributes(), WireFormat.fromSubProtocol(session.getAcceptedProtocol()));
+        ClientFeature.set(session.getAttributes(), advertisedFeatures(session));
+        OutboundQueue outboundQueue = outboundQueueService.getQueue(session);
+        if (frameCompression.isNegotiated(session.getAcceptedProtocol())) {
+            frameCompression.attach(outboundQueue);
+        }
+        CompletableFuture<UserIdentity> headerAuth =
+                AuthHandshakeInterceptor.takeHeaderAuthentication(session.getAttributes());
+
+        if (headerAuth != null) {
+            log.info("WebSocket connected, validating header token. Session: {}", session.getId());
+            awaitAuthentication(session, headerAuth, false);
         } else {
             log.info("WebSocket connected, waiting for AUTH message. Session: {}", session.getId());
         }
     }
     
-    @Override
-    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        String payload = message.getPayload();
-        
+    public void handleMessage(Connection session, WebSocketMessage<?> message) {
+        PendingAuthentication pending = (PendingAuthentication) session.getAttributes().get(PendingAuthentication.ATTRIBUTE);
+
         try {
-            SignalMessage signalMessage = objectMapper.readValue(payload, SignalMessage.class);
+            if (pending != null && pending.hold(message)) {
+                log.debug("Holding message until authentication completes. Session: {}", session.getId());
+                return;
+            }
+        } catch (InvalidMessageException e) {
+            log.warn("Dropping message from session {}: {}", session.getId(), e.getMessage());
+            sendErrorToSession(session, e.getMessage());
+            return;
+        }
+
+        processMessage(session, message);
+    }
+
+    private void processMessage(Connection session, WebSocketMessage<?> message) {
+        try {
+            // Flooded types are dropped before parsing; frames whose type cannot be peeked are checked once decoded
+            SignalType peekedType = wireCodec.peekType(message);
+            if (peekedType != null && !admit(session, rateLimiter.admit(session, peekedType), peekedType)) {
+                return;
+            }
+
+            SignalFrame signalMessage = wireCodec.decode(message);
+            metrics.inboundFrame(signalMessage.type());
+            if (signalMessage.type() != peekedType) {
+                // The decoded type is what gets routed, so it is charged even when the peek saw another one
+                if (signalMessage.type() != null
+                        && !admit(session, rateLimiter.admit(session, signalMessage.type()), signalMessage.type())) {
+                    return;
+                }
+                if (peekedType != null) {
+                    throw new InvalidMessageException("Frame type does not match its envelope");
+                }
+            }
             if (signalMessage.type() == SignalType.AUTH) {
                 handleAuthMessage(session, signalMessage);
                 return;
@@ -78,16 +180,66 @@ public class SignallingWebSocketHandler extends TextWebSocketHandler {
             }
             
             Integer userId = userIdentity.userId();
-            log.debug("Received message from user {}: {}", userId, payload);
+            log.debug("Received {} from user {}", signalMessage.type(), userId);
+            journal.recordFrame(JournalEvent.INBOUND, session, signalMessage, userId);
             
-            heartbeatService.recordActivity(userId);
+            heartbeatService.recordActivity(session);
 
             if (signalMessage.type() == SignalType.PONG) {
-                heartbeatService.handlePong(userId);
+                heartbeatService.handlePong(session);
                 return;
             }
 
-            signallingService.routeMessage(signalMessage, userId);
+            // A room frame's 'to' is a room id, not a user, so it does not count towards the distinct targets
+            if (signalMessage.to() != null && signalMessage.type() != null && !RoomService.handles(signalMessage.type())
+                    && !admit(session, rateLimiter.admitTarget(session, signalMessage.to()), signalMessage.type())) {
+                return;
+            }
+
+            if (!inboundDispatcher.dispatch(session, signalMessage)) {
+                log.warn("Inbound mailbox full for user {}, dropping {}", userId, signalMessage.type());
+                metrics.inboundDropped();
+                sendErrorToSession(session, "Too many messages in flight");
+            }
+        } catch (InvalidMessageException e) {
+            log.warn("Invalid message: {}", e.getMessage());
+            sendErrorToSession(session, "Invalid message: " + e.getMessage());
+            
+        } catch (Exception e) {
+            log.error("Error handling message", e);
+            sendErrorToSession(session, "Internal server error");
+        }
+    }
+
+    private boolean admit(Connection session, RateLimitVerdict verdict, SignalType type) {
+        switch (verdict) {
+            case ALLOWED -> {
+                return true;
+            }
+            case REJECTED -> {
+                journal.record(JournalEvent.RATE_LIMITED, session, type, null, null, 0);
+                log.debug("Rate limit exceeded for {}. Session: {}", type, session.getId());
+                sendErrorToSession(session, "Rate limit exceeded for " + type);
+            }
+            case DISCONNECT -> {
+                journal.record(JournalEvent.RATE_LIMITED, session, type, null, null, CloseStatus.POLICY_VIOLATION.getCode());
+                log.warn("Closing flooding session {}", session.getId());
+                sendErrorAndClose(session, "Rate limit exceeded", CloseStatus.POLICY_VIOLATION);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs on the sender's inbound mailbox, so routing and the sends it triggers never
+     * block a container I/O thread.
+     */
+    private void routeInbound(Connection session, SignalFrame frame) {
+        UserIdentity userIdentity = AuthHandshakeInterceptor.getUserIdentity(session.getAttributes());
+        boolean routed = false;
+        try {
+            signallingService.routeMessage(frame, userIdentity.userId());
+            routed = true;
         } catch (InvalidMessageException e) {
             log.warn("Invalid message: {}", e.getMessage());
             sendErrorToSession(session, "Invalid message: " + e.getMessage());
@@ -99,88 +251,236 @@ public class SignallingWebSocketHandler extends TextWebSocketHandler {
         } catch (Exception e) {
             log.error("Error handling message", e);
             sendErrorToSession(session, "Internal server error");
+        } finally {
+            journal.record(
+                routed ? JournalEvent.ROUTED : JournalEvent.ROUTE_FAILED,
+                session, frame.type(), userIdentity.userId(), frame.to(), frame.payloadLength()
+            );
         }
     }
     
-    private void handleAuthMessage(WebSocketSession session, SignalMessage authMessage) {
+    private void handleAuthMessage(Connection session, SignalFrame authMessage) {
         try {
-            if (authMessage.payload() == null || !authMessage.payload().has("token")) {
-                sendAuthFailed(session, "Token is required");
+            AuthRequest request = wireCodec.readAuthRequest(authMessage);
+            if (request.resumeToken() != null && resumeService.isEnabled()) {
+                resumeSession(session, request);
                 return;
             }
-            
-            String token = authMessage.payload().get("token").asText();
-            UserIdentity userIdentity = authProvider.validateToken(token);
-            
-            if (userIdentity == null || userIdentity.userId() == null) {
-                sendAuthFailed(session, "Invalid token");
+            if (request.token() == null) {
+                sendAuthFailed(session, "Token is required");
                 return;
             }
-
-            AuthHandshakeInterceptor.setUserIdentity(session.getAttributes(), userIdentity);
-            onlineUsersService.registerUser(userIdentity.userId(), session);
-            heartbeatService.recordActivity(userIdentity.userId());
             
-            sendAuthSuccess(session);
-            log.info("User {} authenticated via message. Session: {}", userIdentity.userId(), session.getId());
+            awaitAuthentication(session, authProvider.validateTokenAsync(request.token()), true);
             
         } catch (Exception e) {
             log.error("Error during message-based authentication", e);
             sendAuthFailed(session, "Authentication error");
         }
     }
+
+    /**
+     * Re-attaches a dropped session without validating the token again. The replayed
+     * frames follow the AUTH_SUCCESS that carries the rotated resume token.
+     */
+    private void resumeSession(Connection session, AuthRequest request) {
+        UserIdentity userIdentity = resumeService.resume(
+            request.resumeToken(),
+            request.lastSeq(),
+            session,
+            outboundQueueService.getQueue(session),
+            token -> authSuccessMessage(session, token, true)
+        );
+        if (userIdentity == null) {
+            sendAuthFailed(session, "Session cannot be resumed");
+            return;
+        }
+
+        AuthHandshakeInterceptor.setUserIdentity(session.getAttributes(), userIdentity);
+        onlineUsersService.registerUser(userIdentity.userId(), session);
+        heartbeatService.startTracking(userIdentity.userId(), session);
+        journal.record(JournalEvent.RESUMED, session, null, userIdentity.userId(), null, 0);
+        log.info("User {} resumed session. Session: {}", userIdentity.userId(), session.getId());
+    }
+
+    private void handleResumeExpired(int userId) {
+        onlineUsersService.releasePresence(userId);
+        signallingService.handleDisconnect(userId);
+    }
+
+    private void awaitAuthentication(
+        Connection session,
+        CompletableFuture<UserIdentity> authentication,
+        boolean viaMessage
+    ) {
+        PendingAuthentication pending = new PendingAuthentication(maxPendingFrames);
+        session.getAttributes().put(PendingAuthentication.ATTRIBUTE, pending);
+
+        authentication.whenComplete((userIdentity, error) ->
+            completeAuthentication(session, pending, userIdentity, viaMessage)
+        );
+    }
+
+    private void completeAuthentication(
+        Connection session,
+        PendingAuthentication pending,
+        UserIdentity userIdentity,
+        boolean viaMessage
+    ) {
+        try {
+            if (userIdentity != null && userIdentity.userId() != null && session.isOpen()) {
+                AuthHandshakeInterceptor.setUserIdentity(session.getAttributes(), userIdentity);
+                if (resumeService.isEnabled()) {
+                    String resumeToken = resumeService.open(userIdentity, session, outboundQueueService.getQueue(session));
+                    sendAuthSuccess(session, resumeToken);
+                } else if (viaMessage) {
+                    sendAuthSuccess(session, null);
+                }
+                onlineUsersService.registerUser(userIdentity.userId(), session);
+                heartbeatService.startTracking(userIdentity.userId(), session);
+                journal.record(JournalEvent.AUTH_SUCCESS, session, null, userIdentity.userId(), null, 0);
+                log.info(
+                    "User {} authenticated via {}. Session: {}",
+                    userIdentity.userId(), viaMessage ? "message" : "header", session.getId()
+                );
+            } else if (viaMessage) {
+                sendAuthFailed(session, "Invalid token");
+            } else {
+                log.debug("Header token rejected, waiting for AUTH message. Session: {}", session.getId());
+            }
+        } catch (Exception e) {
+            log.error("Error completing authentication", e);
+            if (viaMessage) {
+                sendAuthFailed(session, "Authentication error");
+            }
+        } finally {
+            releasePending(session, pending);
+        }
+    }
+
+    private void releasePending(Connection session, PendingAuthentication pending) {
+        if (!session.isOpen()) {
+            pending.discard();
+        } else {
+            WebSocketMessage<?> frame;
+            while ((frame = pending.nextOrRelease()) != null) {
+                processMessage(session, frame);
+            }
+        }
+        session.getAttributes().remove(PendingAuthentication.ATTRIBUTE, pending);
+    }
     
-    private void sendAuthSuccess(WebSocketSession session) {
+    private void sendAuthSuccess(Connection session, String resumeToken) {
         try {
-            SignalMessage response = new SignalMessage(SignalType.AUTH_SUCCESS, null, null, null);
-            String jsonMessage = objectMapper.writeValueAsString(response);
-            session.sendMessage(new TextMessage(jsonMessage));
+            outboundQueueService.send(session, SignalType.AUTH_SUCCESS, authSuccessMessage(session, resumeToken, false));
         } catch (Exception e) {
             log.error("Failed to send AUTH_SUCCESS", e);
         }
     }
+
+    private WebSocketMessage<?> authSuccessMessage(Connection session, String resumeToken, boolean resumed) {
+        if (resumeToken == null) {
+            return wireCodec.encodeControl(formatOf(session), SignalType.AUTH_SUCCESS, null, null);
+        }
+        ObjectNode payload = JsonNodeFactory.instance.objectNode();
+        payload.put("resumeToken", resumeToken);
+        payload.put("resumed", resumed);
+        try {
+            return wireCodec.encode(formatOf(session), new SignalMessage(SignalType.AUTH_SUCCESS, null, null, payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
     
-    private void sendAuthFailed(WebSocketSession session, String reason) {
+    private void sendAuthFailed(Connection session, String reason) {
+        journal.record(JournalEvent.AUTH_FAILED, session, null, null, null, 0);
         try {
             SignalMessage response = SignalMessage.error(reason, null);
             response = new SignalMessage(SignalType.AUTH_FAILED, null, null, response.payload());
-            String jsonMessage = objectMapper.writeValueAsString(response);
-            session.sendMessage(new TextMessage(jsonMessage));
-
-            session.close(CloseStatus.POLICY_VIOLATION.withReason(reason));
+            outboundQueueService.sendAndClose(
+                session,
+                SignalType.AUTH_FAILED,
+                wireCodec.encode(formatOf(session), response),
+                CloseStatus.POLICY_VIOLATION.withReason(reason)
+            );
         } catch (Exception e) {
             log.error("Failed to send AUTH_FAILED", e);
         }
     }
     
-    private void sendErrorToSession(WebSocketSession session, String errorMessage) {
+    private void sendErrorAndClose(Connection session, String errorMessage, CloseStatus status) {
         try {
             SignalMessage errorMsg = SignalMessage.error(errorMessage, null);
-            String jsonMessage = objectMapper.writeValueAsString(errorMsg);
-            session.sendMessage(new TextMessage(jsonMessage));
+            outboundQueueService.sendAndClose(
+                session,
+                SignalType.ERROR,
+                wireCodec.encode(formatOf(session), errorMsg),
+                status.withReason(errorMessage)
+            );
         } catch (Exception e) {
             log.error("Failed to send error message", e);
         }
     }
+
+    private void sendErrorToSession(Connection session, String errorMessage) {
+        try {
+            SignalMessage errorMsg = SignalMessage.error(errorMessage, null);
+            outboundQueueService.send(session, SignalType.ERROR, wireCodec.encode(formatOf(session), errorMsg));
+        } catch (Exception e) {
+            log.error("Failed to send error message", e);
+        }
+    }
+
+    private static Set<ClientFeature> advertisedFeatures(Connection session) {
+        List<String> values = new ArrayList<>(session.getHandshakeHeaders().getOrEmpty(ClientFeature.HEADER));
+        if (session.getUri() != null) {
+            List<String> query = UriComponentsBuilder.fromUri(session.getUri()).build()
+                    .getQueryParams().get(ClientFeature.QUERY_PARAMETER);
+            if (query != null) {
+                values.addAll(query);
+            }
+        }
+        return ClientFeature.parse(values);
+    }
+
+    private static WireFormat formatOf(Connection session) {
+        return WireFormat.of(session.getAttributes());
+    }
     
-    @Override
-    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+    public void afterConnectionClosed(Connection session, CloseStatus status) {
+        metrics.connectionClosed();
+        outboundQueueService.release(session);
         UserIdentity userIdentity = AuthHandshakeInterceptor.getUserIdentity(session.getAttributes());
+        journal.record(
+            JournalEvent.DISCONNECTED, session, null,
+            userIdentity != null ? userIdentity.userId() : null, null, status.getCode()
+        );
         
         if (userIdentity != null && userIdentity.userId() != null) {
             Integer userId = userIdentity.userId();
 
-            onlineUsersService.unregisterUser(userId);
-            heartbeatService.removeUser(userId);
+            heartbeatService.stopTracking(session);
+            if (!DrainService.isClosedByDrain(session) && resumeService.detach(userId, session)) {
+                onlineUsersService.detachUser(userId, session);
+                inboundDispatcher.release(session, null);
+                log.info("User {} disconnected, session can be resumed. Reason: {}", userId, status);
+                return;
+            }
+            if (onlineUsersService.unregisterUser(userId, session)) {
+                // Ends the user's call only after the frames they sent before closing are routed
+                inboundDispatcher.release(session, () -> signallingService.handleDisconnect(userId));
+            } else {
+                inboundDispatcher.release(session, null);
+            }
             
             log.info("User {} disconnected. Reason: {}", userId, status);
         } else {
+            inboundDispatcher.release(session, null);
             log.debug("Unauthenticated session disconnected. Reason: {}", status);
         }
     }
     
-    @Override
-    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+    public void handleTransportError(Connection session, Throwable exception) throws IOException {
         UserIdentity userIdentity = AuthHandshakeInterceptor.getUserIdentity(session.getAttributes());
         Integer userId = userIdentity != null ? userIdentity.userId() : null;
         
@@ -0,0 +1,21 @@
+package ru.itmo.calls.model;
+
+public enum AdmissionVerdict {
+    ADMITTED,
+    /**
+     * The node is draining and sends clients elsewhere.
+     */
+    DRAINING,
+    /**
+     * The node holds {@code max-connections} sockets already.
+     */
+    AT_CAPACITY,
+    /**
+     * Handshakes arrive faster than the handshake token bucket refills.
+     */
+    RATE_LIMITED,
+    /**
+     * Shed by the adaptive limiter because heap, inbound backlog or auth latency is high.
+     */
+    OVERLOADED
+}
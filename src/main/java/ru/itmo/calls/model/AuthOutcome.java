@@ -0,0 +1,13 @@
+package ru.itmo.calls.model;
+
+public enum AuthOutcome {
+    SUCCESS,
+    /**
+     * The token was checked and is not valid.
+     */
+    REJECTED,
+    /**
+     * The token could not be checked, e.g. the auth backend failed or timed out.
+     */
+    ERROR
+}
@@ -0,0 +1,8 @@
+package ru.itmo.calls.model;
+
+/**
+ * Contents of an AUTH frame: either a {@code token} for full authentication, or a
+ * {@code resumeToken} with the number of replayable frames the client already received.
+ */
+public record AuthRequest(String token, String resumeToken, long lastSeq) {
+}
@@ -0,0 +1,7 @@
+package ru.itmo.calls.model;
+
+public enum CallState {
+    RINGING,
+    ACTIVE,
+    ENDED
+}
@@ -0,0 +1,51 @@
+package ru.itmo.calls.model;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional behaviours a client advertises at handshake, through the {@code features}
+ * query parameter or the {@code X-Signalling-Features} header, as a comma-separated list.
+ */
+public enum ClientFeature {
+    CANDIDATE_BATCHING("candidate-batching");
+
+    public static final String HEADER = "X-Signalling-Features";
+    public static final String QUERY_PARAMETER = "features";
+    private static final String ATTRIBUTE = "clientFeatures";
+
+    private final String token;
+
+    ClientFeature(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public static Set<ClientFeature> parse(Iterable<String> values) {
+        Set<ClientFeature> features = EnumSet.noneOf(ClientFeature.class);
+        for (String value : values) {
+            for (String token : value.split(",")) {
+                for (ClientFeature feature : values()) {
+                    if (feature.token.equalsIgnoreCase(token.trim())) {
+                        features.add(feature);
+                    }
+                }
+            }
+        }
+        return features;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static boolean isEnabled(Map<String, Object> attributes, ClientFeature feature) {
+        Set<ClientFeature> features = (Set<ClientFeature>) attributes.get(ATTRIBUTE);
+        return features != null && features.contains(feature);
+    }
+
+    public static void set(Map<String, Object> attributes, Set<ClientFeature> features) {
+        attributes.put(ATTRIBUTE, features);
+    }
+}
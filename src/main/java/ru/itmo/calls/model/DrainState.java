@@ -0,0 +1,13 @@
+package ru.itmo.calls.model;
+
+public enum DrainState {
+    RUNNING,
+    /**
+     * New handshakes are refused; idle users are being told to reconnect elsewhere.
+     */
+    DRAINING,
+    /**
+     * Every authenticated session has been closed.
+     */
+    DRAINED
+}
@@ -0,0 +1,7 @@
+package ru.itmo.calls.model;
+
+/**
+ * Frame relayed to the node that holds {@code recipient}'s session.
+ */
+public record ForwardedFrame(int recipient, SignalFrame frame) implements NodeMessage {
+}
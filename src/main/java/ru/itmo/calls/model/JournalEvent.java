@@ -0,0 +1,48 @@
+package ru.itmo.calls.model;
+
+public enum JournalEvent {
+    CONNECTED(1),
+    AUTH_SUCCESS(2),
+    AUTH_FAILED(3),
+    RESUMED(4),
+    /**
+     * The value is the close code.
+     */
+    DISCONNECTED(5),
+
+    INBOUND(10),
+    ROUTED(11),
+    ROUTE_FAILED(12),
+    RATE_LIMITED(13),
+
+    QUEUED(20),
+    QUEUE_FULL(21),
+    FORWARDED(22),
+    BUFFERED(23),
+    UNDELIVERABLE(24);
+
+    private static final JournalEvent[] BY_CODE = new JournalEvent[64];
+
+    static {
+        for (JournalEvent event : values()) {
+            BY_CODE[event.code] = event;
+        }
+    }
+
+    /**
+     * Stable code stored in journal records. Never reuse a retired code.
+     */
+    private final int code;
+
+    JournalEvent(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public static JournalEvent fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
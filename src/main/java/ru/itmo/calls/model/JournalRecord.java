@@ -0,0 +1,48 @@
+package ru.itmo.calls.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * One decoded event journal record. User ids are {@code null} when the event has none.
+ */
+public record JournalRecord(
+        long epochMillis,
+        long connectionId,
+        JournalEvent event,
+        SignalType type,
+        Integer from,
+        Integer to,
+        int value,
+        byte[] sample,
+        boolean binarySample
+) {
+    public String describe() {
+        StringBuilder line = new StringBuilder(128)
+                .append(Instant.ofEpochMilli(epochMillis))
+                .append(" conn=").append(connectionId)
+                .append(' ').append(event);
+        if (type != null) {
+            line.append(' ').append(type);
+        }
+        if (from != null) {
+            line.append(" from=").append(from);
+        }
+        if (to != null) {
+            line.append(" to=").append(to);
+        }
+        if (value != 0) {
+            line.append(event == JournalEvent.DISCONNECTED ? " code=" : " size=").append(value);
+        }
+        if (sample.length > 0) {
+            line.append(" sample=");
+            if (binarySample) {
+                line.append(HexFormat.of().formatHex(sample));
+            } else {
+                line.append('"').append(new String(sample, StandardCharsets.US_ASCII)).append('"');
+            }
+        }
+        return line.toString();
+    }
+}
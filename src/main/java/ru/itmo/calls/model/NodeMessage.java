@@ -0,0 +1,7 @@
+package ru.itmo.calls.model;
+
+/**
+ * Anything one node sends another over the cluster transport.
+ */
+public sealed interface NodeMessage permits ForwardedFrame, PresenceChange {
+}
@@ -0,0 +1,18 @@
+package ru.itmo.calls.model;
+
+public enum OverflowPolicy {
+    /**
+     * Discard the frame that does not fit. A call control frame still evicts the oldest
+     * non-control frame first.
+     */
+    DROP,
+    /**
+     * Make room by discarding the oldest queued non-control frame, so bursts of
+     * candidates collapse onto the most recent ones. Control frames are never evicted.
+     */
+    COALESCE,
+    /**
+     * Close the slow consumer's session.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,7 @@
+package ru.itmo.calls.model;
+
+/**
+ * A user connecting to or disconnecting from the node that announces it.
+ */
+public record PresenceChange(int userId, boolean online) implements NodeMessage {
+}
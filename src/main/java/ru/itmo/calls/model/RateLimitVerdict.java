@@ -0,0 +1,13 @@
+package ru.itmo.calls.model;
+
+public enum RateLimitVerdict {
+    ALLOWED,
+    /**
+     * Drop the frame and tell the sender.
+     */
+    REJECTED,
+    /**
+     * The sender kept flooding; close the connection.
+     */
+    DISCONNECT
+}
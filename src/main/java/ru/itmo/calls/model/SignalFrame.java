@@ -0,0 +1,41 @@
+package ru.itmo.calls.model;
+
+/**
+ * Relayed signalling frame. The payload is never materialised: it is kept as the
+ * {@code [payloadStart, payloadEnd)} range of the original inbound frame, which is
+ * {@code text} for JSON frames and {@code bytes} for binary ones.
+ */
+public record SignalFrame(
+        SignalType type,
+        Integer from,
+        Integer to,
+        WireFormat format,
+        String text,
+        byte[] bytes,
+        int payloadStart,
+        int payloadEnd
+) {
+    public static SignalFrame json(SignalType type, Integer to, String text, int payloadStart, int payloadEnd) {
+        return new SignalFrame(type, null, to, WireFormat.JSON, text, null, payloadStart, payloadEnd);
+    }
+
+    public static SignalFrame binary(SignalType type, Integer to, byte[] bytes, int payloadStart, int payloadEnd) {
+        return new SignalFrame(type, null, to, WireFormat.BINARY, null, bytes, payloadStart, payloadEnd);
+    }
+
+    public static SignalFrame control(SignalType type, Integer from, Integer to) {
+        return new SignalFrame(type, from, to, WireFormat.JSON, null, null, -1, -1);
+    }
+
+    public boolean hasPayload() {
+        return payloadStart >= 0 && payloadEnd > payloadStart;
+    }
+
+    public int payloadLength() {
+        return hasPayload() ? payloadEnd - payloadStart : 0;
+    }
+
+    public SignalFrame withFrom(Integer from) {
+        return new SignalFrame(type, from, to, format, text, bytes, payloadStart, payloadEnd);
+    }
+}
@@ -1,22 +1,65 @@
 package ru.itmo.calls.model;
 
 public enum SignalType {
-    AUTH,
-    AUTH_SUCCESS,
-    AUTH_FAILED,
+    AUTH(1),
+    AUTH_SUCCESS(2),
+    AUTH_FAILED(3),
     
-    CALL_INIT,
-    INCOMING_CALL,
-    CALL_ACCEPT,
-    CALL_REJECT,
-    CALL_END,
-
-    WEBRTC_OFFER,
-    WEBRTC_ANSWER,
-    WEBRTC_CANDIDATE,
-
-    PING,
-    PONG,
-    ERROR
-}
+    CALL_INIT(10),
+    INCOMING_CALL(11),
+    CALL_ACCEPT(12),
+    CALL_REJECT(13),
+    CALL_END(14),
+
+    WEBRTC_OFFER(20),
+    WEBRTC_ANSWER(21),
+    WEBRTC_CANDIDATE(22),
+    WEBRTC_CANDIDATES(23),
+
+    PING(30),
+    PONG(31),
+    // Server asks the client to reconnect after {"delay":ms}, normally to another node
+    RECONNECT(32),
+    ERROR(40),
+
+    // Room frames carry the room id in "to"; ROOM_INVITE has payload {"users":[...]}
+    ROOM_CREATE(50),
+    ROOM_CREATED(51),
+    ROOM_JOIN(52),
+    ROOM_LEAVE(53),
+    ROOM_MEMBER_JOINED(54),
+    ROOM_MEMBER_LEFT(55),
+    ROOM_BROADCAST(56),
+    ROOM_INVITE(57),
+    ROOM_INVITED(58),
+
+    // Payload {"users":[...]}; deltas carry {"online":[...],"offline":[...]}
+    PRESENCE_SUBSCRIBE(60),
+    PRESENCE_UNSUBSCRIBE(61),
+    PRESENCE_DELTA(62);
+
+    private static final SignalType[] BY_CODE = new SignalType[64];
 
+    static {
+        for (SignalType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    /**
+     * Stable numeric code used by the binary subprotocol. Never reuse a retired code.
+     */
+    private final int code;
+
+    SignalType(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public static SignalType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
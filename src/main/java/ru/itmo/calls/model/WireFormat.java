@@ -0,0 +1,38 @@
+package ru.itmo.calls.model;
+
+import java.util.Map;
+
+/**
+ * Encoding negotiated per connection through {@code Sec-WebSocket-Protocol}.
+ * Clients that request no subprotocol get JSON. Variants of a subprotocol, such as
+ * its deflate flavour, share the base name as a prefix.
+ */
+public enum WireFormat {
+    JSON("signalling.json.v1"),
+    BINARY("signalling.bin.v1");
+
+    private static final String ATTRIBUTE = "wireFormat";
+
+    private final String subProtocol;
+
+    WireFormat(String subProtocol) {
+        this.subProtocol = subProtocol;
+    }
+
+    public String subProtocol() {
+        return subProtocol;
+    }
+
+    public static WireFormat fromSubProtocol(String subProtocol) {
+        return subProtocol != null && subProtocol.startsWith(BINARY.subProtocol) ? BINARY : JSON;
+    }
+
+    public static WireFormat of(Map<String, Object> attributes) {
+        WireFormat format = (WireFormat) attributes.get(ATTRIBUTE);
+        return format != null ? format : JSON;
+    }
+
+    public static void set(Map<String, Object> attributes, WireFormat format) {
+        attributes.put(ATTRIBUTE, format);
+    }
+}
@@ -1,5 +1,7 @@
 package ru.itmo.calls.model.payload;
 
 public enum CallRejectReason {
-    DECLINED
+    DECLINED,
+    BUSY,
+    NO_ANSWER
 }
@@ -1,8 +1,19 @@
 package ru.itmo.calls.security;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -13,19 +24,45 @@ import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import ru.itmo.calls.config.TokenCacheConfig;
+import ru.itmo.calls.model.AuthOutcome;
 import ru.itmo.calls.model.UserIdentity;
 import ru.itmo.calls.model.dto.UserMeResponse;
+import ru.itmo.calls.service.AdmissionService;
+import ru.itmo.calls.service.SignallingMetrics;
 
 @Component
-@ConditionalOnProperty(name = "auth.provider.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnExpression("${auth.provider.enabled:true} and '${auth.provider.type:api}' == 'api'")
 public class ApiAuthProvider implements AuthProvider {
     private static final Logger log = LoggerFactory.getLogger(ApiAuthProvider.class);
     private static final String USER_ENDPOINT = "/api/v1/users/me";
+    private static final String CACHE_NAME = "auth.tokens";
 
     private final RestTemplate restTemplate;
+    private final SignallingMetrics metrics;
+    private final AdmissionService admissionService;
+    private final AsyncLoadingCache<String, Optional<UserIdentity>> tokenCache;
 
-    public ApiAuthProvider(RestTemplate restTemplate) {
+    public ApiAuthProvider(
+            RestTemplate restTemplate,
+            TokenCacheConfig cacheConfig,
+            MeterRegistry meterRegistry,
+            SignallingMetrics metrics,
+            AdmissionService admissionService,
+            @Qualifier("authExecutor") ExecutorService authExecutor
+    ) {
         this.restTemplate = restTemplate;
+        this.metrics = metrics;
+        this.admissionService = admissionService;
+        this.tokenCache = Caffeine.newBuilder()
+                .executor(authExecutor)
+                .maximumSize(cacheConfig.getMaximumSize())
+                .expireAfter(new TokenExpiry(cacheConfig.getTtl(), cacheConfig.getNegativeTtl()))
+                .refreshAfterWrite(cacheConfig.getRefreshAfter())
+                .recordStats()
+                .buildAsync(this::fetchIdentity);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, tokenCache.synchronous(), CACHE_NAME);
     }
 
     @Override
@@ -36,18 +73,46 @@ public class ApiAuthProvider implements AuthProvider {
 
     @Override
     public UserIdentity validateToken(String token) {
+        return validateTokenAsync(token).join();
+    }
+
+    @Override
+    public CompletableFuture<UserIdentity> validateTokenAsync(String token) {
         if (token == null || token.isBlank()) {
             log.warn("Invalid or missing token");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
+        return tokenCache.get(token)
+                .thenApply(identity -> identity.orElse(null))
+                .exceptionally(e -> {
+                    log.error("Failed to validate token", e);
+                    return null;
+                });
+    }
+
+    private Optional<UserIdentity> fetchIdentity(String token) {
+        long start = metrics.startTimer();
+        long requested = System.nanoTime();
+        AuthOutcome outcome = AuthOutcome.ERROR;
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + token);
+            Optional<UserIdentity> identity = requestIdentity(token);
+            outcome = identity.isPresent() ? AuthOutcome.SUCCESS : AuthOutcome.REJECTED;
+            return identity;
+        } finally {
+            metrics.authCompleted(start, outcome);
+            admissionService.authCompleted(System.nanoTime() - requested);
+        }
+    }
+
+    private Optional<UserIdentity> requestIdentity(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + token);
 
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+        HttpEntity<String> entity = new HttpEntity<>(headers);
 
+        try {
             ResponseEntity<UserMeResponse> response = restTemplate.exchange(
                     USER_ENDPOINT,
                     HttpMethod.GET,
@@ -60,12 +125,12 @@ public class ApiAuthProvider implements AuthProvider {
                 if (userResponse.user() != null && userResponse.user().id() != null) {
                     Integer userId = userResponse.user().id();
                     log.debug("Successfully validated token for user: {}", userId);
-                    return new UserIdentity(userId);
+                    return Optional.of(new UserIdentity(userId));
                 }
             }
 
             log.warn("Invalid response from auth API");
-            return null;
+            return Optional.empty();
 
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
@@ -73,11 +138,38 @@ public class ApiAuthProvider implements AuthProvider {
             } else {
                 log.warn("Token validation failed with status: {}", e.getStatusCode());
             }
-            return null;
-        } catch (Exception e) {
-            log.error("Failed to validate token", e);
-            return null;
+            return Optional.empty();
         }
     }
-}
 
+    /**
+     * Rejected tokens are kept only briefly so a freshly issued token is not refused for long,
+     * while a single bad client cannot hammer the backend with the same token.
+     */
+    private record TokenExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Optional<UserIdentity>> {
+        @Override
+        public long expireAfterCreate(String token, Optional<UserIdentity> identity, long currentTime) {
+            return identity.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                String token,
+                Optional<UserIdentity> identity,
+                long currentTime,
+                long currentDuration
+        ) {
+            return expireAfterCreate(token, identity, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                String token,
+                Optional<UserIdentity> identity,
+                long currentTime,
+                long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
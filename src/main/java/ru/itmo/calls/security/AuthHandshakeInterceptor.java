@@ -2,24 +2,32 @@ package ru.itmo.calls.security;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import ru.itmo.calls.model.AdmissionVerdict;
 import ru.itmo.calls.model.UserIdentity;
+import ru.itmo.calls.service.AdmissionService;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class AuthHandshakeInterceptor implements HandshakeInterceptor {
     private static final Logger log = LoggerFactory.getLogger(AuthHandshakeInterceptor.class);
     private static final String USER_IDENTITY_ATTRIBUTE = "userIdentity";
+    private static final String HEADER_AUTH_ATTRIBUTE = "headerAuth";
     
     private final AuthProvider authProvider;
+    private final AdmissionService admissionService;
     
-    public AuthHandshakeInterceptor(AuthProvider authProvider) {
+    public AuthHandshakeInterceptor(AuthProvider authProvider, AdmissionService admissionService) {
         this.authProvider = authProvider;
+        this.admissionService = admissionService;
     }
     
     @Override
@@ -29,16 +37,29 @@ public class AuthHandshakeInterceptor implements HandshakeInterceptor {
         WebSocketHandler wsHandler,
         Map<String, Object> attributes
     ) {
-        UserIdentity userIdentity = authProvider.validateAndExtractIdentity(request);
-        
-        if (userIdentity != null && userIdentity.userId() != null) {
-            attributes.put(USER_IDENTITY_ATTRIBUTE, userIdentity);
-            log.info("WebSocket handshake successful for user {} (header auth)", userIdentity.userId());
-            return true;
+        if (admissionService.admit() != AdmissionVerdict.ADMITTED) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(admissionService.retryAfterSeconds()));
+            return false;
+        }
+        authenticate(request.getHeaders(), attributes);
+        return true;
+    }
+
+    /**
+     * Starts validating a bearer token from the handshake headers, if there is one.
+     * Transports without handshake interceptors call this when the connection opens.
+     */
+    public void authenticate(HttpHeaders headers, Map<String, Object> attributes) {
+        String token = authProvider.extractToken(headers);
+
+        if (token != null) {
+            attributes.put(HEADER_AUTH_ATTRIBUTE, authProvider.validateTokenAsync(token));
+            log.debug("WebSocket handshake accepted, validating header token asynchronously");
+            return;
         }
 
         log.debug("WebSocket connection allowed without header auth, expecting AUTH message");
-        return true;
     }
     
     @Override
@@ -57,6 +78,11 @@ public class AuthHandshakeInterceptor implements HandshakeInterceptor {
         return (UserIdentity) attributes.get(USER_IDENTITY_ATTRIBUTE);
     }
     
+    @SuppressWarnings("unchecked")
+    public static CompletableFuture<UserIdentity> takeHeaderAuthentication(Map<String, Object> attributes) {
+        return (CompletableFuture<UserIdentity>) attributes.remove(HEADER_AUTH_ATTRIBUTE);
+    }
+
     public static void setUserIdentity(Map<String, Object> attributes, UserIdentity userIdentity) {
         attributes.put(USER_IDENTITY_ATTRIBUTE, userIdentity);
     }
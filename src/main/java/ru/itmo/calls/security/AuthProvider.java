@@ -2,8 +2,10 @@ package ru.itmo.calls.security;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.ServerHttpRequest;
 import ru.itmo.calls.model.UserIdentity;
 
@@ -11,8 +13,20 @@ public interface AuthProvider {
     UserIdentity validateAndExtractIdentity(ServerHttpRequest request);
     UserIdentity validateToken(String token);
 
+    /**
+     * Non-blocking variant used on the WebSocket I/O path. Completes with {@code null}
+     * for rejected tokens and never completes exceptionally.
+     */
+    default CompletableFuture<UserIdentity> validateTokenAsync(String token) {
+        return CompletableFuture.completedFuture(validateToken(token));
+    }
+
     default String extractToken(ServerHttpRequest request) {
-        return Optional.ofNullable(request.getHeaders().get("Authorization"))
+        return extractToken(request.getHeaders());
+    }
+
+    default String extractToken(HttpHeaders headers) {
+        return Optional.ofNullable(headers.get("Authorization"))
                 .map(List::getFirst)
                 .filter(StringUtils::isNotBlank)
                 .filter(token -> token.startsWith("Bearer "))
@@ -20,4 +34,3 @@ public interface AuthProvider {
                 .orElse(null);
     }
 }
-
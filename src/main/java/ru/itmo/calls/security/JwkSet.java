@@ -0,0 +1,129 @@
+package ru.itmo.calls.security;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Signing keys parsed once from a JWKS document into JCA keys. Keys that are not for
+ * signatures, or of an unsupported type or curve, are skipped.
+ */
+final class JwkSet {
+    private static final Logger log = LoggerFactory.getLogger(JwkSet.class);
+    private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+
+    static final JwkSet EMPTY = new JwkSet(List.of());
+
+    private final List<Jwk> keys;
+
+    private JwkSet(List<Jwk> keys) {
+        this.keys = keys;
+    }
+
+    static JwkSet parse(JsonNode jwks) {
+        List<Jwk> keys = new ArrayList<>();
+        for (JsonNode jwk : jwks.path("keys")) {
+            String kid = jwk.path("kid").asText(null);
+            try {
+                Jwk parsed = parseKey(kid, jwk);
+                if (parsed != null) {
+                    keys.add(parsed);
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Skipping invalid JWK {}: {}", kid, e.getMessage());
+            }
+        }
+        return new JwkSet(List.copyOf(keys));
+    }
+
+    /**
+     * @param kid the token's key id; without one, the only key for {@code algorithm} is used
+     * @return the key, or {@code null} if none matches both the id and the algorithm
+     */
+    Key find(String kid, JwsAlgorithm algorithm) {
+        Key match = null;
+        for (Jwk jwk : keys) {
+            if (jwk.algorithm() != algorithm) {
+                continue;
+            }
+            if (kid != null) {
+                if (kid.equals(jwk.kid())) {
+                    return jwk.key();
+                }
+            } else if (match != null) {
+                return null;
+            } else {
+                match = jwk.key();
+            }
+        }
+        return match;
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    private static Jwk parseKey(String kid, JsonNode jwk) throws GeneralSecurityException {
+        if (jwk.hasNonNull("use") && !"sig".equals(jwk.path("use").asText())) {
+            return null;
+        }
+        String keyType = jwk.path("kty").asText();
+        JwsAlgorithm algorithm = jwk.hasNonNull("alg")
+                ? JwsAlgorithm.of(jwk.path("alg").asText())
+                : JwsAlgorithm.forKeyType(keyType);
+        if (algorithm == null || !algorithm.keyType().equals(keyType)) {
+            log.warn("Skipping JWK {} with unsupported type {} or algorithm {}", kid, keyType, jwk.path("alg").asText());
+            return null;
+        }
+
+        Key key = switch (algorithm) {
+            case RS256 -> KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                    unsigned(jwk, "n"), unsigned(jwk, "e")
+            ));
+            case ES256 -> {
+                if (!"P-256".equals(jwk.path("crv").asText())) {
+                    throw new IllegalArgumentException("unsupported curve " + jwk.path("crv").asText());
+                }
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec("secp256r1"));
+                ECPoint point = new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y"));
+                yield KeyFactory.getInstance("EC").generatePublic(
+                        new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class))
+                );
+            }
+            case HS256 -> new SecretKeySpec(bytes(jwk, "k"), algorithm.jcaName());
+        };
+        return new Jwk(kid, algorithm, key);
+    }
+
+    private static BigInteger unsigned(JsonNode jwk, String field) {
+        return new BigInteger(1, bytes(jwk, field));
+    }
+
+    private static byte[] bytes(JsonNode jwk, String field) {
+        String value = jwk.path(field).asText(null);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("missing '" + field + "'");
+        }
+        return BASE64URL.decode(value);
+    }
+
+    private record Jwk(String kid, JwsAlgorithm algorithm, Key key) {
+    }
+}
@@ -0,0 +1,93 @@
+package ru.itmo.calls.security;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+
+import javax.crypto.Mac;
+
+/**
+ * Supported JWS algorithms. JCA engines are created once per thread and re-initialised
+ * with the key for each token, which skips the provider lookup of {@code getInstance}.
+ */
+enum JwsAlgorithm {
+    RS256("SHA256withRSA", "RSA"),
+    /** JWS carries ECDSA signatures as raw R || S, which the P1363 format reads directly. */
+    ES256("SHA256withECDSAinP1363Format", "EC"),
+    HS256("HmacSHA256", "oct");
+
+    private final String jcaName;
+    private final String keyType;
+    private final ThreadLocal<Signature> signatures;
+    private final ThreadLocal<Mac> macs;
+
+    JwsAlgorithm(String jcaName, String keyType) {
+        this.jcaName = jcaName;
+        this.keyType = keyType;
+        this.signatures = ThreadLocal.withInitial(this::newSignature);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * @return the algorithm, or {@code null} for {@code none} and anything unsupported
+     */
+    static JwsAlgorithm of(String name) {
+        for (JwsAlgorithm algorithm : values()) {
+            if (algorithm.name().equals(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The algorithm implied by a JWK's {@code kty} when it does not name one.
+     */
+    static JwsAlgorithm forKeyType(String keyType) {
+        for (JwsAlgorithm algorithm : values()) {
+            if (algorithm.keyType.equals(keyType)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    String keyType() {
+        return keyType;
+    }
+
+    String jcaName() {
+        return jcaName;
+    }
+
+    boolean verify(Key key, byte[] input, int length, byte[] signature) throws GeneralSecurityException {
+        if (this == HS256) {
+            Mac mac = macs.get();
+            mac.init(key);
+            mac.update(input, 0, length);
+            return MessageDigest.isEqual(mac.doFinal(), signature);
+        }
+        Signature verifier = signatures.get();
+        verifier.initVerify((PublicKey) key);
+        verifier.update(input, 0, length);
+        return verifier.verify(signature);
+    }
+
+    private Signature newSignature() {
+        try {
+            return Signature.getInstance(jcaName);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("JCA has no " + jcaName, e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            return Mac.getInstance(jcaName);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("JCA has no " + jcaName, e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.itmo.calls.security;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.itmo.calls.config.JwtConfig;
+import ru.itmo.calls.exception.UnauthorizedException;
+import ru.itmo.calls.model.AuthOutcome;
+import ru.itmo.calls.model.UserIdentity;
+import ru.itmo.calls.service.SignallingMetrics;
+
+/**
+ * Verifies signed tokens (RS256, ES256, HS256) locally, with keys from a JWKS file or URL
+ * that is reloaded in the background. Selected with {@code auth.provider.type=jwt}.
+ */
+@Component
+@ConditionalOnExpression("${auth.provider.enabled:true} and '${auth.provider.type:api}' == 'jwt'")
+public class JwtAuthProvider implements AuthProvider {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthProvider.class);
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final JwtConfig config;
+    private final ObjectMapper objectMapper;
+    private final SignallingMetrics metrics;
+    private final ExecutorService authExecutor;
+    private final JwtVerifier verifier;
+    private final HttpClient httpClient;
+    private final AtomicLong lastReload = new AtomicLong();
+
+    public JwtAuthProvider(
+            JwtConfig config,
+            ObjectMapper objectMapper,
+            SignallingMetrics metrics,
+            @Qualifier("authExecutor") ExecutorService authExecutor
+    ) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.authExecutor = authExecutor;
+        this.verifier = new JwtVerifier(config, objectMapper.getFactory(), this::reloadSoon);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(FETCH_TIMEOUT).executor(authExecutor).build();
+    }
+
+    @PostConstruct
+    void loadKeys() throws IOException, InterruptedException {
+        if (config.getJwksFile() == null && config.getJwksUrl() == null) {
+            throw new IllegalStateException("auth.provider.jwt.jwks-file or auth.provider.jwt.jwks-url must be set");
+        }
+        reload();
+    }
+
+    @Override
+    public UserIdentity validateAndExtractIdentity(ServerHttpRequest request) {
+        return validateToken(extractToken(request));
+    }
+
+    /**
+     * Verification is local and takes microseconds, so it runs on the calling thread.
+     */
+    @Override
+    public UserIdentity validateToken(String token) {
+        if (token == null || token.isBlank()) {
+            log.warn("Invalid or missing token");
+            return null;
+        }
+
+        long start = metrics.startTimer();
+        AuthOutcome outcome = AuthOutcome.ERROR;
+        try {
+            UserIdentity identity = new UserIdentity(verifier.verify(token));
+            outcome = AuthOutcome.SUCCESS;
+            return identity;
+        } catch (UnauthorizedException e) {
+            outcome = AuthOutcome.REJECTED;
+            log.debug("Token rejected: {}", e.getMessage());
+            return null;
+        } finally {
+            metrics.authCompleted(start, outcome);
+        }
+    }
+
+    /**
+     * Only hands the reload to {@code authExecutor}: a slow JWKS endpoint must not hold up
+     * the shared scheduler thread that also runs heartbeats and timeouts.
+     */
+    @Scheduled(
+            initialDelayString = "${auth.provider.jwt.refresh-interval:600000}",
+            fixedDelayString = "${auth.provider.jwt.refresh-interval:600000}"
+    )
+    public void scheduleRefresh() {
+        try {
+            authExecutor.execute(this::refresh);
+        } catch (RejectedExecutionException e) {
+            log.debug("Auth executor is shut down, JWKS not reloaded");
+        }
+    }
+
+    private void refresh() {
+        try {
+            reload();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to reload JWKS, keeping {} known keys: {}", verifier.keyCount(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A token signed with a key we do not know may follow a key rotation, so reload
+     * early, but no more often than {@code min-refresh-interval}.
+     */
+    private void reloadSoon() {
+        long now = System.nanoTime();
+        long last = lastReload.get();
+        if (now - last < config.getMinRefreshInterval().toNanos() || !lastReload.compareAndSet(last, now)) {
+            return;
+        }
+        authExecutor.execute(this::refresh);
+    }
+
+    private void reload() throws IOException, InterruptedException {
+        lastReload.set(System.nanoTime());
+        String jwks = config.getJwksFile() != null
+                ? Files.readString(Path.of(config.getJwksFile()))
+                : fetch(config.getJwksUrl());
+        JwkSet keys = JwkSet.parse(objectMapper.readTree(jwks));
+        if (keys.size() == 0) {
+            throw new IOException("JWKS has no usable signing keys");
+        }
+        verifier.setKeys(keys);
+        log.info("Loaded {} JWT signing keys", keys.size());
+    }
+
+    private String fetch(String url) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(url)).timeout(FETCH_TIMEOUT).GET().build(),
+                HttpResponse.BodyHandlers.ofString()
+        );
+        if (response.statusCode() != 200) {
+            throw new IOException("JWKS request to " + url + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,211 @@
+package ru.itmo.calls.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.itmo.calls.config.JwtConfig;
+import ru.itmo.calls.exception.UnauthorizedException;
+
+/**
+ * Verifies compact JWS tokens against a {@link JwkSet}. Header and claims are read with
+ * a streaming parser, without binding them to objects, and the signature is checked with
+ * the pre-parsed key, so a token costs one signature verification and no allocation
+ * beyond decoding its parts.
+ */
+public final class JwtVerifier {
+    private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+
+    private final JwtConfig config;
+    private final JsonFactory jsonFactory;
+    private final Runnable onUnknownKey;
+
+    private volatile JwkSet keys = JwkSet.EMPTY;
+
+    /**
+     * @param onUnknownKey called when a token names a key that is not in the set, so the
+     *                     caller can reload it after a rotation
+     */
+    public JwtVerifier(JwtConfig config, JsonFactory jsonFactory, Runnable onUnknownKey) {
+        this.config = config;
+        this.jsonFactory = jsonFactory;
+        this.onUnknownKey = onUnknownKey;
+    }
+
+    void setKeys(JwkSet keys) {
+        this.keys = keys;
+    }
+
+    int keyCount() {
+        return keys.size();
+    }
+
+    /**
+     * @return the user id from the configured claim
+     * @throws UnauthorizedException if the token is malformed, badly signed, expired,
+     *                               not yet valid, or for another issuer or audience
+     */
+    public int verify(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw new UnauthorizedException("Token is not a compact JWS");
+        }
+
+        byte[] ascii = token.getBytes(StandardCharsets.US_ASCII);
+        Header header = parseHeader(decode(ascii, 0, headerEnd));
+        Key key = keys.find(header.kid, header.algorithm);
+        if (key == null) {
+            onUnknownKey.run();
+            throw new UnauthorizedException("No key for kid " + header.kid + " and " + header.algorithm);
+        }
+
+        try {
+            byte[] signature = decode(ascii, payloadEnd + 1, ascii.length);
+            if (!header.algorithm.verify(key, ascii, payloadEnd, signature)) {
+                throw new UnauthorizedException("Bad token signature");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new UnauthorizedException("Bad token signature: " + e.getMessage());
+        }
+
+        return parseClaims(decode(ascii, headerEnd + 1, payloadEnd));
+    }
+
+    private Header parseHeader(byte[] json) {
+        String algorithm = null;
+        String kid = null;
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new UnauthorizedException("Token header is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "alg" -> algorithm = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    case "kid" -> kid = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    case "crit" -> throw new UnauthorizedException("Critical token header extensions are not supported");
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new UnauthorizedException("Malformed token header");
+        }
+
+        JwsAlgorithm parsed = JwsAlgorithm.of(algorithm);
+        if (parsed == null) {
+            throw new UnauthorizedException("Unsupported token algorithm " + algorithm);
+        }
+        return new Header(parsed, kid);
+    }
+
+    private int parseClaims(byte[] json) {
+        Integer userId = null;
+        long expires = -1;
+        long notBefore = -1;
+        boolean issuerMatches = config.getIssuer() == null;
+        boolean audienceMatches = config.getAudience() == null;
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new UnauthorizedException("Token claims are not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals(config.getUserIdClaim())) {
+                    userId = readUserId(parser, value);
+                    continue;
+                }
+                switch (field) {
+                    case "exp" -> expires = readTime(parser, value);
+                    case "nbf" -> notBefore = readTime(parser, value);
+                    case "iss" -> issuerMatches |= value == JsonToken.VALUE_STRING
+                            && parser.getText().equals(config.getIssuer());
+                    case "aud" -> audienceMatches |= containsAudience(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new UnauthorizedException("Malformed token claims");
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+        long skew = config.getClockSkew().toSeconds();
+        if (expires < 0) {
+            throw new UnauthorizedException("Token has no expiry");
+        }
+        if (now - skew >= expires) {
+            throw new UnauthorizedException("Token expired");
+        }
+        if (notBefore >= 0 && now + skew < notBefore) {
+            throw new UnauthorizedException("Token not valid yet");
+        }
+        if (!issuerMatches) {
+            throw new UnauthorizedException("Token issuer mismatch");
+        }
+        if (!audienceMatches) {
+            throw new UnauthorizedException("Token audience mismatch");
+        }
+        if (userId == null) {
+            throw new UnauthorizedException("Token has no numeric '" + config.getUserIdClaim() + "' claim");
+        }
+        return userId;
+    }
+
+    private static Integer readUserId(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.parseInt(parser.getText());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static long readTime(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getValueAsLong();
+        }
+        throw new UnauthorizedException("Token time claims must be numeric");
+    }
+
+    private boolean containsAudience(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText().equals(config.getAudience());
+        }
+        boolean found = false;
+        if (value == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                found |= parser.currentToken() == JsonToken.VALUE_STRING && parser.getText().equals(config.getAudience());
+                parser.skipChildren();
+            }
+        } else {
+            parser.skipChildren();
+        }
+        return found;
+    }
+
+    private static byte[] decode(byte[] ascii, int from, int to) {
+        try {
+            return BASE64URL.decode(Arrays.copyOfRange(ascii, from, to));
+        } catch (IllegalArgumentException e) {
+            throw new UnauthorizedException("Token is not base64url");
+        }
+    }
+
+    private record Header(JwsAlgorithm algorithm, String kid) {
+    }
+}
@@ -0,0 +1,178 @@
+package ru.itmo.calls.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.AdmissionConfig;
+import ru.itmo.calls.model.AdmissionVerdict;
+
+/**
+ * Decides, before the upgrade, whether a WebSocket handshake is accepted. Refused
+ * handshakes get a 503 with {@code Retry-After}, so an overloaded node sheds load before
+ * it spends heap on the socket.
+ *
+ * <p>Besides the drain state, a connection cap and a GCRA token bucket for handshakes,
+ * a shed probability is recomputed every {@code signalling.admission.sample-interval} ms
+ * from heap use, the inbound dispatch backlog and a moving average of auth backend
+ * latency. Each signal ramps linearly from 0 at its soft limit to 1 at its hard limit and
+ * the highest one wins, so admission degrades gradually instead of flapping.
+ */
+@Service
+public class AdmissionService {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionService.class);
+    /** Weight of the newest sample in the auth latency average. */
+    private static final double AUTH_LATENCY_WEIGHT = 0.2;
+
+    private final AdmissionConfig config;
+    private final DrainService drainService;
+    private final InboundDispatcher inboundDispatcher;
+    private final SignallingMetrics metrics;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private final AtomicLong nextHandshake = new AtomicLong(System.nanoTime());
+    private volatile double shedProbability;
+
+    private double authLatencyNanos;
+    private boolean authSinceSample;
+
+    public AdmissionService(
+            AdmissionConfig config,
+            DrainService drainService,
+            InboundDispatcher inboundDispatcher,
+            SignallingMetrics metrics,
+            MeterRegistry meterRegistry
+    ) {
+        this.config = config;
+        this.drainService = drainService;
+        this.inboundDispatcher = inboundDispatcher;
+        this.metrics = metrics;
+        Gauge.builder("signalling.admission.shed", this, AdmissionService::getShedProbability)
+                .description("Share of handshakes currently refused by the adaptive limiter")
+                .register(meterRegistry);
+    }
+
+    public AdmissionVerdict admit() {
+        AdmissionVerdict verdict = decide();
+        if (verdict != AdmissionVerdict.ADMITTED) {
+            metrics.handshakeRejected(verdict);
+            log.debug("WebSocket handshake refused: {}", verdict);
+        }
+        return verdict;
+    }
+
+    /**
+     * @return seconds for the {@code Retry-After} header, jittered between one and two
+     * times {@code retry-after}
+     */
+    public long retryAfterSeconds() {
+        long base = Math.max(1, config.getRetryAfter().toSeconds());
+        return base + ThreadLocalRandom.current().nextLong(base + 1);
+    }
+
+    /**
+     * Feeds the auth latency average; called for every auth backend request.
+     */
+    public synchronized void authCompleted(long nanos) {
+        authLatencyNanos += AUTH_LATENCY_WEIGHT * (nanos - authLatencyNanos);
+        authSinceSample = true;
+    }
+
+    public double getShedProbability() {
+        return shedProbability;
+    }
+
+    private AdmissionVerdict decide() {
+        if (drainService.isDraining()) {
+            return AdmissionVerdict.DRAINING;
+        }
+        if (!config.isEnabled()) {
+            return AdmissionVerdict.ADMITTED;
+        }
+        if (metrics.getConnectionCount() >= config.getMaxConnections()) {
+            return AdmissionVerdict.AT_CAPACITY;
+        }
+        double shed = shedProbability;
+        if (shed > 0 && ThreadLocalRandom.current().nextDouble() < shed) {
+            return AdmissionVerdict.OVERLOADED;
+        }
+        return tryAcquireHandshake() ? AdmissionVerdict.ADMITTED : AdmissionVerdict.RATE_LIMITED;
+    }
+
+    /**
+     * Same GCRA as the per-connection frame limits, on a single node-wide bucket.
+     */
+    private boolean tryAcquireHandshake() {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.getHandshakesPerSecond());
+        long tolerance = interval * Math.max(0, config.getHandshakeBurst() - 1);
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = nextHandshake.get();
+            long base = arrival - now > 0 ? arrival : now;
+            if (base - now > tolerance) {
+                return false;
+            }
+            if (nextHandshake.compareAndSet(arrival, base + interval)) {
+                return true;
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${signalling.admission.sample-interval:500}")
+    public void sample() {
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        long heapMax = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        double heapShed = ramp((double) heap.getUsed() / heapMax, config.getHeapSoftLimit(), config.getHeapHardLimit());
+
+        double backlogShed = ramp(
+                inboundDispatcher.getBacklog(), config.getInboundBacklogSoftLimit(), config.getInboundBacklogHardLimit()
+        );
+
+        double authShed = ramp(
+                decayAuthLatency(),
+                config.getAuthLatencySoftLimit().toNanos(),
+                config.getAuthLatencyHardLimit().toNanos()
+        );
+
+        double shed = Math.max(heapShed, Math.max(backlogShed, authShed));
+        if ((shed > 0) != (shedProbability > 0)) {
+            log.warn(
+                    "Handshake shedding {}: heap {}, inbound backlog {}, auth latency {}",
+                    shed > 0 ? "started" : "stopped", heapShed, backlogShed, authShed
+            );
+        }
+        shedProbability = shed;
+    }
+
+    /**
+     * Halves the average when no auth request completed since the last sample, so the
+     * limiter recovers even while it is refusing the handshakes that would report latency.
+     */
+    private synchronized double decayAuthLatency() {
+        double latency = authLatencyNanos;
+        if (!authSinceSample) {
+            authLatencyNanos /= 2;
+        }
+        authSinceSample = false;
+        return latency;
+    }
+
+    private static double ramp(double value, double soft, double hard) {
+        if (value <= soft) {
+            return 0;
+        }
+        if (value >= hard || hard <= soft) {
+            return 1;
+        }
+        return (value - soft) / (hard - soft);
+    }
+}
@@ -0,0 +1,486 @@
+package ru.itmo.calls.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.exception.InvalidMessageException;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalMessage;
+import ru.itmo.calls.model.SignalType;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+
+/**
+ * Codec for the compact binary subprotocol.
+ * <pre>
+ * frame   := typeCode:u8 flags:u8 [from:varint] [to:varint] payload?
+ * payload := mask:varint field*            (types with a schema, fields in schema order)
+ *          | utf8 JSON to end of frame     (types without a schema)
+ * field   := varint | length:varint utf8
+ * </pre>
+ * Flag bit 0 marks {@code from}, bit 1 marks {@code to} and bit 2 a payload deflated by
+ * {@link FrameCompression}. A frame relayed between two
+ * binary clients is spliced around its untouched payload bytes; JSON transcoding only
+ * happens when the two ends use different formats.
+ */
+@Service
+public class BinaryFrameCodec {
+    private static final int FLAG_FROM = 1;
+    private static final int FLAG_TO = 1 << 1;
+    static final int FLAG_DEFLATED = 1 << 2;
+    private static final int HEADER_OVERHEAD = 12;
+
+    private static final EnumMap<SignalType, Field[]> SCHEMA = new EnumMap<>(SignalType.class);
+
+    static {
+        SCHEMA.put(SignalType.AUTH, new Field[]{
+                Field.string("token"),
+                Field.string("resumeToken"),
+                Field.integer("lastSeq")
+        });
+        SCHEMA.put(SignalType.AUTH_FAILED, new Field[]{Field.string("message")});
+        SCHEMA.put(SignalType.ERROR, new Field[]{Field.string("message")});
+        SCHEMA.put(SignalType.CALL_REJECT, new Field[]{Field.string("reason")});
+        SCHEMA.put(SignalType.WEBRTC_OFFER, new Field[]{Field.requiredString("sdp")});
+        SCHEMA.put(SignalType.WEBRTC_ANSWER, new Field[]{Field.requiredString("sdp")});
+        SCHEMA.put(SignalType.WEBRTC_CANDIDATE, new Field[]{
+                Field.string("candidate"),
+                Field.string("sdpMid"),
+                Field.integer("sdpMLineIndex"),
+                Field.string("usernameFragment")
+        });
+    }
+
+    private final JsonFactory jsonFactory;
+    private final FrameCompression frameCompression;
+
+    public BinaryFrameCodec(ObjectMapper objectMapper, FrameCompression frameCompression) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.frameCompression = frameCompression;
+    }
+
+    /**
+     * @return the type in the frame's first byte, or {@code null} if it is unknown
+     */
+    public SignalType peekType(ByteBuffer buffer) {
+        return buffer.hasRemaining() ? SignalType.fromCode(buffer.get(buffer.position()) & 0xFF) : null;
+    }
+
+    /**
+     * Copies the frame out of the container's buffer, which may be reused once the
+     * handler returns, and validates the payload in the same pass.
+     */
+    public SignalFrame decode(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+
+        Reader reader = new Reader(bytes, 0, bytes.length);
+        SignalType type = SignalType.fromCode(reader.readByte());
+        if (type == null) {
+            throw new InvalidMessageException("Unknown message type code");
+        }
+
+        int flags = reader.readByte();
+        if ((flags & FLAG_FROM) != 0) {
+            // The sender is always assigned by the server
+            reader.readVarint();
+        }
+        Integer to = (flags & FLAG_TO) != 0 ? reader.readVarint() : null;
+
+        if ((flags & FLAG_DEFLATED) != 0) {
+            byte[] payload = frameCompression.inflate(bytes, reader.position, bytes.length - reader.position);
+            validatePayload(type, new Reader(payload, 0, payload.length));
+            return SignalFrame.binary(type, to, payload, 0, payload.length);
+        }
+
+        int payloadStart = reader.position;
+        validatePayload(type, reader);
+        return SignalFrame.binary(type, to, bytes, payloadStart, bytes.length);
+    }
+
+    /**
+     * Returns the index of the first payload byte of an encoded frame.
+     */
+    static int payloadOffset(byte[] frame, int offset, int limit) {
+        Reader reader = new Reader(frame, offset, limit);
+        reader.readByte();
+        int flags = reader.readByte();
+        if ((flags & FLAG_FROM) != 0) {
+            reader.readVarint();
+        }
+        if ((flags & FLAG_TO) != 0) {
+            reader.readVarint();
+        }
+        return reader.position;
+    }
+
+    public byte[] encode(SignalFrame frame) {
+        Writer writer = new Writer(HEADER_OVERHEAD + frame.payloadLength());
+        writeHeader(writer, frame.type(), frame.from(), frame.to());
+
+        if (!frame.hasPayload()) {
+            return writer.toByteArray();
+        }
+        if (frame.bytes() != null) {
+            writer.write(frame.bytes(), frame.payloadStart(), frame.payloadLength());
+        } else {
+            writeJsonPayload(writer, frame.type(), frame.text().substring(frame.payloadStart(), frame.payloadEnd()));
+        }
+        return writer.toByteArray();
+    }
+
+    public byte[] encode(SignalMessage message) {
+        Writer writer = new Writer(64);
+        writeHeader(writer, message.type(), message.from(), message.to());
+
+        JsonNode payload = message.payload();
+        if (payload == null || payload.isNull()) {
+            return writer.toByteArray();
+        }
+
+        Field[] fields = SCHEMA.get(message.type());
+        if (fields == null) {
+            writer.write(payload.toString().getBytes(StandardCharsets.UTF_8));
+            return writer.toByteArray();
+        }
+
+        int mask = 0;
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            JsonNode value = payload.get(fields[i].name());
+            if (fields[i].integer() ? value != null && value.canConvertToInt() : value != null && value.isTextual()) {
+                values[i] = fields[i].integer() ? (Object) value.intValue() : value.textValue();
+                mask |= 1 << i;
+            }
+        }
+        writeFields(writer, fields, mask, values);
+        return writer.toByteArray();
+    }
+
+    public byte[] encodeControl(SignalType type, Integer from, Integer to) {
+        Writer writer = new Writer(HEADER_OVERHEAD);
+        writeHeader(writer, type, from, to);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Renders a binary frame's payload as JSON for delivery to a JSON client.
+     */
+    public String payloadToJson(SignalFrame frame) {
+        if (!frame.hasPayload()) {
+            return null;
+        }
+
+        Field[] fields = SCHEMA.get(frame.type());
+        if (fields == null) {
+            return new String(frame.bytes(), frame.payloadStart(), frame.payloadLength(), StandardCharsets.UTF_8);
+        }
+
+        Reader reader = new Reader(frame.bytes(), frame.payloadStart(), frame.payloadEnd());
+        int mask = reader.readVarint();
+        StringWriter json = new StringWriter(frame.payloadLength() + 32);
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            generator.writeStartObject();
+            for (int i = 0; i < fields.length; i++) {
+                if ((mask & (1 << i)) == 0) {
+                    continue;
+                }
+                if (fields[i].integer()) {
+                    generator.writeNumberField(fields[i].name(), reader.readVarint());
+                } else {
+                    generator.writeStringField(fields[i].name(), reader.readString());
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new InvalidMessageException("Cannot transcode payload: " + e.getMessage(), e);
+        }
+        return json.toString();
+    }
+
+    public String readStringField(SignalFrame frame, String name) {
+        Reader reader = seekField(frame, name, false);
+        return reader != null ? reader.readString() : null;
+    }
+
+    public Integer readIntField(SignalFrame frame, String name) {
+        Reader reader = seekField(frame, name, true);
+        return reader != null ? reader.readVarint() : null;
+    }
+
+    /**
+     * Returns a reader positioned on the value of field {@code name}, or {@code null} if absent.
+     */
+    private Reader seekField(SignalFrame frame, String name, boolean integer) {
+        Field[] fields = SCHEMA.get(frame.type());
+        if (fields == null || !frame.hasPayload()) {
+            return null;
+        }
+
+        Reader reader = new Reader(frame.bytes(), frame.payloadStart(), frame.payloadEnd());
+        int mask = reader.readVarint();
+        for (int i = 0; i < fields.length; i++) {
+            if ((mask & (1 << i)) == 0) {
+                continue;
+            }
+            if (fields[i].name().equals(name)) {
+                return fields[i].integer() == integer ? reader : null;
+            }
+            if (fields[i].integer()) {
+                reader.readVarint();
+            } else {
+                reader.skipString();
+            }
+        }
+        return null;
+    }
+
+    private void validatePayload(SignalType type, Reader reader) {
+        Field[] fields = SCHEMA.get(type);
+
+        if (!reader.hasRemaining()) {
+            if (fields != null) {
+                for (Field field : fields) {
+                    if (field.required()) {
+                        throw new InvalidMessageException(type + " must have payload");
+                    }
+                }
+            }
+            return;
+        }
+
+        if (fields == null) {
+            validateOpaqueJson(reader);
+            return;
+        }
+
+        int mask = reader.readVarint();
+        for (int i = 0; i < fields.length; i++) {
+            if ((mask & (1 << i)) == 0) {
+                if (fields[i].required()) {
+                    throw new InvalidMessageException(
+                            "Invalid " + type + " payload: '" + fields[i].name() + "' is required"
+                    );
+                }
+            } else if (fields[i].integer()) {
+                reader.readVarint();
+            } else {
+                reader.skipString();
+            }
+        }
+
+        if (reader.hasRemaining()) {
+            throw new InvalidMessageException("Invalid " + type + " payload: trailing bytes");
+        }
+    }
+
+    /**
+     * Opaque payloads may be relayed verbatim to JSON clients, so they must be well-formed.
+     */
+    private void validateOpaqueJson(Reader reader) {
+        try (JsonParser parser = jsonFactory.createParser(reader.bytes, reader.position, reader.limit - reader.position)) {
+            parser.nextToken();
+            parser.skipChildren();
+            if (parser.nextToken() != null) {
+                throw new InvalidMessageException("Invalid payload: trailing content");
+            }
+        } catch (IOException e) {
+            throw new InvalidMessageException("Invalid payload: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeJsonPayload(Writer writer, SignalType type, String json) {
+        Field[] fields = SCHEMA.get(type);
+        if (fields == null) {
+            writer.write(json.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        int mask = 0;
+        Object[] values = new Object[fields.length];
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    int index = indexOf(fields, parser.currentName());
+                    JsonToken value = parser.nextToken();
+
+                    if (index >= 0 && fields[index].integer() && value == JsonToken.VALUE_NUMBER_INT) {
+                        values[index] = parser.getIntValue();
+                        mask |= 1 << index;
+                    } else if (index >= 0 && !fields[index].integer() && value == JsonToken.VALUE_STRING) {
+                        values[index] = parser.getText();
+                        mask |= 1 << index;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidMessageException("Cannot transcode payload: " + e.getMessage(), e);
+        }
+
+        writeFields(writer, fields, mask, values);
+    }
+
+    private static void writeHeader(Writer writer, SignalType type, Integer from, Integer to) {
+        writer.writeByte(type.code());
+        writer.writeByte((from != null ? FLAG_FROM : 0) | (to != null ? FLAG_TO : 0));
+        if (from != null) {
+            writer.writeVarint(from);
+        }
+        if (to != null) {
+            writer.writeVarint(to);
+        }
+    }
+
+    private static void writeFields(Writer writer, Field[] fields, int mask, Object[] values) {
+        writer.writeVarint(mask);
+        for (int i = 0; i < fields.length; i++) {
+            if ((mask & (1 << i)) == 0) {
+                continue;
+            }
+            if (fields[i].integer()) {
+                writer.writeVarint((Integer) values[i]);
+            } else {
+                writer.writeString((String) values[i]);
+            }
+        }
+    }
+
+    private static int indexOf(Field[] fields, String name) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].name().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private record Field(String name, boolean integer, boolean required) {
+        static Field string(String name) {
+            return new Field(name, false, false);
+        }
+
+        static Field requiredString(String name) {
+            return new Field(name, false, true);
+        }
+
+        static Field integer(String name) {
+            return new Field(name, true, false);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] bytes, int position, int limit) {
+            this.bytes = bytes;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        boolean hasRemaining() {
+            return position < limit;
+        }
+
+        int readByte() {
+            if (position >= limit) {
+                throw new InvalidMessageException("Truncated frame");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new InvalidMessageException("Malformed varint");
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skipString() {
+            position += readLength();
+        }
+
+        private int readLength() {
+            int length = readVarint();
+            if (length < 0 || length > limit - position) {
+                throw new InvalidMessageException("Truncated frame");
+            }
+            return length;
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int size;
+
+        Writer(int capacity) {
+            this.buffer = new byte[Math.max(capacity, 16)];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8);
+        }
+
+        void write(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        byte[] toByteArray() {
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
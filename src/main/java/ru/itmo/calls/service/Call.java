@@ -0,0 +1,60 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import ru.itmo.calls.model.CallState;
+
+/**
+ * One call between two users. State changes are compare-and-set, so concurrent
+ * accept, reject, end and timeout race safely and exactly one of them wins.
+ */
+public final class Call {
+    private final int caller;
+    private final int callee;
+    private final boolean mirrored;
+    private final AtomicReference<CallState> state = new AtomicReference<>(CallState.RINGING);
+
+    Call(int caller, int callee, boolean mirrored) {
+        this.caller = caller;
+        this.callee = callee;
+        this.mirrored = mirrored;
+    }
+
+    public int caller() {
+        return caller;
+    }
+
+    public int callee() {
+        return callee;
+    }
+
+    /**
+     * {@code true} for a copy of a call whose ringing timeout is enforced by another node.
+     */
+    public boolean mirrored() {
+        return mirrored;
+    }
+
+    public CallState state() {
+        return state.get();
+    }
+
+    public int peerOf(int userId) {
+        return userId == caller ? callee : caller;
+    }
+
+    boolean isBetween(int userId, int peerId) {
+        return (userId == caller && peerId == callee) || (userId == callee && peerId == caller);
+    }
+
+    boolean transition(CallState expected, CallState next) {
+        return state.compareAndSet(expected, next);
+    }
+
+    /**
+     * @return {@code true} if this call ended it, {@code false} if it had already ended
+     */
+    boolean end() {
+        return state.getAndSet(CallState.ENDED) != CallState.ENDED;
+    }
+}
@@ -0,0 +1,171 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.exception.InvalidMessageException;
+import ru.itmo.calls.model.CallState;
+import ru.itmo.calls.model.SignalFrame;
+
+/**
+ * Calls in progress, indexed by both participants so every check on the routing path
+ * is a single lookup. A user is in at most one call at a time.
+ */
+@Service
+public class CallRegistry {
+    private static final Logger log = LoggerFactory.getLogger(CallRegistry.class);
+    private static final int WHEEL_SIZE = 64;
+
+    private final IntConcurrentMap<Call> callsByUser = new IntConcurrentMap<>();
+
+    private TimingWheel<Call> ringingWheel;
+    private volatile Consumer<Call> ringingTimeoutHandler = call -> { };
+
+    @Value("${signalling.calls.ringing-timeout:30000}")
+    private long ringingTimeout;
+
+    @Value("${signalling.calls.tick:1000}")
+    private long tickDuration;
+
+    @PostConstruct
+    void initWheel() {
+        ringingWheel = new TimingWheel<>(TimeUnit.MILLISECONDS.toNanos(tickDuration), WHEEL_SIZE, System.nanoTime());
+    }
+
+    /**
+     * @return the new call, or {@code null} if the callee is already in a call
+     */
+    public Call startRinging(int caller, int callee) {
+        return tryStart(caller, callee, false);
+    }
+
+    public Call find(int userId) {
+        return callsByUser.get(userId);
+    }
+
+    public boolean accept(int callee, int caller) {
+        Call call = findBetween(callee, caller);
+        return call != null && call.callee() == callee && call.transition(CallState.RINGING, CallState.ACTIVE);
+    }
+
+    public boolean reject(int callee, int caller) {
+        Call call = findBetween(callee, caller);
+        if (call != null && call.callee() == callee && call.transition(CallState.RINGING, CallState.ENDED)) {
+            release(call);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean end(int userId, int peerId) {
+        Call call = findBetween(userId, peerId);
+        if (call != null && call.end()) {
+            release(call);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ends whatever call the user is in.
+     *
+     * @return the ended call, or {@code null} if there was none
+     */
+    public Call endAll(int userId) {
+        Call call = callsByUser.get(userId);
+        if (call != null && call.end()) {
+            release(call);
+            return call;
+        }
+        return null;
+    }
+
+    /**
+     * Applies a transition already validated by the node that routed {@code frame}, so a
+     * participant connected here sees the same call state.
+     *
+     * @return {@code false} if {@code frame} is an incoming call that cannot ring here
+     *         because a participant is already in another call on this node
+     */
+    public boolean mirror(SignalFrame frame) {
+        if (frame.from() == null || frame.to() == null) {
+            return true;
+        }
+        int from = frame.from();
+        int to = frame.to();
+        switch (frame.type()) {
+            case INCOMING_CALL -> {
+                if (tryStart(from, to, true) == null) {
+                    if (findBetween(to, from) == null) {
+                        return false;
+                    }
+                    log.debug("Call from {} to {} was already known on this node", from, to);
+                }
+            }
+            case CALL_ACCEPT -> accept(from, to);
+            case CALL_REJECT -> reject(from, to);
+            case CALL_END -> end(from, to);
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    public void onRingingTimeout(Consumer<Call> handler) {
+        this.ringingTimeoutHandler = handler;
+    }
+
+    public int getActiveCount() {
+        return callsByUser.size() / 2;
+    }
+
+    @Scheduled(fixedRateString = "${signalling.calls.tick:1000}")
+    public synchronized void tick() {
+        ringingWheel.advance(System.nanoTime(), this::expireRinging);
+    }
+
+    private void expireRinging(Call call) {
+        if (!call.transition(CallState.RINGING, CallState.ENDED)) {
+            return;
+        }
+        release(call);
+        log.info("Call from {} to {} was not answered in time", call.caller(), call.callee());
+        if (!call.mirrored()) {
+            ringingTimeoutHandler.accept(call);
+        }
+    }
+
+    private Call tryStart(int caller, int callee, boolean mirrored) {
+        Call call = new Call(caller, callee, mirrored);
+
+        if (callsByUser.putIfAbsent(caller, call) != null) {
+            if (mirrored) {
+                return null;
+            }
+            throw new InvalidMessageException("You are already in a call");
+        }
+        if (callsByUser.putIfAbsent(callee, call) != null) {
+            callsByUser.remove(caller, call);
+            return null;
+        }
+
+        ringingWheel.schedule(call, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ringingTimeout));
+        return call;
+    }
+
+    private Call findBetween(int userId, int peerId) {
+        Call call = callsByUser.get(userId);
+        return call != null && call.isBetween(userId, peerId) ? call : null;
+    }
+
+    private void release(Call call) {
+        callsByUser.remove(call.caller(), call);
+        callsByUser.remove(call.callee(), call);
+    }
+}
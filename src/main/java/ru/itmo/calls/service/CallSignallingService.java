@@ -1,11 +1,16 @@
 package ru.itmo.calls.service;
 
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import ru.itmo.calls.exception.InvalidMessageException;
 import ru.itmo.calls.exception.UserOfflineException;
+import ru.itmo.calls.model.SignalFrame;
 import ru.itmo.calls.model.SignalMessage;
 import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.payload.CallRejectReason;
 
 @Service
 public class CallSignallingService {
@@ -13,16 +18,20 @@ public class CallSignallingService {
     
     private final OnlineUsersService onlineUsersService;
     private final MessageSenderService messageSenderService;
+    private final CallRegistry callRegistry;
     
     public CallSignallingService(
         OnlineUsersService onlineUsersService,
-        MessageSenderService messageSenderService
+        MessageSenderService messageSenderService,
+        CallRegistry callRegistry
     ) {
         this.onlineUsersService = onlineUsersService;
         this.messageSenderService = messageSenderService;
+        this.callRegistry = callRegistry;
+        callRegistry.onRingingTimeout(this::handleRingingTimeout);
     }
 
-    public void handleCallInit(SignalMessage message) {
+    public void handleCallInit(SignalFrame message) {
         Integer fromUserId = message.from();
         Integer toUserId = message.to();
         
@@ -30,51 +39,106 @@ public class CallSignallingService {
             throw new UserOfflineException(toUserId);
         }
 
-        SignalMessage incomingCall = new SignalMessage(
-            SignalType.INCOMING_CALL,
-            fromUserId,
-            toUserId,
-            null
-        );
-        
-        messageSenderService.sendMessage(toUserId, incomingCall);
+        if (callRegistry.startRinging(fromUserId, toUserId) == null) {
+            sendReject(fromUserId, toUserId, CallRejectReason.BUSY);
+            log.info("Call from {} to {} rejected: callee is busy", fromUserId, toUserId);
+            return;
+        }
+
+        try {
+            messageSenderService.sendControl(toUserId, SignalType.INCOMING_CALL, fromUserId, toUserId);
+        } catch (RuntimeException e) {
+            callRegistry.end(fromUserId, toUserId);
+            throw e;
+        }
         log.info("Call initiated: from {} to {}", fromUserId, toUserId);
     }
 
-    public void handleCallAccept(SignalMessage message) {
+    public void handleCallAccept(SignalFrame message) {
         Integer fromUserId = message.from();
         Integer toUserId = message.to();
+
+        if (!callRegistry.accept(fromUserId, toUserId)) {
+            throw new InvalidMessageException("No incoming call from user " + toUserId + " to accept");
+        }
         
         if (onlineUsersService.isUserOffline(toUserId)) {
+            callRegistry.end(fromUserId, toUserId);
             throw new UserOfflineException(toUserId);
         }
         
-        messageSenderService.sendMessage(toUserId, message);
+        messageSenderService.sendFrame(toUserId, message);
         log.info("Call accepted: from {} to {}", fromUserId, toUserId);
     }
 
-    public void handleCallReject(SignalMessage message) {
+    public void handleCallReject(SignalFrame message) {
         Integer fromUserId = message.from();
         Integer toUserId = message.to();
+
+        if (!callRegistry.reject(fromUserId, toUserId)) {
+            throw new InvalidMessageException("No incoming call from user " + toUserId + " to reject");
+        }
         
         if (onlineUsersService.isUserOffline(toUserId)) {
             throw new UserOfflineException(toUserId);
         }
         
-        messageSenderService.sendMessage(toUserId, message);
+        messageSenderService.sendFrame(toUserId, message);
         log.info("Call rejected: from {} to {}", fromUserId, toUserId);
     }
 
-    public void handleCallEnd(SignalMessage message) {
+    public void handleCallEnd(SignalFrame message) {
         Integer fromUserId = message.from();
         Integer toUserId = message.to();
+
+        if (!callRegistry.end(fromUserId, toUserId)) {
+            log.debug("Call end: no call between {} and {}", fromUserId, toUserId);
+            return;
+        }
         
         if (onlineUsersService.isUserOffline(toUserId)) {
             log.debug("Call end: recipient {} already offline", toUserId);
             return;
         }
         
-        messageSenderService.sendMessage(toUserId, message);
+        messageSenderService.sendFrame(toUserId, message);
         log.info("Call ended: from {} to {}", fromUserId, toUserId);
     }
+
+    /**
+     * Ends the user's call, if any, and tells the other participant.
+     */
+    public void handleDisconnect(Integer userId) {
+        Call call = callRegistry.endAll(userId);
+        if (call == null) {
+            return;
+        }
+
+        int peerId = call.peerOf(userId);
+        try {
+            messageSenderService.sendControl(peerId, SignalType.CALL_END, userId, peerId);
+            log.info("Call between {} and {} ended: user {} disconnected", userId, peerId, userId);
+        } catch (UserOfflineException e) {
+            log.debug("Call end on disconnect: peer {} already offline", peerId);
+        }
+    }
+
+    private void handleRingingTimeout(Call call) {
+        try {
+            sendReject(call.caller(), call.callee(), CallRejectReason.NO_ANSWER);
+        } catch (UserOfflineException e) {
+            log.debug("Ringing timeout: caller {} already offline", call.caller());
+        }
+        try {
+            messageSenderService.sendControl(call.callee(), SignalType.CALL_END, call.caller(), call.callee());
+        } catch (UserOfflineException e) {
+            log.debug("Ringing timeout: callee {} already offline", call.callee());
+        }
+    }
+
+    private void sendReject(Integer callerId, Integer calleeId, CallRejectReason reason) {
+        ObjectNode payload = JsonNodeFactory.instance.objectNode();
+        payload.put("reason", reason.name());
+        messageSenderService.sendMessage(callerId, new SignalMessage(SignalType.CALL_REJECT, calleeId, callerId, payload));
+    }
 }
@@ -0,0 +1,200 @@
+package ru.itmo.calls.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.CandidateBatchingConfig;
+import ru.itmo.calls.model.ClientFeature;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Collects trickle-ICE candidates per (from, to) pair for a short window and delivers
+ * them as one {@code WEBRTC_CANDIDATES} frame with payload {@code {"candidates":[...]}}.
+ * Only recipients that advertised {@link ClientFeature#CANDIDATE_BATCHING} are batched.
+ * End-of-candidates and any other frame for the same pair flush the batch first, so
+ * per-pair order is preserved. A flushed batch is routed to the recipient as they are
+ * then, not to the session that opened it.
+ */
+@Service
+public class CandidateCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(CandidateCoalescer.class);
+
+    private final CandidateBatchingConfig config;
+    private final WireCodec wireCodec;
+    private final ScheduledExecutorService candidateScheduler;
+    private final JsonFactory jsonFactory;
+
+    private final Map<Long, Batch> batches = new ConcurrentHashMap<>();
+    private volatile BiConsumer<Integer, SignalFrame> delivery = (userId, frame) -> { };
+
+    public CandidateCoalescer(
+            CandidateBatchingConfig config,
+            WireCodec wireCodec,
+            @Qualifier("candidateScheduler") ScheduledExecutorService candidateScheduler,
+            ObjectMapper objectMapper
+    ) {
+        this.config = config;
+        this.wireCodec = wireCodec;
+        this.candidateScheduler = candidateScheduler;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Sets where flushed batches go, keyed by recipient.
+     */
+    public void onFlush(BiConsumer<Integer, SignalFrame> delivery) {
+        this.delivery = delivery;
+    }
+
+    public boolean accepts(Connection recipient, SignalFrame frame) {
+        return config.isBatchingEnabled()
+                && frame.type() == SignalType.WEBRTC_CANDIDATE
+                && frame.from() != null
+                && ClientFeature.isEnabled(recipient.getAttributes(), ClientFeature.CANDIDATE_BATCHING);
+    }
+
+    public void add(SignalFrame frame) {
+        String payload = wireCodec.payloadJson(frame);
+        boolean endOfCandidates = isEndOfCandidates(payload);
+        long key = pairKey(frame.from(), frame.to());
+
+        while (true) {
+            Batch batch = batches.computeIfAbsent(key, k -> new Batch(k, frame.from(), frame.to()));
+            synchronized (batch) {
+                if (batch.flushed) {
+                    // Lost a race with a flush that already retired this batch
+                    continue;
+                }
+                batch.payloads.add(payload != null ? payload : "{}");
+
+                if (endOfCandidates || batch.payloads.size() >= config.getMaxBatchSize()) {
+                    flush(batch);
+                } else if (batch.payloads.size() == 1) {
+                    batch.timer = candidateScheduler.schedule(
+                            () -> flushExpired(batch), config.getWindow().toNanos(), TimeUnit.NANOSECONDS
+                    );
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delivers any candidates still held for the pair.
+     */
+    public void flush(Integer from, Integer to) {
+        if (!config.isBatchingEnabled() || from == null || to == null) {
+            return;
+        }
+        Batch batch = batches.get(pairKey(from, to));
+        if (batch != null) {
+            synchronized (batch) {
+                if (!batch.flushed) {
+                    flush(batch);
+                }
+            }
+        }
+    }
+
+    private void flushExpired(Batch batch) {
+        synchronized (batch) {
+            if (!batch.flushed) {
+                batch.timer = null;
+                flush(batch);
+            }
+        }
+    }
+
+    /**
+     * Called with the batch lock held; enqueueing before the lock is released keeps
+     * this batch ahead of the next one for the same pair.
+     */
+    private void flush(Batch batch) {
+        batch.flushed = true;
+        batches.remove(batch.key, batch);
+        if (batch.timer != null) {
+            batch.timer.cancel(false);
+        }
+
+        StringBuilder json = new StringBuilder(32 + batch.payloads.size() * 160).append("{\"candidates\":[");
+        for (int i = 0; i < batch.payloads.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(batch.payloads.get(i));
+        }
+        String payload = json.append("]}").toString();
+
+        SignalFrame frame = new SignalFrame(
+                SignalType.WEBRTC_CANDIDATES, batch.from, batch.to, WireFormat.JSON, payload, null, 0, payload.length()
+        );
+        try {
+            delivery.accept(batch.to, frame);
+            log.debug("Flushed {} candidates from {} to {}", batch.payloads.size(), batch.from, batch.to);
+        } catch (RuntimeException e) {
+            log.warn("{} candidates from {} to {} dropped: {}", batch.payloads.size(), batch.from, batch.to, e.getMessage());
+        }
+    }
+
+    /**
+     * Mirrors {@link PayloadValidator}: a missing, null or empty {@code candidate} ends gathering.
+     */
+    private boolean isEndOfCandidates(String payload) {
+        if (payload == null) {
+            return true;
+        }
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return true;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("candidate".equals(field)) {
+                    return value != JsonToken.VALUE_STRING || parser.getTextLength() == 0;
+                }
+                parser.skipChildren();
+            }
+            return true;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static long pairKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static final class Batch {
+        private final long key;
+        private final Integer from;
+        private final Integer to;
+        private final List<String> payloads = new ArrayList<>();
+        private ScheduledFuture<?> timer;
+        private boolean flushed;
+
+        private Batch(long key, Integer from, Integer to) {
+            this.key = key;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.itmo.calls.service;
+
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.ClusterConfig;
+import ru.itmo.calls.model.ForwardedFrame;
+import ru.itmo.calls.model.SignalFrame;
+
+/**
+ * Publishes local presence to the {@link PresenceDirectory} and forwards frames for users
+ * connected to other nodes. With clustering disabled every lookup is local only.
+ */
+@Service
+public class ClusterRouter {
+    private final ClusterConfig config;
+    private final PresenceDirectory presenceDirectory;
+    private final NodeTransport nodeTransport;
+
+    public ClusterRouter(
+            ClusterConfig config,
+            PresenceDirectory presenceDirectory,
+            ObjectProvider<NodeTransport> nodeTransport
+    ) {
+        this.config = config;
+        this.presenceDirectory = presenceDirectory;
+        this.nodeTransport = config.isEnabled() ? nodeTransport.getIfAvailable() : null;
+    }
+
+    public boolean isEnabled() {
+        return nodeTransport != null;
+    }
+
+    public String getNodeId() {
+        return config.getNodeId();
+    }
+
+    public void userConnected(int userId) {
+        if (isEnabled()) {
+            presenceDirectory.register(userId, config.getNodeId());
+        }
+    }
+
+    public void userDisconnected(int userId) {
+        if (isEnabled()) {
+            presenceDirectory.unregister(userId, config.getNodeId());
+        }
+    }
+
+    /**
+     * Returns the node holding {@code userId}'s session, or {@code null} if the user is
+     * offline or only known locally.
+     */
+    public String findRemoteNode(int userId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String nodeId = presenceDirectory.lookup(userId);
+        return nodeId == null || nodeId.equals(config.getNodeId()) ? null : nodeId;
+    }
+
+    public void forward(String nodeId, int recipient, SignalFrame frame) {
+        nodeTransport.send(nodeId, new ForwardedFrame(recipient, frame));
+    }
+
+    public void onForwarded(Consumer<ForwardedFrame> receiver) {
+        if (isEnabled()) {
+            nodeTransport.setReceiver(receiver);
+        }
+    }
+
+    public void onUndeliverable(Consumer<ForwardedFrame> handler) {
+        if (isEnabled()) {
+            nodeTransport.setUndeliverable(handler);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rate-limit state of one connection. Token buckets are kept as theoretical arrival
+ * times (GCRA), one per message type, so admitting a frame is a single CAS.
+ */
+final class ConnectionLimits {
+    private final AtomicLongArray arrivals;
+    private final int[] targets;
+    private int targetCount;
+    private long targetWindowStart;
+    private int violations;
+    private long violationWindowStart;
+
+    ConnectionLimits(int types, int maxTargets, long now) {
+        this.arrivals = new AtomicLongArray(types);
+        this.targets = new int[maxTargets];
+        this.targetWindowStart = now;
+        this.violationWindowStart = now;
+        for (int i = 0; i < types; i++) {
+            arrivals.set(i, now);
+        }
+    }
+
+    /**
+     * @param interval  nanos between frames at the sustained rate
+     * @param tolerance nanos a burst may run ahead of that rate
+     */
+    boolean tryAcquire(int slot, long now, long interval, long tolerance) {
+        while (true) {
+            long arrival = arrivals.get(slot);
+            long base = arrival - now > 0 ? arrival : now;
+            if (base - now > tolerance) {
+                return false;
+            }
+            if (arrivals.compareAndSet(slot, arrival, base + interval)) {
+                return true;
+            }
+        }
+    }
+
+    synchronized boolean admitTarget(int target, long now, long window) {
+        if (now - targetWindowStart >= window) {
+            targetWindowStart = now;
+            targetCount = 0;
+        }
+        for (int i = 0; i < targetCount; i++) {
+            if (targets[i] == target) {
+                return true;
+            }
+        }
+        if (targetCount == targets.length) {
+            return false;
+        }
+        targets[targetCount++] = target;
+        return true;
+    }
+
+    /**
+     * @return violations in the current window, including this one
+     */
+    synchronized int recordViolation(long now, long window) {
+        if (now - violationWindowStart >= window) {
+            violationWindowStart = now;
+            violations = 0;
+        }
+        return ++violations;
+    }
+}
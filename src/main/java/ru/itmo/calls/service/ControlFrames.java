@@ -0,0 +1,38 @@
+package ru.itmo.calls.service;
+
+import org.springframework.web.socket.TextMessage;
+import ru.itmo.calls.model.SignalType;
+
+public final class ControlFrames {
+    public static final FrameTemplate PING = FrameTemplate.envelope(SignalType.PING, "to");
+    public static final FrameTemplate PONG = FrameTemplate.envelope(SignalType.PONG, "to");
+    public static final FrameTemplate INCOMING_CALL = FrameTemplate.envelope(SignalType.INCOMING_CALL, "from", "to");
+    public static final FrameTemplate CALL_END = FrameTemplate.envelope(SignalType.CALL_END, "from", "to");
+    public static final FrameTemplate ROOM_CREATED = FrameTemplate.envelope(SignalType.ROOM_CREATED, "to");
+    public static final FrameTemplate ROOM_MEMBER_JOINED =
+            FrameTemplate.envelope(SignalType.ROOM_MEMBER_JOINED, "from", "to");
+    public static final FrameTemplate ROOM_MEMBER_LEFT =
+            FrameTemplate.envelope(SignalType.ROOM_MEMBER_LEFT, "from", "to");
+    public static final FrameTemplate ROOM_INVITED = FrameTemplate.envelope(SignalType.ROOM_INVITED, "from", "to");
+
+    public static final TextMessage AUTH_SUCCESS =
+            new TextMessage(FrameTemplate.envelope(SignalType.AUTH_SUCCESS).encode());
+
+    public static TextMessage json(SignalType type, Integer from, Integer to) {
+        return switch (type) {
+            case PING -> new TextMessage(PING.fill(to));
+            case PONG -> new TextMessage(PONG.fill(to));
+            case INCOMING_CALL -> new TextMessage(INCOMING_CALL.fill(from, to));
+            case CALL_END -> new TextMessage(CALL_END.fill(from, to));
+            case ROOM_CREATED -> new TextMessage(ROOM_CREATED.fill(to));
+            case ROOM_MEMBER_JOINED -> new TextMessage(ROOM_MEMBER_JOINED.fill(from, to));
+            case ROOM_MEMBER_LEFT -> new TextMessage(ROOM_MEMBER_LEFT.fill(from, to));
+            case ROOM_INVITED -> new TextMessage(ROOM_INVITED.fill(from, to));
+            case AUTH_SUCCESS -> AUTH_SUCCESS;
+            default -> throw new IllegalArgumentException("No control frame template for " + type);
+        };
+    }
+
+    private ControlFrames() {
+    }
+}
@@ -0,0 +1,221 @@
+package ru.itmo.calls.service;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import ru.itmo.calls.config.DrainConfig;
+import ru.itmo.calls.model.DrainState;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Takes the node out of service without dropping every client at once. Once draining,
+ * new handshakes are refused; each idle user, and each user in a call once the call ends
+ * or {@code call-deadline} passes, gets a {@code RECONNECT} frame with a delay drawn
+ * uniformly from {@code reconnect-window}, and their session is closed when that delay
+ * runs out. Reconnects and re-authentication therefore reach the other nodes spread over
+ * the window. Runs on shutdown before the web server stops, or from the {@code drain}
+ * actuator endpoint.
+ */
+@Service
+public class DrainService implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(DrainService.class);
+    private static final String RECONNECT_ATTRIBUTE = "drainReconnect";
+    private static final CloseStatus DRAIN_CLOSE = CloseStatus.SERVICE_RESTARTED.withReason("Node is draining");
+    /** Extra time given to the last closes to complete before the drain is reported done anyway. */
+    private static final long CLOSE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final DrainConfig config;
+    private final OnlineUsersService onlineUsersService;
+    private final CallRegistry callRegistry;
+    private final OutboundQueueService outboundQueueService;
+    private final WireCodec wireCodec;
+    private final ScheduledExecutorService drainScheduler;
+
+    private final AtomicInteger notified = new AtomicInteger();
+    private final AtomicInteger pendingCloses = new AtomicInteger();
+    private final CompletableFuture<Void> drained = new CompletableFuture<>();
+
+    private volatile DrainState state = DrainState.RUNNING;
+    private volatile boolean running;
+    private volatile Instant startedAt;
+    private long callDeadline;
+    private long giveUpAt;
+    private ScheduledFuture<?> checks;
+
+    public DrainService(
+            DrainConfig config,
+            OnlineUsersService onlineUsersService,
+            CallRegistry callRegistry,
+            OutboundQueueService outboundQueueService,
+            WireCodec wireCodec,
+            @Qualifier("drainScheduler") ScheduledExecutorService drainScheduler
+    ) {
+        this.config = config;
+        this.onlineUsersService = onlineUsersService;
+        this.callRegistry = callRegistry;
+        this.outboundQueueService = outboundQueueService;
+        this.wireCodec = wireCodec;
+        this.drainScheduler = drainScheduler;
+    }
+
+    /**
+     * @return {@code false} if the node is already draining
+     */
+    public synchronized boolean startDrain() {
+        if (state != DrainState.RUNNING) {
+            return false;
+        }
+        state = DrainState.DRAINING;
+        startedAt = Instant.now();
+        long now = System.nanoTime();
+        callDeadline = now + config.getCallDeadline().toNanos();
+        giveUpAt = callDeadline + config.getReconnectWindow().toNanos() + CLOSE_GRACE_NANOS;
+        log.info(
+                "Draining: {} users online, {} calls active, call deadline {}, reconnect window {}",
+                onlineUsersService.getOnlineCount(), callRegistry.getActiveCount(),
+                config.getCallDeadline(), config.getReconnectWindow()
+        );
+
+        long interval = config.getCheckInterval().toNanos();
+        checks = drainScheduler.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    public boolean isDraining() {
+        return state != DrainState.RUNNING;
+    }
+
+    public DrainState getState() {
+        return state;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public int getNotified() {
+        return notified.get();
+    }
+
+    /**
+     * Sessions closed by the drain are not kept for resumption: the client is expected
+     * on another node.
+     */
+    public static boolean isClosedByDrain(Connection session) {
+        return session.getAttributes().containsKey(RECONNECT_ATTRIBUTE);
+    }
+
+    private void check() {
+        try {
+            long now = System.nanoTime();
+            boolean pastDeadline = now - callDeadline >= 0;
+            int[] inCall = new int[1];
+
+            onlineUsersService.forEachOnline((userId, session) -> {
+                if (session.getAttributes().containsKey(RECONNECT_ATTRIBUTE)) {
+                    return;
+                }
+                if (!pastDeadline && callRegistry.find(userId) != null) {
+                    inCall[0]++;
+                    return;
+                }
+                requestReconnect(userId, session);
+            });
+
+            if (onlineUsersService.getOnlineCount() == 0 && pendingCloses.get() == 0) {
+                finish();
+            } else if (now - giveUpAt >= 0) {
+                log.warn("Drain deadline passed with {} users still online", onlineUsersService.getOnlineCount());
+                finish();
+            } else if (inCall[0] > 0) {
+                log.debug("Draining: waiting for {} users in a call", inCall[0]);
+            }
+        } catch (RuntimeException e) {
+            log.error("Drain check failed", e);
+        }
+    }
+
+    private void requestReconnect(int userId, Connection session) {
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(1, config.getReconnectWindow().toMillis()));
+        session.getAttributes().put(RECONNECT_ATTRIBUTE, delay);
+
+        String payload = "{\"delay\":" + delay + "}";
+        SignalFrame frame = new SignalFrame(
+                SignalType.RECONNECT, null, userId, WireFormat.JSON, payload, null, 0, payload.length()
+        );
+        if (!outboundQueueService.send(session, frame.type(), wireCodec.encode(WireFormat.of(session.getAttributes()), frame))) {
+            log.warn("Outbound queue full, reconnect hint to user {} dropped", userId);
+        }
+        notified.incrementAndGet();
+
+        pendingCloses.incrementAndGet();
+        drainScheduler.schedule(() -> close(userId, session), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void close(int userId, Connection session) {
+        try {
+            if (session.isOpen()) {
+                // The session's writer closes it, so the close never races a send in progress
+                outboundQueueService.closeAfterDrain(session, DRAIN_CLOSE);
+                log.debug("Closing session of user {} after its reconnect delay", userId);
+            }
+        } finally {
+            pendingCloses.decrementAndGet();
+        }
+    }
+
+    private synchronized void finish() {
+        if (state == DrainState.DRAINED) {
+            return;
+        }
+        state = DrainState.DRAINED;
+        checks.cancel(false);
+        log.info("Drained: {} users told to reconnect", notified.get());
+        drained.complete(null);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Drains before the web server shuts down; keep
+     * {@code spring.lifecycle.timeout-per-shutdown-phase} above the call deadline plus the
+     * reconnect window.
+     */
+    @Override
+    public void stop(Runnable callback) {
+        running = false;
+        if (!config.isOnShutdown()) {
+            callback.run();
+            return;
+        }
+        startDrain();
+        drained.whenComplete((result, error) -> callback.run());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
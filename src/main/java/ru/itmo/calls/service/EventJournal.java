@@ -0,0 +1,153 @@
+package ru.itmo.calls.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.JournalConfig;
+import ru.itmo.calls.model.JournalEvent;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Structured record of connection, auth, routing and delivery events, written as
+ * fixed-size binary records to a {@link JournalFile} by a single writer thread. Recording
+ * claims a slot in a lock-free {@link JournalBuffer} and never blocks or allocates;
+ * payloads are omitted unless sampled. Decode the file with {@code ru.itmo.calls.cli.JournalDump}.
+ */
+@Service
+public class EventJournal {
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+    private static final String CONNECTION_ID_ATTRIBUTE = "journalConnectionId";
+
+    private final JournalConfig config;
+    private final JournalBuffer buffer;
+    private final AtomicLong connectionIds = new AtomicLong();
+
+    private volatile boolean running;
+    private JournalFile file;
+    private Thread writer;
+
+    public EventJournal(JournalConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.buffer = new JournalBuffer(config.getBufferSize());
+        FunctionCounter.builder("signalling.journal.dropped", buffer, JournalBuffer::getDropped)
+                .description("Journal events dropped because the writer fell behind")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        file = JournalFile.open(Path.of(config.getPath()), config.getCapacity());
+        running = true;
+        writer = Thread.ofPlatform().name("event-journal").daemon().start(this::writeLoop);
+        log.info("Event journal writing to {}", config.getPath());
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+        file.close();
+    }
+
+    public void record(JournalEvent event, Connection session, SignalType type, Integer from, Integer to, int value) {
+        if (running) {
+            append(event, connectionId(session), type, from, to, value, null);
+        }
+    }
+
+    /**
+     * Records a frame with its payload size and, if sampled, the start of its payload.
+     */
+    public void recordFrame(JournalEvent event, Connection session, SignalFrame frame, Integer from) {
+        if (running) {
+            append(event, connectionId(session), frame.type(), from, frame.to(), frame.payloadLength(), frame);
+        }
+    }
+
+    private void append(
+            JournalEvent event,
+            long connectionId,
+            SignalType type,
+            Integer from,
+            Integer to,
+            int value,
+            SignalFrame frame
+    ) {
+        long sequence = buffer.claim();
+        if (sequence < 0) {
+            return;
+        }
+        long[] slots = buffer.slots();
+        int offset = buffer.offset(sequence);
+
+        int sampleLength = frame != null && sampled() ? Math.min(JournalFile.SAMPLE_SIZE, frame.payloadLength()) : 0;
+        boolean binary = sampleLength > 0 && frame.format() == WireFormat.BINARY;
+        JournalFile.encode(
+                slots, offset, System.currentTimeMillis(), connectionId, event, type, from, to, value,
+                sampleLength, binary ? JournalFile.FLAG_BINARY_SAMPLE : 0
+        );
+        for (int i = 0; i < sampleLength; i++) {
+            int position = frame.payloadStart() + i;
+            JournalFile.putSample(slots, offset, i, binary ? frame.bytes()[position] : printable(frame.text().charAt(position)));
+        }
+        buffer.publish(sequence);
+    }
+
+    private boolean sampled() {
+        int rate = config.getPayloadSampleRate();
+        return rate > 0 && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    private static int printable(char c) {
+        return c >= 0x20 && c < 0x7F ? c : '?';
+    }
+
+    /**
+     * Connection ids are assigned on first use and are unique for the life of the process.
+     */
+    private long connectionId(Connection session) {
+        if (session == null) {
+            return 0;
+        }
+        Long id = (Long) session.getAttributes().get(CONNECTION_ID_ATTRIBUTE);
+        if (id == null) {
+            id = (Long) session.getAttributes().computeIfAbsent(
+                    CONNECTION_ID_ATTRIBUTE, key -> connectionIds.incrementAndGet()
+            );
+        }
+        return id;
+    }
+
+    private void writeLoop() {
+        long idleNanos = config.getIdleWait().toNanos();
+        while (running) {
+            if (buffer.drainTo(file) > 0) {
+                file.commit();
+            } else {
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+        buffer.drainTo(file);
+        file.commit();
+    }
+}
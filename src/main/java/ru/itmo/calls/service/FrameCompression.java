@@ -0,0 +1,133 @@
+package ru.itmo.calls.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.CompressionConfig;
+import ru.itmo.calls.exception.InvalidMessageException;
+
+/**
+ * Deflate for binary-subprotocol payloads, negotiated with the {@value #SUB_PROTOCOL}
+ * subprotocol. Works like permessage-deflate, but adds a preset SDP dictionary and skips
+ * frames below a size threshold. Server-to-client frames may share one deflate context
+ * per session; client-to-server frames are always compressed independently.
+ */
+@Service
+public class FrameCompression {
+    public static final String SUB_PROTOCOL = "signalling.bin.v1+deflate";
+
+    private final CompressionConfig config;
+    private final byte[] dictionary;
+
+    private final DistributionSummary rawBytes;
+    private final DistributionSummary savedBytes;
+    private final Timer deflateTime;
+    private final Timer inflateTime;
+    private final Counter skippedFrames;
+
+    public FrameCompression(CompressionConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.dictionary = config.isPresetDictionary() ? SdpDictionary.bytes() : null;
+
+        this.rawBytes = DistributionSummary.builder("signalling.compression.raw")
+                .description("Payload size of deflated frames before compression")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.savedBytes = DistributionSummary.builder("signalling.compression.saved")
+                .description("Bytes saved per deflated frame")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.deflateTime = Timer.builder("signalling.compression.deflate")
+                .description("Time spent deflating one outbound frame")
+                .register(meterRegistry);
+        this.inflateTime = Timer.builder("signalling.compression.inflate")
+                .description("Time spent inflating one inbound frame")
+                .register(meterRegistry);
+        this.skippedFrames = Counter.builder("signalling.compression.skipped")
+                .description("Outbound frames sent uncompressed because they were below the size threshold")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public boolean isNegotiated(String acceptedProtocol) {
+        return config.isEnabled() && SUB_PROTOCOL.equals(acceptedProtocol);
+    }
+
+    /**
+     * Deflates the session's outbound frames from now on. Called before anything is
+     * queued, so a shared deflate context sees every compressed frame in send order.
+     */
+    public void attach(OutboundQueue queue) {
+        Deflater deflater = new Deflater(config.getLevel(), true);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        queue.useDeflater(new FrameDeflater(
+                deflater, dictionary, config.isServerContextTakeover(), config.getMinFrameSize(), this
+        ));
+    }
+
+    /**
+     * Inflates a client payload, which must be a complete raw deflate block compressed
+     * on its own with the same preset dictionary.
+     */
+    public byte[] inflate(byte[] source, int offset, int length) {
+        if (!config.isEnabled()) {
+            throw new InvalidMessageException("Compression is not enabled");
+        }
+
+        long start = System.nanoTime();
+        int maxSize = config.getMaxInflatedSize();
+        Inflater inflater = new Inflater(true);
+
+        try {
+            if (dictionary != null) {
+                inflater.setDictionary(dictionary);
+            }
+            inflater.setInput(source, offset, length);
+
+            byte[] out = new byte[Math.min(Math.max(length * 4, 256), maxSize)];
+            int size = 0;
+            while (!inflater.finished()) {
+                if (size == out.length) {
+                    if (out.length >= maxSize) {
+                        throw new InvalidMessageException("Inflated payload exceeds " + maxSize + " bytes");
+                    }
+                    out = Arrays.copyOf(out, Math.min(out.length * 2, maxSize));
+                }
+                int inflated = inflater.inflate(out, size, out.length - size);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                size += inflated;
+            }
+            return size == out.length ? out : Arrays.copyOf(out, size);
+        } catch (DataFormatException e) {
+            throw new InvalidMessageException("Malformed compressed payload: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+            inflateTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordDeflated(int rawLength, int deflatedLength, long nanos) {
+        rawBytes.record(rawLength);
+        savedBytes.record(rawLength - deflatedLength);
+        deflateTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordSkipped() {
+        skippedFrames.increment();
+    }
+}
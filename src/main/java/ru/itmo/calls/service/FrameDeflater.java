@@ -0,0 +1,88 @@
+package ru.itmo.calls.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Per-session deflater, used only from the session's outbound writer. With context
+ * takeover each frame ends in a sync flush and the next one continues the same stream.
+ */
+final class FrameDeflater {
+    private final Deflater deflater;
+    private final byte[] dictionary;
+    private final boolean contextTakeover;
+    private final int minFrameSize;
+    private final FrameCompression compression;
+
+    FrameDeflater(
+            Deflater deflater,
+            byte[] dictionary,
+            boolean contextTakeover,
+            int minFrameSize,
+            FrameCompression compression
+    ) {
+        this.deflater = deflater;
+        this.dictionary = dictionary;
+        this.contextTakeover = contextTakeover;
+        this.minFrameSize = minFrameSize;
+        this.compression = compression;
+    }
+
+    WebSocketMessage<?> deflate(WebSocketMessage<?> message) {
+        if (!(message instanceof BinaryMessage binary)) {
+            return message;
+        }
+
+        ByteBuffer buffer = binary.getPayload();
+        if (buffer.remaining() < minFrameSize || !buffer.hasArray()) {
+            compression.recordSkipped();
+            return message;
+        }
+
+        long start = System.nanoTime();
+        byte[] frame = buffer.array();
+        int offset = buffer.arrayOffset() + buffer.position();
+        int limit = offset + buffer.remaining();
+        int payloadStart = BinaryFrameCodec.payloadOffset(frame, offset, limit);
+        int headerLength = payloadStart - offset;
+        int payloadLength = limit - payloadStart;
+
+        if (!contextTakeover) {
+            deflater.reset();
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+        }
+        deflater.setInput(frame, payloadStart, payloadLength);
+
+        byte[] out = new byte[headerLength + payloadLength / 2 + 64];
+        System.arraycopy(frame, offset, out, 0, headerLength);
+        out[1] |= BinaryFrameCodec.FLAG_DEFLATED;
+
+        int size = headerLength;
+        while (true) {
+            size += deflater.deflate(out, size, out.length - size, Deflater.SYNC_FLUSH);
+            if (size < out.length) {
+                break;
+            }
+            out = Arrays.copyOf(out, out.length * 2);
+        }
+
+        // Without a shared context nothing depends on this output, so incompressible frames go out as they are
+        if (!contextTakeover && size >= limit - offset) {
+            compression.recordSkipped();
+            return message;
+        }
+
+        compression.recordDeflated(payloadLength, size - headerLength, System.nanoTime() - start);
+        return new BinaryMessage(ByteBuffer.wrap(out, 0, size));
+    }
+
+    void close() {
+        deflater.end();
+    }
+}
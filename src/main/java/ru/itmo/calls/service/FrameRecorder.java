@@ -0,0 +1,13 @@
+package ru.itmo.calls.service;
+
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.model.SignalType;
+
+/**
+ * Observes frames in the order the outbound writer takes them for the socket, followed on
+ * close by those it never got to.
+ */
+@FunctionalInterface
+interface FrameRecorder {
+    void record(SignalType type, WebSocketMessage<?> message);
+}
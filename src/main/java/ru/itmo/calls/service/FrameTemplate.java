@@ -0,0 +1,60 @@
+package ru.itmo.calls.service;
+
+import ru.itmo.calls.model.SignalType;
+
+/**
+ * Pre-encoded JSON envelope whose only variable parts are integer fields.
+ * Filling a template is a single string concatenation, with no Jackson involved.
+ */
+public final class FrameTemplate {
+    private final SignalType type;
+    private final String[] parts;
+
+    private FrameTemplate(SignalType type, String[] parts) {
+        this.type = type;
+        this.parts = parts;
+    }
+
+    /**
+     * Builds the template for {@code {"type":"<type>","<field1>":<int>,...}}, matching
+     * what {@code ObjectMapper} produces for the equivalent {@code SignalMessage}.
+     */
+    public static FrameTemplate envelope(SignalType type, String... intFields) {
+        String[] parts = new String[intFields.length + 1];
+        StringBuilder part = new StringBuilder("{\"type\":\"").append(type.name()).append('"');
+        for (int i = 0; i < intFields.length; i++) {
+            part.append(",\"").append(intFields[i]).append("\":");
+            parts[i] = part.toString();
+            part.setLength(0);
+        }
+        parts[intFields.length] = part.append('}').toString();
+        return new FrameTemplate(type, parts);
+    }
+
+    public SignalType type() {
+        return type;
+    }
+
+    public String encode() {
+        requireSlots(0);
+        return parts[0];
+    }
+
+    public String fill(int value) {
+        requireSlots(1);
+        return parts[0] + value + parts[1];
+    }
+
+    public String fill(int first, int second) {
+        requireSlots(2);
+        return parts[0] + first + parts[1] + second + parts[2];
+    }
+
+    private void requireSlots(int count) {
+        if (parts.length != count + 1) {
+            throw new IllegalStateException(
+                    "Template for " + type + " has " + (parts.length - 1) + " slots, got " + count
+            );
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.itmo.calls.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.ClusterConfig;
+import ru.itmo.calls.model.PresenceChange;
+
+/**
+ * Directory for nodes in separate processes. Each node announces its own users' connects
+ * and disconnects to every peer over the cluster transport, and all of its current users
+ * whenever a link to a peer connects, so a restarted node catches up. The users of a peer
+ * whose connection drops are forgotten until it connects again. Lookups never leave the
+ * node.
+ */
+@Service
+@ConditionalOnProperty(name = "signalling.cluster.directory", havingValue = "gossip")
+public class GossipPresenceDirectory implements PresenceDirectory, PresenceGossip {
+    private final ClusterConfig config;
+    private final ObjectProvider<NodeTransport> nodeTransport;
+
+    private final Set<Integer> local = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, String> remote = new ConcurrentHashMap<>();
+
+    private NodeTransport transport;
+
+    public GossipPresenceDirectory(ClusterConfig config, ObjectProvider<NodeTransport> nodeTransport) {
+        this.config = config;
+        this.nodeTransport = nodeTransport;
+    }
+
+    @PostConstruct
+    void attach() {
+        transport = config.isEnabled() ? nodeTransport.getIfAvailable() : null;
+        if (transport != null) {
+            transport.setGossip(this);
+        }
+    }
+
+    @Override
+    public void register(int userId, String nodeId) {
+        if (local.add(userId) && transport != null) {
+            transport.publish(new PresenceChange(userId, true));
+        }
+    }
+
+    @Override
+    public void unregister(int userId, String nodeId) {
+        if (local.remove(userId) && transport != null) {
+            transport.publish(new PresenceChange(userId, false));
+        }
+    }
+
+    @Override
+    public String lookup(int userId) {
+        return local.contains(userId) ? config.getNodeId() : remote.get(userId);
+    }
+
+    @Override
+    public int[] localUsers() {
+        return local.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public void peerReset(String nodeId) {
+        remote.values().removeIf(nodeId::equals);
+    }
+
+    @Override
+    public void peerChanged(String nodeId, PresenceChange change) {
+        if (change.online()) {
+            remote.put(change.userId(), nodeId);
+        } else {
+            remote.remove(change.userId(), nodeId);
+        }
+    }
+}
@@ -1,29 +1,31 @@
 package ru.itmo.calls.service;
 
-import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
-import ru.itmo.calls.model.SignalMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+import ru.itmo.calls.transport.Connection;
 
 @Service
 public class HeartbeatService {
     private static final Logger log = LoggerFactory.getLogger(HeartbeatService.class);
+    private static final String LIVENESS_ATTRIBUTE = "liveness";
+    private static final int WHEEL_SIZE = 512;
 
-    private final OnlineUsersService onlineUsersService;
-    private final ObjectMapper objectMapper;
+    private final OutboundQueueService outboundQueueService;
+    private final WireCodec wireCodec;
+    private final SignallingMetrics metrics;
 
-    private final ConcurrentHashMap<Integer, Long> lastActivity = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Integer, Integer> missedPings = new ConcurrentHashMap<>();
+    private TimingWheel<Liveness> wheel;
 
     @Value("${signalling.heartbeat.interval:30000}")
     private long heartbeatInterval;
@@ -34,71 +36,124 @@ public class HeartbeatService {
     @Value("${signalling.heartbeat.max-missed-pings:2}")
     private int maxMissedPings;
 
-    public HeartbeatService(OnlineUsersService onlineUsersService, ObjectMapper objectMapper) {
-        this.onlineUsersService = onlineUsersService;
-        this.objectMapper = objectMapper;
+    @Value("${signalling.heartbeat.jitter:5000}")
+    private long heartbeatJitter;
+
+    @Value("${signalling.heartbeat.tick:1000}")
+    private long tickDuration;
+
+    public HeartbeatService(
+            OutboundQueueService outboundQueueService,
+            WireCodec wireCodec,
+            SignallingMetrics metrics
+    ) {
+        this.outboundQueueService = outboundQueueService;
+        this.wireCodec = wireCodec;
+        this.metrics = metrics;
     }
 
-    public void recordActivity(Integer userId) {
-        lastActivity.put(userId, System.currentTimeMillis());
-        missedPings.put(userId, 0);
+    @PostConstruct
+    void initWheel() {
+        wheel = new TimingWheel<>(TimeUnit.MILLISECONDS.toNanos(tickDuration), WHEEL_SIZE, System.nanoTime());
     }
 
-    public void handlePong(Integer userId) {
-        recordActivity(userId);
-        log.trace("Received pong from user {}", userId);
+    public void startTracking(Integer userId, Connection session) {
+        WebSocketMessage<?> ping = wireCodec.encodeControl(
+                WireFormat.of(session.getAttributes()), SignalType.PING, null, userId
+        );
+        Liveness liveness = new Liveness(userId, session, ping);
+        Liveness previous = (Liveness) session.getAttributes().put(LIVENESS_ATTRIBUTE, liveness);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        scheduleNext(liveness, liveness.lastActivity);
     }
 
-    public void removeUser(Integer userId) {
-        lastActivity.remove(userId);
-        missedPings.remove(userId);
+    public void recordActivity(Connection session) {
+        Liveness liveness = (Liveness) session.getAttributes().get(LIVENESS_ATTRIBUTE);
+        if (liveness != null) {
+            liveness.lastActivity = System.nanoTime();
+        }
     }
 
-    @Scheduled(fixedDelayString = "${signalling.heartbeat.interval:30000}")
-    public void sendHeartbeats() {
-        long currentTime = System.currentTimeMillis();
+    public void handlePong(Connection session) {
+        recordActivity(session);
+        log.trace("Received pong on session {}", session.getId());
+    }
 
-        for (Integer userId : onlineUsersService.getOnlineUsers()) {
-            WebSocketSession session = onlineUsersService.getSession(userId);
+    public void stopTracking(Connection session) {
+        Liveness liveness = (Liveness) session.getAttributes().remove(LIVENESS_ATTRIBUTE);
+        if (liveness != null) {
+            liveness.cancelled = true;
+        }
+    }
 
-            if (session == null || !session.isOpen()) {
-                continue;
-            }
+    @Scheduled(fixedRateString = "${signalling.heartbeat.tick:1000}")
+    public synchronized void tick() {
+        long start = metrics.startTimer();
+        wheel.advance(System.nanoTime(), this::checkLiveness);
+        metrics.heartbeatSwept(start);
+    }
 
-            Long lastActivityTime = lastActivity.get(userId);
-            if (lastActivityTime == null) {
-                recordActivity(userId);
-                continue;
-            }
+    private void checkLiveness(Liveness liveness) {
+        Connection session = liveness.session;
+        if (liveness.cancelled || !session.isOpen()) {
+            return;
+        }
 
-            long timeSinceLastActivity = currentTime - lastActivityTime;
-
-            if (timeSinceLastActivity > heartbeatTimeout) {
-                int missed = missedPings.getOrDefault(userId, 0) + 1;
-                missedPings.put(userId, missed);
-
-                if (missed > maxMissedPings) {
-                    log.warn(
-                            "User {} failed to respond to {} pings, closing connection",
-                            userId, missed
-                    );
-                    try {
-                        session.close(CloseStatus.GOING_AWAY.withReason("Heartbeat timeout"));
-                    } catch (IOException e) {
-                        log.error("Failed to close session for user {}", userId, e);
-                    }
-                    continue;
-                }
-            }
+        long now = System.nanoTime();
+        long lastActivity = liveness.lastActivity;
+        long idle = now - lastActivity;
 
-            try {
-                SignalMessage ping = new SignalMessage(SignalType.PING, null, userId, null);
-                String pingMessage = objectMapper.writeValueAsString(ping);
-                session.sendMessage(new TextMessage(pingMessage));
-                log.trace("Sent ping to user {}", userId);
-            } catch (Exception e) {
-                log.error("Failed to send ping to user {}", userId, e);
+        if (idle < TimeUnit.MILLISECONDS.toNanos(heartbeatInterval)) {
+            liveness.missedPings = 0;
+            scheduleNext(liveness, lastActivity);
+            return;
+        }
+
+        if (idle > TimeUnit.MILLISECONDS.toNanos(heartbeatTimeout)) {
+            int missed = ++liveness.missedPings;
+
+            if (missed > maxMissedPings) {
+                log.warn(
+                        "User {} failed to respond to {} pings, closing connection",
+                        liveness.userId, missed
+                );
+                metrics.heartbeatTimedOut();
+                outboundQueueService.closeAfterDrain(session, CloseStatus.GOING_AWAY.withReason("Heartbeat timeout"));
+                return;
             }
+        } else {
+            liveness.missedPings = 0;
+        }
+
+        outboundQueueService.send(session, SignalType.PING, liveness.ping);
+        log.trace("Sent ping to user {}", liveness.userId);
+        scheduleNext(liveness, now);
+    }
+
+    /**
+     * Jitter spreads sessions that connected together over the wheel,
+     * so their pings don't all fall on the same tick.
+     */
+    private void scheduleNext(Liveness liveness, long fromNanos) {
+        long jitter = heartbeatJitter > 0 ? ThreadLocalRandom.current().nextLong(heartbeatJitter) : 0;
+        long deadline = fromNanos + TimeUnit.MILLISECONDS.toNanos(heartbeatInterval + jitter);
+        wheel.schedule(liveness, deadline);
+    }
+
+    private static final class Liveness {
+        private final Integer userId;
+        private final Connection session;
+        private final WebSocketMessage<?> ping;
+        private volatile long lastActivity = System.nanoTime();
+        private volatile boolean cancelled;
+        private int missedPings;
+
+        private Liveness(Integer userId, Connection session, WebSocketMessage<?> ping) {
+            this.userId = userId;
+            this.session = session;
+            this.ping = ping;
         }
     }
 }
@@ -0,0 +1,40 @@
+package ru.itmo.calls.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.ClusterConfig;
+
+/**
+ * Directory shared by every node running in the same JVM, keyed by cluster name.
+ * Lets several application contexts in one process form a cluster, as tests and
+ * benchmarks do; nodes in separate processes need {@link GossipPresenceDirectory}.
+ */
+@Service
+@ConditionalOnProperty(name = "signalling.cluster.directory", havingValue = "in-process", matchIfMissing = true)
+public class InProcessPresenceDirectory implements PresenceDirectory {
+    private static final Map<String, Map<Integer, String>> CLUSTERS = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String> locations;
+
+    public InProcessPresenceDirectory(ClusterConfig config) {
+        this.locations = CLUSTERS.computeIfAbsent(config.getName(), name -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void register(int userId, String nodeId) {
+        locations.put(userId, nodeId);
+    }
+
+    @Override
+    public void unregister(int userId, String nodeId) {
+        locations.remove(userId, nodeId);
+    }
+
+    @Override
+    public String lookup(int userId) {
+        return locations.get(userId);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.InboundConfig;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Moves routing of decoded frames off the container's I/O threads onto per-session
+ * {@link InboundMailbox mailboxes} drained by virtual threads.
+ */
+@Service
+public class InboundDispatcher {
+    private static final String INBOUND_MAILBOX_ATTRIBUTE = "inboundMailbox";
+
+    private final InboundConfig config;
+    private final ExecutorService inboundExecutor;
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    private volatile BiConsumer<Connection, SignalFrame> handler = (session, frame) -> { };
+
+    public InboundDispatcher(InboundConfig config, @Qualifier("inboundExecutor") ExecutorService inboundExecutor) {
+        this.config = config;
+        this.inboundExecutor = inboundExecutor;
+    }
+
+    public void onFrame(BiConsumer<Connection, SignalFrame> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @return {@code false} if the sender's mailbox is full and the frame was dropped
+     */
+    public boolean dispatch(Connection session, SignalFrame frame) {
+        if (!config.isEnabled()) {
+            handler.accept(session, frame);
+            return true;
+        }
+        backlog.incrementAndGet();
+        if (!getMailbox(session).offer(frame)) {
+            backlog.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return frames queued in all mailboxes and not yet routed
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Runs {@code then} once the frames the session already sent have been routed.
+     * The closed mailbox stays attached, so a frame dispatched late is dropped.
+     */
+    public void release(Connection session, Runnable then) {
+        InboundMailbox mailbox = (InboundMailbox) session.getAttributes().get(INBOUND_MAILBOX_ATTRIBUTE);
+        if (mailbox != null) {
+            mailbox.close(then);
+        } else if (then != null) {
+            then.run();
+        }
+    }
+
+    private void route(Connection session, SignalFrame frame) {
+        backlog.decrementAndGet();
+        handler.accept(session, frame);
+    }
+
+    private InboundMailbox getMailbox(Connection session) {
+        return (InboundMailbox) session.getAttributes().computeIfAbsent(
+                INBOUND_MAILBOX_ATTRIBUTE,
+                key -> new InboundMailbox(session, config.getMaxQueuedFrames(), inboundExecutor, this::route)
+        );
+    }
+}
@@ -0,0 +1,137 @@
+package ru.itmo.calls.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Bounded per-session inbound buffer. The I/O thread offers decoded frames; a single
+ * task drains them in arrival order, so a sender's candidates never overtake its offer
+ * and a slow route only delays that sender.
+ */
+public class InboundMailbox {
+    private static final Logger log = LoggerFactory.getLogger(InboundMailbox.class);
+
+    private final Connection session;
+    private final int capacity;
+    private final Executor executor;
+    private final BiConsumer<Connection, SignalFrame> handler;
+
+    private final Queue<SignalFrame> frames = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicReference<Runnable> onClosed = new AtomicReference<>();
+
+    private volatile boolean closed;
+
+    public InboundMailbox(
+            Connection session,
+            int capacity,
+            Executor executor,
+            BiConsumer<Connection, SignalFrame> handler
+    ) {
+        this.session = session;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.handler = handler;
+    }
+
+    /**
+     * @return {@code false} if the mailbox is full or closed and the frame was dropped
+     */
+    public boolean offer(SignalFrame frame) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        frames.offer(frame);
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Stops accepting frames. Frames already queued are still handled, then {@code then}
+     * runs on the mailbox's task, so it observes every frame the session sent.
+     */
+    public void close(Runnable then) {
+        closed = true;
+        onClosed.set(then != null ? then : () -> { });
+        scheduleDrain();
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                log.debug("Inbound executor is shut down, session {} not drained", session.getId());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            SignalFrame frame;
+            while ((frame = frames.poll()) != null) {
+                depth.decrementAndGet();
+                handle(frame);
+            }
+
+            if (closed) {
+                Runnable then = onClosed.getAndSet(null);
+                if (then != null) {
+                    then.run();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Closing inbound task failed for session {}", session.getId(), e);
+        } finally {
+            draining.set(false);
+        }
+
+        if (!frames.isEmpty() || onClosed.get() != null) {
+            scheduleDrain();
+        }
+    }
+
+    private void handle(SignalFrame frame) {
+        try {
+            handler.accept(session, frame);
+            processed.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.error("Unhandled error routing {} from session {}", frame.type(), session.getId(), e);
+        }
+    }
+}
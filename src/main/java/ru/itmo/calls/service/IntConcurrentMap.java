@@ -0,0 +1,295 @@
+package ru.itmo.calls.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent map specialised for {@code int} keys. Lookups are lock-free and never box;
+ * writes lock a single segment. Iteration is weakly consistent and copies nothing.
+ * <p>
+ * Slots use open addressing and a key is never overwritten within a table, so a reader
+ * that observes a value through the volatile values array always sees the matching key.
+ * Removed entries leave a tombstone that is only reclaimed when the segment is rehashed.
+ */
+public class IntConcurrentMap<V> {
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final Object TOMBSTONE = new Object();
+
+    private final Segment<V>[] segments;
+    private final AtomicInteger size = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    public IntConcurrentMap() {
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>(size);
+        }
+    }
+
+    @FunctionalInterface
+    public interface IntObjConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int hash = spread(key);
+        Table table = segmentFor(hash).table;
+        int mask = table.keys.length - 1;
+
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Object value = table.values.get(i);
+            if (value == null) {
+                return null;
+            }
+            if (value != TOMBSTONE && table.keys[i] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        int hash = spread(key);
+        return segmentFor(hash).put(key, hash, value, false);
+    }
+
+    /**
+     * Returns the current value, or {@code null} if {@code value} was inserted.
+     */
+    public V putIfAbsent(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        int hash = spread(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    public V remove(int key) {
+        int hash = spread(key);
+        return segmentFor(hash).remove(key, hash, null);
+    }
+
+    public boolean remove(int key, V expected) {
+        int hash = spread(key);
+        return segmentFor(hash).remove(key, hash, expected) != null;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjConsumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            Table table = segment.table;
+            for (int i = 0; i < table.keys.length; i++) {
+                Object value = table.values.get(i);
+                if (value != null && value != TOMBSTONE) {
+                    action.accept(table.keys[i], (V) value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} keys greater than {@code after}, in ascending order,
+     * without materialising the full key set.
+     */
+    public int[] keysAfter(long after, int limit) {
+        IntMaxHeap heap = new IntMaxHeap(limit);
+        for (Segment<V> segment : segments) {
+            Table table = segment.table;
+            for (int i = 0; i < table.keys.length; i++) {
+                Object value = table.values.get(i);
+                if (value != null && value != TOMBSTONE && table.keys[i] > after) {
+                    heap.offer(table.keys[i]);
+                }
+            }
+        }
+        return heap.toSortedArray();
+    }
+
+    private Segment<V> segmentFor(int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    private static int spread(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Table {
+        final int[] keys;
+        final AtomicReferenceArray<Object> values;
+
+        Table(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+        }
+    }
+
+    private static final class Segment<V> {
+        private final AtomicInteger size;
+        volatile Table table = new Table(INITIAL_SEGMENT_CAPACITY);
+        int used;
+        int live;
+
+        Segment(AtomicInteger size) {
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V put(int key, int hash, V value, boolean onlyIfAbsent) {
+            Table current = table;
+            int mask = current.keys.length - 1;
+
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                Object existing = current.values.get(i);
+                if (existing == null) {
+                    break;
+                }
+                if (current.keys[i] == key) {
+                    if (onlyIfAbsent && existing != TOMBSTONE) {
+                        return (V) existing;
+                    }
+                    current.values.set(i, value);
+                    if (existing == TOMBSTONE) {
+                        live++;
+                        size.incrementAndGet();
+                        return null;
+                    }
+                    return (V) existing;
+                }
+            }
+
+            if ((used + 1) * 4 > current.keys.length * 3) {
+                current = rehash(current);
+            }
+            insertNew(current, key, hash, value);
+            used++;
+            live++;
+            size.incrementAndGet();
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V remove(int key, int hash, V expected) {
+            Table current = table;
+            int mask = current.keys.length - 1;
+
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                Object existing = current.values.get(i);
+                if (existing == null) {
+                    return null;
+                }
+                if (existing != TOMBSTONE && current.keys[i] == key) {
+                    if (expected != null && existing != expected) {
+                        return null;
+                    }
+                    current.values.set(i, TOMBSTONE);
+                    live--;
+                    size.decrementAndGet();
+                    return (V) existing;
+                }
+            }
+        }
+
+        private Table rehash(Table current) {
+            int capacity = current.keys.length;
+            int newCapacity = (live + 1) * 2 > capacity ? capacity * 2 : capacity;
+            Table resized = new Table(newCapacity);
+
+            for (int i = 0; i < capacity; i++) {
+                Object value = current.values.get(i);
+                if (value != null && value != TOMBSTONE) {
+                    int key = current.keys[i];
+                    insertNew(resized, key, spread(key), value);
+                }
+            }
+
+            used = live;
+            table = resized;
+            return resized;
+        }
+
+        private void insertNew(Table target, int key, int hash, Object value) {
+            int mask = target.keys.length - 1;
+            int i = hash & mask;
+            while (target.values.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+            target.keys[i] = key;
+            target.values.set(i, value);
+        }
+    }
+
+    private static final class IntMaxHeap {
+        private final int[] heap;
+        private int size;
+
+        IntMaxHeap(int capacity) {
+            this.heap = new int[Math.max(capacity, 0)];
+        }
+
+        void offer(int value) {
+            if (size < heap.length) {
+                heap[size] = value;
+                siftUp(size++);
+            } else if (size > 0 && value < heap[0]) {
+                heap[0] = value;
+                siftDown(0);
+            }
+        }
+
+        int[] toSortedArray() {
+            int[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] >= heap[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int left = 2 * index + 1;
+                int largest = index;
+                if (left < size && heap[left] > heap[largest]) {
+                    largest = left;
+                }
+                if (left + 1 < size && heap[left + 1] > heap[largest]) {
+                    largest = left + 1;
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of journal records. Producers claim a
+ * sequence with a CAS, fill its slot in place and publish it; the writer copies published
+ * slots to the {@link JournalFile} in sequence order. A full ring rejects the claim
+ * instead of blocking the caller.
+ */
+final class JournalBuffer {
+    private final int mask;
+    private final long[] slots;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile long consumed;
+
+    JournalBuffer(int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size));
+        this.mask = capacity - 1;
+        this.slots = new long[capacity * JournalFile.RECORD_LONGS];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * @return the claimed sequence, or -1 if the ring is full
+     */
+    long claim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed > mask) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    long[] slots() {
+        return slots;
+    }
+
+    int offset(long sequence) {
+        return (int) (sequence & mask) * JournalFile.RECORD_LONGS;
+    }
+
+    void publish(long sequence) {
+        published.setRelease((int) (sequence & mask), sequence + 1);
+    }
+
+    /**
+     * Called by the single writer only.
+     *
+     * @return the number of records appended
+     */
+    int drainTo(JournalFile file) {
+        long sequence = consumed;
+        int drained = 0;
+        while (published.getAcquire((int) (sequence & mask)) == sequence + 1) {
+            file.append(slots, offset(sequence));
+            consumed = ++sequence;
+            drained++;
+        }
+        return drained;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,199 @@
+package ru.itmo.calls.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import ru.itmo.calls.model.JournalEvent;
+import ru.itmo.calls.model.JournalRecord;
+import ru.itmo.calls.model.SignalType;
+
+/**
+ * Memory-mapped ring of fixed-size event records. A 64-byte header holds the number of
+ * records ever written; record {@code n} lives in slot {@code n % capacity}, so the file
+ * never grows and always holds the most recent {@code capacity} events.
+ *
+ * <pre>
+ * record: 0  epoch millis        8  connection id
+ *         16 from | to           24 value | event | type | sample length | flags
+ *         32 up to 32 bytes of payload sample
+ * </pre>
+ */
+public final class JournalFile implements Closeable {
+    public static final int RECORD_SIZE = 64;
+    public static final int RECORD_LONGS = RECORD_SIZE / Long.BYTES;
+    public static final int SAMPLE_SIZE = 32;
+    public static final int FLAG_BINARY_SAMPLE = 1;
+
+    private static final int MAGIC = 0x534A524E;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int WRITTEN_OFFSET = 16;
+    private static final int NO_USER = -1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private long written;
+
+    private JournalFile(FileChannel channel, MappedByteBuffer buffer, int capacity, long written) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.written = written;
+    }
+
+    /**
+     * Continues an existing journal of the same capacity, or starts a new one.
+     */
+    public static JournalFile open(Path path, int capacity) throws IOException {
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        if (capacity <= 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal capacity must be between 1 and " + (Integer.MAX_VALUE / RECORD_SIZE - 1));
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        );
+        try {
+            boolean reuse = channel.size() == size;
+            if (!reuse) {
+                channel.truncate(0);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (reuse && hasHeader(buffer, capacity)) {
+                return new JournalFile(channel, buffer, capacity, buffer.getLong(WRITTEN_OFFSET));
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putLong(WRITTEN_OFFSET, 0);
+            return new JournalFile(channel, buffer, capacity, 0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Decodes the records still held by the journal, oldest first.
+     */
+    public static void read(Path path, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || !hasHeader(buffer, buffer.getInt(CAPACITY_OFFSET))) {
+                throw new IOException(path + " is not a signalling journal");
+            }
+            int capacity = buffer.getInt(CAPACITY_OFFSET);
+            long written = buffer.getLong(WRITTEN_OFFSET);
+            for (long n = Math.max(0, written - capacity); n < written; n++) {
+                consumer.accept(decode(buffer, position(n, capacity)));
+            }
+        }
+    }
+
+    /**
+     * Fills the fixed part of a record and clears its sample.
+     */
+    static void encode(
+            long[] slots,
+            int offset,
+            long epochMillis,
+            long connectionId,
+            JournalEvent event,
+            SignalType type,
+            Integer from,
+            Integer to,
+            int value,
+            int sampleLength,
+            int flags
+    ) {
+        slots[offset] = epochMillis;
+        slots[offset + 1] = connectionId;
+        slots[offset + 2] = (long) (from != null ? from : NO_USER) << 32 | ((to != null ? to : NO_USER) & 0xFFFFFFFFL);
+        slots[offset + 3] = (long) value << 32
+                | (long) event.code() << 24
+                | (long) (type != null ? type.code() : 0) << 16
+                | (long) sampleLength << 8
+                | flags;
+        for (int i = 4; i < RECORD_LONGS; i++) {
+            slots[offset + i] = 0;
+        }
+    }
+
+    /**
+     * Stores byte {@code index} of the payload sample in a record filled by {@link #encode}.
+     */
+    static void putSample(long[] slots, int offset, int index, int value) {
+        slots[offset + 4 + index / Long.BYTES] |= (long) (value & 0xFF) << (56 - 8 * (index % Long.BYTES));
+    }
+
+    void append(long[] slots, int offset) {
+        int position = position(written, capacity);
+        for (int i = 0; i < RECORD_LONGS; i++) {
+            buffer.putLong(position + i * Long.BYTES, slots[offset + i]);
+        }
+        written++;
+    }
+
+    /**
+     * Publishes the appended records to readers of the file.
+     */
+    void commit() {
+        buffer.putLong(WRITTEN_OFFSET, written);
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        buffer.force();
+        channel.close();
+    }
+
+    private static boolean hasHeader(ByteBuffer buffer, int capacity) {
+        return buffer.getInt(0) == MAGIC
+                && buffer.getInt(4) == VERSION
+                && buffer.getInt(8) == RECORD_SIZE
+                && buffer.getInt(CAPACITY_OFFSET) == capacity
+                && capacity > 0
+                && buffer.limit() >= HEADER_SIZE + (long) capacity * RECORD_SIZE;
+    }
+
+    private static int position(long record, int capacity) {
+        return HEADER_SIZE + (int) (record % capacity) * RECORD_SIZE;
+    }
+
+    private static JournalRecord decode(ByteBuffer buffer, int position) {
+        long users = buffer.getLong(position + 16);
+        long fields = buffer.getLong(position + 24);
+        int from = (int) (users >> 32);
+        int to = (int) users;
+        int sampleLength = Math.min(SAMPLE_SIZE, (int) (fields >> 8) & 0xFF);
+
+        byte[] sample = new byte[sampleLength];
+        buffer.get(position + 32, sample);
+
+        return new JournalRecord(
+                buffer.getLong(position),
+                buffer.getLong(position + 8),
+                JournalEvent.fromCode((int) (fields >> 24) & 0xFF),
+                SignalType.fromCode((int) (fields >> 16) & 0xFF),
+                from != NO_USER ? from : null,
+                to != NO_USER ? to : null,
+                (int) (fields >> 32),
+                sample,
+                (fields & FLAG_BINARY_SAMPLE) != 0
+        );
+    }
+}
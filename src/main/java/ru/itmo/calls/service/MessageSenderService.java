@@ -1,43 +1,281 @@
 package ru.itmo.calls.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.WebSocketMessage;
 import ru.itmo.calls.exception.UserOfflineException;
 import ru.itmo.calls.exception.MessageSendException;
+import ru.itmo.calls.model.ForwardedFrame;
+import ru.itmo.calls.model.JournalEvent;
+import ru.itmo.calls.model.SignalFrame;
 import ru.itmo.calls.model.SignalMessage;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+import ru.itmo.calls.model.payload.CallRejectReason;
+import ru.itmo.calls.transport.Connection;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @Service
 public class MessageSenderService {
     private static final Logger log = LoggerFactory.getLogger(MessageSenderService.class);
     
     private final OnlineUsersService onlineUsersService;
-    private final ObjectMapper objectMapper;
+    private final OutboundQueueService outboundQueueService;
+    private final WireCodec wireCodec;
+    private final ClusterRouter clusterRouter;
+    private final CandidateCoalescer candidateCoalescer;
+    private final CallRegistry callRegistry;
+    private final ResumeService resumeService;
+    private final SignallingMetrics metrics;
+    private final EventJournal journal;
     
-    public MessageSenderService(OnlineUsersService onlineUsersService, ObjectMapper objectMapper) {
+    public MessageSenderService(
+            OnlineUsersService onlineUsersService,
+            OutboundQueueService outboundQueueService,
+            WireCodec wireCodec,
+            ClusterRouter clusterRouter,
+            CandidateCoalescer candidateCoalescer,
+            CallRegistry callRegistry,
+            ResumeService resumeService,
+            SignallingMetrics metrics,
+            EventJournal journal
+    ) {
         this.onlineUsersService = onlineUsersService;
-        this.objectMapper = objectMapper;
+        this.outboundQueueService = outboundQueueService;
+        this.wireCodec = wireCodec;
+        this.clusterRouter = clusterRouter;
+        this.candidateCoalescer = candidateCoalescer;
+        this.callRegistry = callRegistry;
+        this.resumeService = resumeService;
+        this.metrics = metrics;
+        this.journal = journal;
+        clusterRouter.onForwarded(this::deliverForwarded);
+        clusterRouter.onUndeliverable(this::undeliverable);
+        candidateCoalescer.onFlush(this::deliverBatch);
     }
 
     public void sendMessage(Integer userId, SignalMessage message) {
-        WebSocketSession session = onlineUsersService.getSession(userId);
+        long start = metrics.startTimer();
+        Connection session = localSession(userId);
         
-        if (session == null || !session.isOpen()) {
+        try {
+            if (session == null) {
+                if (resumeService.offer(userId, message.type(), format -> encodeUnchecked(format, message))) {
+                    journal.record(JournalEvent.BUFFERED, null, message.type(), message.from(), userId, 0);
+                } else {
+                    forward(userId, wireCodec.toFrame(message));
+                }
+                return;
+            }
+            enqueue(userId, session, message.type(), wireCodec.encode(formatOf(session), message));
+        } catch (IOException | UncheckedIOException e) {
+            metrics.sendFailed(false);
+            log.error("Failed to send message to user {}", userId, e);
+            throw new MessageSendException(userId, e);
+        } finally {
+            metrics.messageSent(start);
+        }
+    }
+
+    public void sendFrame(Integer userId, SignalFrame frame) {
+        long start = metrics.startTimer();
+        try {
+            Connection session = localSession(userId);
+            if (session == null) {
+                if (!offerDetached(userId, frame)) {
+                    forward(userId, frame);
+                }
+                return;
+            }
+            deliver(userId, session, frame);
+        } finally {
+            metrics.frameSent(start);
+        }
+    }
+
+    /**
+     * Sends one recipient's copy of a fan-out frame. Local recipients share the message
+     * encoded for their wire format; the frame is never coalesced or re-encoded per user.
+     */
+    public void sendShared(Integer userId, SharedFrame shared) {
+        long start = metrics.startTimer();
+        SignalFrame frame = shared.frame();
+        try {
+            Connection session = localSession(userId);
+            if (session == null) {
+                if (resumeService.offer(userId, frame.type(), shared::encoded)) {
+                    journal.record(JournalEvent.BUFFERED, null, frame.type(), frame.from(), userId, frame.payloadLength());
+                } else {
+                    forward(userId, frame);
+                }
+                return;
+            }
+            enqueue(userId, session, frame.type(), shared.encoded(formatOf(session)));
+        } finally {
+            metrics.frameSent(start);
+        }
+    }
+
+    /**
+     * Sends a payload-less frame from the pre-encoded control templates.
+     */
+    public void sendControl(Integer userId, SignalType type, Integer from, Integer to) {
+        long start = metrics.startTimer();
+        try {
+            Connection session = localSession(userId);
+            if (session == null) {
+                if (resumeService.offer(userId, type, format -> wireCodec.encodeControl(format, type, from, to))) {
+                    journal.record(JournalEvent.BUFFERED, null, type, from, userId, 0);
+                } else {
+                    forward(userId, SignalFrame.control(type, from, to));
+                }
+                return;
+            }
+            enqueue(userId, session, type, wireCodec.encodeControl(formatOf(session), type, from, to));
+        } finally {
+            metrics.controlSent(start);
+        }
+    }
+
+    private Connection localSession(Integer userId) {
+        Connection session = onlineUsersService.getSession(userId);
+        return session != null && session.isOpen() ? session : null;
+    }
+
+    /**
+     * Hands the frame to the node holding the user's session. The frame is encoded for the
+     * recipient on that node, since only it knows the session's wire format.
+     */
+    private void forward(Integer userId, SignalFrame frame) {
+        String nodeId = clusterRouter.findRemoteNode(userId);
+        if (nodeId == null) {
+            metrics.sendFailed(true);
+            journal.record(JournalEvent.UNDELIVERABLE, null, frame.type(), frame.from(), userId, frame.payloadLength());
             throw new UserOfflineException(userId);
         }
-        
+        clusterRouter.forward(nodeId, userId, frame);
+        journal.record(JournalEvent.FORWARDED, null, frame.type(), frame.from(), userId, frame.payloadLength());
+        log.debug("Message forwarded to user {} on node {}: {}", userId, nodeId, frame.type());
+    }
+
+    private void deliverForwarded(ForwardedFrame forwarded) {
+        if (!callRegistry.mirror(forwarded.frame())) {
+            rejectBusy(forwarded.frame().from(), forwarded.frame().to());
+            return;
+        }
+        int userId = forwarded.recipient();
+        Connection session = localSession(userId);
+        if (session == null) {
+            if (offerDetached(userId, forwarded.frame())) {
+                return;
+            }
+            log.debug("Forwarded {} for user {} arrived after they left this node", forwarded.frame().type(), userId);
+            return;
+        }
+        deliver(userId, session, forwarded.frame());
+    }
+
+    /**
+     * Answers a call forwarded to a callee who is in another call on this node. The reject
+     * goes back to the caller's node, which ends the call there as for a local reject.
+     */
+    private void rejectBusy(Integer callerId, Integer calleeId) {
+        ObjectNode payload = JsonNodeFactory.instance.objectNode();
+        payload.put("reason", CallRejectReason.BUSY.name());
         try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(jsonMessage));
-            log.debug("Message sent to user {}: {}", userId, message.type());
+            sendMessage(callerId, new SignalMessage(SignalType.CALL_REJECT, calleeId, callerId, payload));
+            log.info("Forwarded call from {} to {} rejected: callee is busy", callerId, calleeId);
+        } catch (UserOfflineException | MessageSendException e) {
+            log.debug("Busy reject for forwarded call from {} to {} not sent: {}", callerId, calleeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Routes a flushed candidate batch. The recipient is looked up again, since the session
+     * the batch was opened for may have dropped, been resumed or moved meanwhile; the batch
+     * is never coalesced again, so it stays ahead of later frames for the pair.
+     */
+    private void deliverBatch(Integer userId, SignalFrame frame) {
+        long start = metrics.startTimer();
+        try {
+            Connection session = localSession(userId);
+            if (session == null) {
+                if (!offerDetached(userId, frame)) {
+                    forward(userId, frame);
+                }
+                return;
+            }
+            enqueue(userId, session, frame.type(), wireCodec.encode(formatOf(session), frame));
+        } finally {
+            metrics.frameSent(start);
+        }
+    }
+
+    /**
+     * Ends the call that a lost INCOMING_CALL or CALL_ACCEPT belonged to, so its local
+     * participant is not left waiting on a peer that never heard of it. After a lost reject
+     * or end the sender's side of the call is already over.
+     */
+    private void undeliverable(ForwardedFrame forwarded) {
+        SignalFrame frame = forwarded.frame();
+        metrics.sendFailed(false);
+        journal.record(JournalEvent.UNDELIVERABLE, null, frame.type(), frame.from(), forwarded.recipient(), frame.payloadLength());
+        if ((frame.type() != SignalType.INCOMING_CALL && frame.type() != SignalType.CALL_ACCEPT)
+                || frame.from() == null || frame.to() == null || !callRegistry.end(frame.from(), frame.to())) {
+            return;
+        }
+        log.warn("{} from {} to {} was not delivered, ending the call", frame.type(), frame.from(), frame.to());
+        try {
+            sendControl(frame.from(), SignalType.CALL_END, frame.to(), frame.from());
+        } catch (UserOfflineException e) {
+            log.debug("Call end for undelivered {}: user {} already offline", frame.type(), frame.from());
+        }
+    }
+
+    /**
+     * Buffers the frame for a user whose session dropped but may still be resumed.
+     */
+    private boolean offerDetached(Integer userId, SignalFrame frame) {
+        if (!resumeService.offer(userId, frame.type(), format -> wireCodec.encode(format, frame))) {
+            return false;
+        }
+        journal.record(JournalEvent.BUFFERED, null, frame.type(), frame.from(), userId, frame.payloadLength());
+        return true;
+    }
+
+    private WebSocketMessage<?> encodeUnchecked(WireFormat format, SignalMessage message) {
+        try {
+            return wireCodec.encode(format, message);
         } catch (IOException e) {
-            log.error("Failed to send message to user {}", userId, e);
-            throw new MessageSendException(userId, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deliver(Integer userId, Connection session, SignalFrame frame) {
+        if (candidateCoalescer.accepts(session, frame)) {
+            candidateCoalescer.add(frame);
+            return;
+        }
+        candidateCoalescer.flush(frame.from(), userId);
+        enqueue(userId, session, frame.type(), wireCodec.encode(formatOf(session), frame));
+    }
+
+    private static WireFormat formatOf(Connection session) {
+        return WireFormat.of(session.getAttributes());
+    }
+
+    private void enqueue(Integer userId, Connection session, SignalType type, WebSocketMessage<?> message) {
+        if (outboundQueueService.send(session, type, message)) {
+            journal.record(JournalEvent.QUEUED, session, type, null, userId, 0);
+            log.debug("Message queued for user {}: {}", userId, type);
+        } else {
+            journal.record(JournalEvent.QUEUE_FULL, session, type, null, userId, 0);
+            log.warn("Outbound queue full, message to user {} dropped: {}", userId, type);
         }
     }
 
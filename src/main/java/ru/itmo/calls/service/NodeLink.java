@@ -0,0 +1,355 @@
+package ru.itmo.calls.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.itmo.calls.model.ForwardedFrame;
+import ru.itmo.calls.model.NodeMessage;
+import ru.itmo.calls.model.PresenceChange;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+
+/**
+ * Outbound connection to one peer node. Like {@link OutboundQueue}, any thread may
+ * enqueue and a single writer drains; everything queued at drain time is written as
+ * one batch and flushed once. Every connection opens with a hello naming the sending
+ * node, which the receiver checks against its configured peers, followed by a batch
+ * announcing every user connected to the sending node.
+ * <pre>
+ * connection := hello batch*
+ * hello := magic:int32 nodeId:utf incarnation:int64
+ * batch := count:int32 record{count}
+ * record := 0:u8 frame | 1:u8 userId:int32 (online) | 2:u8 userId:int32 (offline)
+ * frame := recipient:int32 type:u8 flags:u8 [from:int32] [to:int32] length:int32 payload
+ * </pre>
+ * Flag bit 0 marks {@code from}, bit 1 marks {@code to} and bit 2 a binary payload.
+ * A length of -1 means no payload. The incarnation changes each time the node starts.
+ * <p>
+ * After a failed connect the link backs off, doubling the delay up to a limit; frames
+ * queued meanwhile are not held but handed to the undelivered callback at once, as are
+ * frames in a batch that failed. A resync connects regardless of the backoff.
+ */
+final class NodeLink {
+    private static final Logger log = LoggerFactory.getLogger(NodeLink.class);
+
+    private static final int FLAG_FROM = 1;
+    private static final int FLAG_TO = 1 << 1;
+    private static final int FLAG_BINARY = 1 << 2;
+    private static final int MAX_PAYLOAD = 1 << 20;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int HELLO_MAGIC = 0x53474e4c;
+    private static final int KIND_FRAME = 0;
+    private static final int KIND_ONLINE = 1;
+    private static final int KIND_OFFLINE = 2;
+
+    private final String localNodeId;
+    private final long incarnation;
+    private final Supplier<int[]> localUsers;
+    private final String nodeId;
+    private final InetSocketAddress address;
+    private final int maxBatchFrames;
+    private final int capacity;
+    private final long minBackoff;
+    private final long maxBackoff;
+    private final Executor writer;
+    private final Consumer<ForwardedFrame> undelivered;
+
+    private final Queue<NodeMessage> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private Socket socket;
+    private DataOutputStream out;
+    private long backoff;
+    private long retryAt;
+    private volatile boolean closed;
+    private volatile boolean resync;
+
+    NodeLink(
+            String localNodeId,
+            long incarnation,
+            Supplier<int[]> localUsers,
+            String nodeId,
+            InetSocketAddress address,
+            int maxBatchFrames,
+            int capacity,
+            long minBackoff,
+            long maxBackoff,
+            Executor writer,
+            Consumer<ForwardedFrame> undelivered
+    ) {
+        this.localNodeId = localNodeId;
+        this.incarnation = incarnation;
+        this.localUsers = localUsers;
+        this.nodeId = nodeId;
+        this.address = address;
+        this.maxBatchFrames = maxBatchFrames;
+        this.capacity = capacity;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.writer = writer;
+        this.undelivered = undelivered;
+    }
+
+    boolean enqueue(NodeMessage message) {
+        if (closed) {
+            return false;
+        }
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            return false;
+        }
+        messages.offer(message);
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Reconnects, so the peer gets this node's users again, e.g. after it restarted or
+     * missed an announcement.
+     */
+    void resync() {
+        resync = true;
+        scheduleDrain();
+    }
+
+    void close() {
+        closed = true;
+        messages.clear();
+        depth.set(0);
+        disconnect();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                log.debug("Cluster writer is shut down, link to {} not drained", nodeId);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed && (resync || !messages.isEmpty())) {
+                writeBatch();
+            }
+        } finally {
+            draining.set(false);
+        }
+
+        if (!closed && (resync || !messages.isEmpty())) {
+            scheduleDrain();
+        }
+    }
+
+    private void writeBatch() {
+        NodeMessage[] batch = new NodeMessage[Math.min(maxBatchFrames, Math.max(depth.get(), 1))];
+        int count = 0;
+        NodeMessage message;
+        while (count < batch.length && (message = messages.poll()) != null) {
+            batch[count++] = message;
+        }
+        depth.addAndGet(-count);
+        if (count == 0 && !resync) {
+            return;
+        }
+        if (out == null && !resync && System.nanoTime() - retryAt < 0) {
+            log.debug("Node {} is unreachable, dropped {} messages", nodeId, count);
+            undelivered(batch, count);
+            return;
+        }
+
+        boolean connecting = out == null || resync;
+        try {
+            if (resync) {
+                resync = false;
+                disconnect();
+            }
+            DataOutputStream stream = connection();
+            if (count > 0) {
+                stream.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    write(stream, batch[i]);
+                }
+            }
+            stream.flush();
+        } catch (IOException e) {
+            if (count > 0) {
+                log.warn("Dropped {} messages for node {}: {}", count, nodeId, e.getMessage());
+            } else {
+                log.warn("Failed to connect to node {}: {}", nodeId, e.getMessage());
+            }
+            disconnect();
+            if (connecting) {
+                backoff = backoff == 0 ? minBackoff : Math.min(backoff * 2, maxBackoff);
+                retryAt = System.nanoTime() + backoff;
+            }
+            // Lost presence changes are made up for when the next connection announces every user
+            undelivered(batch, count);
+        }
+    }
+
+    private void undelivered(NodeMessage[] batch, int count) {
+        for (int i = 0; i < count; i++) {
+            if (batch[i] instanceof ForwardedFrame frame) {
+                try {
+                    undelivered.accept(frame);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to report undelivered frame for user {}: {}", frame.recipient(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private DataOutputStream connection() throws IOException {
+        if (out == null) {
+            Socket connected = new Socket();
+            connected.setTcpNoDelay(true);
+            connected.connect(address, CONNECT_TIMEOUT_MILLIS);
+            socket = connected;
+            out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream(), 64 * 1024));
+            out.writeInt(HELLO_MAGIC);
+            out.writeUTF(localNodeId);
+            out.writeLong(incarnation);
+            int[] users = localUsers.get();
+            if (users.length > 0) {
+                out.writeInt(users.length);
+                for (int userId : users) {
+                    out.writeByte(KIND_ONLINE);
+                    out.writeInt(userId);
+                }
+            }
+            backoff = 0;
+            log.info("Connected to node {} at {}", nodeId, address);
+        }
+        return out;
+    }
+
+    private void disconnect() {
+        Socket current = socket;
+        socket = null;
+        out = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("Failed to close link to node {}", nodeId, e);
+            }
+        }
+    }
+
+    static void write(DataOutputStream out, NodeMessage message) throws IOException {
+        if (message instanceof PresenceChange change) {
+            out.writeByte(change.online() ? KIND_ONLINE : KIND_OFFLINE);
+            out.writeInt(change.userId());
+        } else {
+            writeFrame(out, (ForwardedFrame) message);
+        }
+    }
+
+    private static void writeFrame(DataOutputStream out, ForwardedFrame forwarded) throws IOException {
+        SignalFrame frame = forwarded.frame();
+        boolean binary = frame.format() == WireFormat.BINARY;
+
+        out.writeByte(KIND_FRAME);
+        out.writeInt(forwarded.recipient());
+        out.writeByte(frame.type().code());
+        out.writeByte((frame.from() != null ? FLAG_FROM : 0) | (frame.to() != null ? FLAG_TO : 0) | (binary ? FLAG_BINARY : 0));
+        if (frame.from() != null) {
+            out.writeInt(frame.from());
+        }
+        if (frame.to() != null) {
+            out.writeInt(frame.to());
+        }
+
+        if (!frame.hasPayload()) {
+            out.writeInt(-1);
+        } else if (binary) {
+            out.writeInt(frame.payloadLength());
+            out.write(frame.bytes(), frame.payloadStart(), frame.payloadLength());
+        } else {
+            byte[] payload = frame.text().substring(frame.payloadStart(), frame.payloadEnd()).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+    }
+
+    /**
+     * @return the node the connecting peer claims to be
+     */
+    static Hello readHello(DataInputStream in) throws IOException {
+        if (in.readInt() != HELLO_MAGIC) {
+            throw new IOException("Not a cluster connection");
+        }
+        return new Hello(in.readUTF(), in.readLong());
+    }
+
+    static NodeMessage read(DataInputStream in) throws IOException {
+        int kind = in.readUnsignedByte();
+        return switch (kind) {
+            case KIND_FRAME -> readFrame(in);
+            case KIND_ONLINE -> new PresenceChange(in.readInt(), true);
+            case KIND_OFFLINE -> new PresenceChange(in.readInt(), false);
+            default -> throw new IOException("Unknown cluster record kind " + kind);
+        };
+    }
+
+    private static ForwardedFrame readFrame(DataInputStream in) throws IOException {
+        int recipient = in.readInt();
+        SignalType type = SignalType.fromCode(in.readUnsignedByte());
+        if (type == null) {
+            throw new IOException("Unknown forwarded frame type");
+        }
+
+        int flags = in.readUnsignedByte();
+        Integer from = (flags & FLAG_FROM) != 0 ? in.readInt() : null;
+        Integer to = (flags & FLAG_TO) != 0 ? in.readInt() : null;
+
+        int length = in.readInt();
+        if (length < 0) {
+            return new ForwardedFrame(recipient, SignalFrame.control(type, from, to));
+        }
+        if (length > MAX_PAYLOAD) {
+            throw new IOException("Forwarded payload of " + length + " bytes is too large");
+        }
+
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        if ((flags & FLAG_BINARY) != 0) {
+            return new ForwardedFrame(
+                    recipient, new SignalFrame(type, from, to, WireFormat.BINARY, null, payload, 0, length)
+            );
+        }
+        String text = new String(payload, StandardCharsets.UTF_8);
+        return new ForwardedFrame(
+                recipient, new SignalFrame(type, from, to, WireFormat.JSON, text, null, 0, text.length())
+        );
+    }
+
+    static DataInputStream input(Socket socket) throws IOException {
+        return new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+    }
+
+    record Hello(String nodeId, long incarnation) {
+    }
+}
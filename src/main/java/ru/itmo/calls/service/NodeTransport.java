@@ -0,0 +1,28 @@
+package ru.itmo.calls.service;
+
+import java.util.function.Consumer;
+
+import ru.itmo.calls.model.ForwardedFrame;
+import ru.itmo.calls.model.PresenceChange;
+
+/**
+ * Carries frames between nodes. Sending never blocks the caller.
+ */
+public interface NodeTransport {
+    void send(String nodeId, ForwardedFrame frame);
+
+    void setReceiver(Consumer<ForwardedFrame> receiver);
+
+    /**
+     * Sets who is told about frames that were dropped instead of sent, e.g. because the
+     * peer is unreachable or the link is congested.
+     */
+    void setUndeliverable(Consumer<ForwardedFrame> handler);
+
+    /**
+     * Announces a change in a local user's presence to every peer.
+     */
+    void publish(PresenceChange change);
+
+    void setGossip(PresenceGossip gossip);
+}
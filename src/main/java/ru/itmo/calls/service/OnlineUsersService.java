@@ -4,22 +4,41 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.WebSocketSession;
-
-import java.io.IOException;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import ru.itmo.calls.transport.Connection;
 
 @Service
 public class OnlineUsersService {
     private static final Logger log = LoggerFactory.getLogger(OnlineUsersService.class);
-    
-    private final ConcurrentHashMap<Integer, WebSocketSession> onlineUsers = new ConcurrentHashMap<>();
 
-    public void registerUser(Integer userId, WebSocketSession session) {
-        WebSocketSession existingSession = onlineUsers.put(userId, session);
+    private final IntConcurrentMap<Connection> onlineUsers = new IntConcurrentMap<>();
+    private final ClusterRouter clusterRouter;
+    private final ResumeService resumeService;
+
+    private volatile PresenceListener presenceListener = (userId, online) -> { };
+
+    public OnlineUsersService(ClusterRouter clusterRouter, ResumeService resumeService) {
+        this.clusterRouter = clusterRouter;
+        this.resumeService = resumeService;
+    }
+
+    /**
+     * Called when a user's presence is published to or withdrawn from the cluster. A
+     * session detached for resumption does not count as going offline.
+     */
+    public interface PresenceListener {
+        void presenceChanged(int userId, boolean online);
+    }
+
+    public void onPresenceChange(PresenceListener listener) {
+        this.presenceListener = listener;
+    }
 
-        if (existingSession != null && existingSession.isOpen()) {
+    public void registerUser(int userId, Connection session) {
+        Connection existingSession = onlineUsers.put(userId, session);
+        clusterRouter.userConnected(userId);
+        presenceListener.presenceChanged(userId, true);
+
+        if (existingSession != null && existingSession != session && existingSession.isOpen()) {
             log.warn("User {} already had an active session, closing the old one", userId);
             try {
                 existingSession.close(CloseStatus.POLICY_VIOLATION.withReason("Duplicate session"));
@@ -27,34 +46,71 @@ public class OnlineUsersService {
                 log.error("Failed to close existing session for user {}", userId, e);
             }
         }
-        
+
         log.info("User {} registered as online. Total online: {}", userId, onlineUsers.size());
     }
 
-    public void unregisterUser(Integer userId) {
-        try(WebSocketSession removed = onlineUsers.remove(userId)){
-            if (removed != null) {
-                log.info("User {} unregistered. Total online: {}", userId, onlineUsers.size());
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Removes the user only if {@code session} is still the registered one, so a replaced
+     * session closing late does not unregister its successor.
+     *
+     * @return {@code true} if the user was unregistered
+     */
+    public boolean unregisterUser(int userId, Connection session) {
+        if (onlineUsers.remove(userId, session)) {
+            clusterRouter.userDisconnected(userId);
+            presenceListener.presenceChanged(userId, false);
+            log.info("User {} unregistered. Total online: {}", userId, onlineUsers.size());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a session that may still be resumed. The user stays published to the
+     * cluster until {@link #releasePresence} is called.
+     */
+    public boolean detachUser(int userId, Connection session) {
+        if (onlineUsers.remove(userId, session)) {
+            log.info("User {} detached. Total online: {}", userId, onlineUsers.size());
+            return true;
+        }
+        return false;
+    }
+
+    public void releasePresence(int userId) {
+        if (!onlineUsers.containsKey(userId)) {
+            clusterRouter.userDisconnected(userId);
+            presenceListener.presenceChanged(userId, false);
         }
     }
 
-    public WebSocketSession getSession(Integer userId) {
+    public Connection getSession(int userId) {
         return onlineUsers.get(userId);
     }
 
-    public boolean isUserOffline(Integer userId) {
-        return !onlineUsers.containsKey(userId);
+    /**
+     * A user connected to another node of the cluster, or within their reconnect grace
+     * period, counts as online.
+     */
+    public boolean isUserOffline(int userId) {
+        return !onlineUsers.containsKey(userId)
+                && !resumeService.isDetached(userId)
+                && clusterRouter.findRemoteNode(userId) == null;
     }
 
-    public List<Integer> getOnlineUsers() {
-        return List.copyOf(onlineUsers.keySet());
+    public void forEachOnline(IntConcurrentMap.IntObjConsumer<Connection> action) {
+        onlineUsers.forEach(action);
+    }
+
+    /**
+     * Returns up to {@code limit} online user ids greater than {@code afterUserId}, ascending.
+     */
+    public int[] getOnlineUsersPage(long afterUserId, int limit) {
+        return onlineUsers.keysAfter(afterUserId, limit);
     }
 
     public int getOnlineCount() {
         return onlineUsers.size();
     }
 }
-
@@ -0,0 +1,350 @@
+package ru.itmo.calls.service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.model.OverflowPolicy;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Bounded per-session outbound buffer. Any thread may enqueue; a single writer task
+ * drains it, so the underlying connection never sees concurrent sends. When a send does
+ * not complete at once the task ends and resumes when it does, so a slow socket never
+ * holds a writer thread.
+ * <p>
+ * Call control frames have their own lane, written first. Other frames may fill the queue
+ * only up to {@code capacity - controlReserve}, so the reserve is always free for control
+ * frames; a control frame arriving at a full queue evicts the oldest other frame, whatever
+ * the overflow policy, and the policy only applies once no such frame is left.
+ */
+public class OutboundQueue {
+    private static final Logger log = LoggerFactory.getLogger(OutboundQueue.class);
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final Connection session;
+    private final int capacity;
+    private final int bulkCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor writer;
+
+    private final Queue<Pending> replayLane = new ConcurrentLinkedQueue<>();
+    private final Queue<Pending> controlLane = new ConcurrentLinkedQueue<>();
+    private final Queue<Pending> bulkLane = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger replayDepth = new AtomicInteger();
+    private final AtomicInteger controlDepth = new AtomicInteger();
+    private final AtomicInteger bulkDepth = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    /** Orders frames taken by the writer against {@link #close()}, so the recorder sees them in send order. */
+    private final Object handoff = new Object();
+
+    private volatile CloseStatus closeStatus;
+    private volatile boolean closed;
+    /** Set on a DISCONNECT overflow: the writer closes without sending what is still queued. */
+    private volatile boolean abandoned;
+    private volatile FrameDeflater deflater;
+    private volatile FrameRecorder recorder;
+
+    public OutboundQueue(
+            Connection session,
+            int capacity,
+            int controlReserve,
+            OverflowPolicy overflowPolicy,
+            Executor writer
+    ) {
+        this.session = session;
+        this.capacity = capacity;
+        this.bulkCapacity = Math.max(1, capacity - controlReserve);
+        this.overflowPolicy = overflowPolicy;
+        this.writer = writer;
+    }
+
+    public boolean enqueue(SignalType type, WebSocketMessage<?> message) {
+        return enqueue(new Pending(type, message, true));
+    }
+
+    /**
+     * Queues a frame that was already recorded for resumption, so it is not recorded again.
+     * Replayed frames are written ahead of both lanes in the order they were queued, so
+     * control frames cannot overtake the frames sent before them. They are bounded by the
+     * resume buffer, not by this queue's capacity.
+     */
+    boolean enqueueReplay(SignalType type, WebSocketMessage<?> message) {
+        if (closed || closeStatus != null) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        replayDepth.incrementAndGet();
+        replayLane.offer(new Pending(type, message, false));
+        scheduleDrain();
+        return true;
+    }
+
+    private boolean enqueue(Pending pending) {
+        if (closed || closeStatus != null) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        if (isCallControl(pending.type())) {
+            if (controlDepth.incrementAndGet() + bulkDepth.get() > capacity && !evictBulk()) {
+                controlDepth.decrementAndGet();
+                overflow();
+                return false;
+            }
+            controlLane.offer(pending);
+        } else {
+            if (bulkDepth.incrementAndGet() > bulkCapacity) {
+                bulkDepth.decrementAndGet();
+                if (!makeRoom()) {
+                    return false;
+                }
+            }
+            bulkLane.offer(pending);
+        }
+
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Sends everything already queued, then closes the session.
+     */
+    public void closeAfterDrain(CloseStatus status) {
+        closeStatus = status;
+        scheduleDrain();
+    }
+
+    /**
+     * Stops the writer. Frames still queued are passed to the recorder, after those the
+     * writer already took, so a resumed session replays them.
+     */
+    public void close() {
+        synchronized (handoff) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Pending pending;
+            while ((pending = poll()) != null) {
+                record(pending);
+            }
+        }
+
+        FrameDeflater current = deflater;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    void useDeflater(FrameDeflater deflater) {
+        this.deflater = deflater;
+    }
+
+    void recordTo(FrameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getSessionId() {
+        return session.getId();
+    }
+
+    public int getDepth() {
+        return replayDepth.get() + controlDepth.get() + bulkDepth.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Makes room for a non-control frame in a full bulk lane.
+     */
+    private boolean makeRoom() {
+        if (overflowPolicy == OverflowPolicy.COALESCE) {
+            // The evicted frame's slot is reused by the new one, so depth is unchanged
+            if (bulkLane.poll() != null) {
+                dropped.incrementAndGet();
+                return true;
+            }
+        }
+        overflow();
+        return false;
+    }
+
+    /**
+     * Discards the oldest non-control frame; its slot is taken over by a control frame.
+     */
+    private boolean evictBulk() {
+        if (bulkLane.poll() == null) {
+            return false;
+        }
+        bulkDepth.decrementAndGet();
+        dropped.incrementAndGet();
+        return true;
+    }
+
+    private void overflow() {
+        dropped.incrementAndGet();
+        if (overflowPolicy == OverflowPolicy.DISCONNECT && !abandoned) {
+            log.warn("Outbound queue overflow for session {}, disconnecting slow consumer", session.getId());
+            // The caller may be any routing thread; only the writer touches the socket
+            abandoned = true;
+            closeAfterDrain(CloseStatus.SESSION_NOT_RELIABLE.withReason("Outbound queue overflow"));
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                log.debug("Outbound writer is shut down, session {} not drained", session.getId());
+            }
+        }
+    }
+
+    private void drain() {
+        boolean suspended = false;
+        try {
+            Pending pending;
+            while (!abandoned && (pending = next()) != null) {
+                CompletableFuture<Void> written = write(pending);
+                if (!written.isDone()) {
+                    // The drain flag stays held until the transport takes the frame
+                    suspended = true;
+                    written.whenComplete((ignored, error) -> resumeDrain());
+                    return;
+                }
+            }
+
+            CloseStatus status = closeStatus;
+            if (status != null && !closed) {
+                close();
+                closeSession(status);
+            }
+        } finally {
+            if (!suspended) {
+                draining.set(false);
+            }
+        }
+
+        if (!closed && (!replayLane.isEmpty() || !controlLane.isEmpty() || !bulkLane.isEmpty() || closeStatus != null)) {
+            scheduleDrain();
+        }
+    }
+
+    private void resumeDrain() {
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            log.debug("Outbound writer is shut down, session {} not drained", session.getId());
+        }
+    }
+
+    private Pending next() {
+        synchronized (handoff) {
+            if (closed) {
+                return null;
+            }
+            Pending pending = poll();
+            if (pending != null) {
+                // Recorded before the send: a frame lost with the socket must still be replayed
+                record(pending);
+            }
+            return pending;
+        }
+    }
+
+    private void record(Pending pending) {
+        FrameRecorder current = recorder;
+        if (pending.record() && current != null) {
+            current.record(pending.type(), pending.message());
+        }
+    }
+
+    private Pending poll() {
+        Pending pending = replayLane.poll();
+        if (pending != null) {
+            replayDepth.decrementAndGet();
+            return pending;
+        }
+        pending = controlLane.poll();
+        if (pending != null) {
+            controlDepth.decrementAndGet();
+            return pending;
+        }
+        pending = bulkLane.poll();
+        if (pending != null) {
+            bulkDepth.decrementAndGet();
+        }
+        return pending;
+    }
+
+    private CompletableFuture<Void> write(Pending pending) {
+        WebSocketMessage<?> message = pending.message();
+        if (closed || !session.isOpen()) {
+            dropped.incrementAndGet();
+            return DONE;
+        }
+
+        CompletableFuture<Void> written;
+        try {
+            // Deflating here rather than at enqueue keeps a shared deflate context in send order
+            FrameDeflater current = deflater;
+            written = session.send(current != null ? current.deflate(message) : message);
+        } catch (Exception e) {
+            written = CompletableFuture.failedFuture(e);
+        }
+
+        return written.handle((ignored, error) -> {
+            if (error != null) {
+                dropped.incrementAndGet();
+                log.warn("Failed to write to session {}: {}", session.getId(), error.getMessage());
+                return null;
+            }
+            sent.incrementAndGet();
+            return null;
+        });
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (Exception e) {
+            log.error("Failed to close session {}", session.getId(), e);
+        }
+    }
+
+    private record Pending(SignalType type, WebSocketMessage<?> message, boolean record) {
+    }
+
+    private static boolean isCallControl(SignalType type) {
+        return type != null && switch (type) {
+            case INCOMING_CALL, CALL_ACCEPT, CALL_REJECT, CALL_END -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.config.OutboundConfig;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.transport.Connection;
+
+@Service
+public class OutboundQueueService {
+    private static final String OUTBOUND_QUEUE_ATTRIBUTE = "outboundQueue";
+
+    private final OutboundConfig config;
+    private final ExecutorService outboundExecutor;
+
+    public OutboundQueueService(OutboundConfig config, @Qualifier("outboundExecutor") ExecutorService outboundExecutor) {
+        this.config = config;
+        this.outboundExecutor = outboundExecutor;
+    }
+
+    public OutboundQueue getQueue(Connection session) {
+        return (OutboundQueue) session.getAttributes().computeIfAbsent(
+                OUTBOUND_QUEUE_ATTRIBUTE,
+                key -> new OutboundQueue(
+                        session,
+                        config.getMaxQueuedFrames(),
+                        config.getControlReserve(),
+                        config.getOverflowPolicy(),
+                        outboundExecutor
+                )
+        );
+    }
+
+    public OutboundQueue findQueue(Connection session) {
+        return (OutboundQueue) session.getAttributes().get(OUTBOUND_QUEUE_ATTRIBUTE);
+    }
+
+    /**
+     * Returns false when the session's queue is full, closing or already released; a
+     * released session never gets a fresh queue here.
+     */
+    public boolean send(Connection session, SignalType type, WebSocketMessage<?> message) {
+        OutboundQueue queue = findQueue(session);
+        return queue != null && queue.enqueue(type, message);
+    }
+
+    public void sendAndClose(Connection session, SignalType type, WebSocketMessage<?> message, CloseStatus status) {
+        OutboundQueue queue = getQueue(session);
+        queue.enqueue(type, message);
+        queue.closeAfterDrain(status);
+    }
+
+    /**
+     * Closes the session from its writer once already queued frames are sent, so the
+     * close never races a send in progress.
+     */
+    public void closeAfterDrain(Connection session, CloseStatus status) {
+        getQueue(session).closeAfterDrain(status);
+    }
+
+    public void release(Connection session) {
+        OutboundQueue queue = (OutboundQueue) session.getAttributes().remove(OUTBOUND_QUEUE_ATTRIBUTE);
+        if (queue != null) {
+            queue.close();
+        }
+    }
+}
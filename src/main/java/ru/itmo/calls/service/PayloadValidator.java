@@ -1,108 +1,215 @@
 package ru.itmo.calls.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import ru.itmo.calls.exception.InvalidMessageException;
 import ru.itmo.calls.model.SignalType;
-import ru.itmo.calls.model.payload.*;
+import ru.itmo.calls.model.payload.CallRejectReason;
 
+import java.io.IOException;
+
+/**
+ * Validates payloads while they are being parsed, without binding them to objects.
+ * The parser is expected on the payload's first token and is left on its last one.
+ * A {@code null} parser means the payload is absent.
+ */
 @Service
 public class PayloadValidator {
     private static final Logger log = LoggerFactory.getLogger(PayloadValidator.class);
-    
-    private final ObjectMapper objectMapper;
-    
-    public PayloadValidator(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-    }
 
-    public void validatePayload(SignalType type, JsonNode payload) {
+    public void validatePayload(SignalType type, JsonParser payload) throws IOException {
         switch (type) {
             case AUTH -> validateAuthPayload(payload);
-            case WEBRTC_OFFER -> validateWebRTCOffer(payload);
-            case WEBRTC_ANSWER -> validateWebRTCAnswer(payload);
+            case WEBRTC_OFFER -> validateSdp(payload, "offer");
+            case WEBRTC_ANSWER -> validateSdp(payload, "answer");
             case WEBRTC_CANDIDATE -> validateWebRTCCandidate(payload);
             case CALL_REJECT -> validateCallReject(payload);
-            case CALL_INIT, CALL_ACCEPT, CALL_END, INCOMING_CALL, PING, PONG, AUTH_SUCCESS, AUTH_FAILED -> {
-                if (payload != null && !payload.isNull()) {
+            case ROOM_BROADCAST -> {
+                if (!isObject(payload)) {
+                    throw new InvalidMessageException("Room broadcast must have an object payload");
+                }
+                payload.skipChildren();
+            }
+            case PRESENCE_SUBSCRIBE, PRESENCE_UNSUBSCRIBE -> validateUsers(payload, "Presence subscription");
+            case ROOM_INVITE -> validateUsers(payload, "Room invite");
+            case CALL_INIT, CALL_ACCEPT, CALL_END, INCOMING_CALL, PING, PONG, AUTH_SUCCESS, AUTH_FAILED, WEBRTC_CANDIDATES,
+                 ROOM_CREATE, ROOM_CREATED, ROOM_JOIN, ROOM_LEAVE, ROOM_MEMBER_JOINED, ROOM_MEMBER_LEFT, ROOM_INVITED,
+                 PRESENCE_DELTA, RECONNECT -> {
+                if (payload != null) {
                     log.debug("Message type {} has optional payload", type);
+                    payload.skipChildren();
                 }
             }
             case ERROR -> {
-                if (payload == null || !payload.has("message")) {
+                if (!isObject(payload) || !skipToField(payload, "message")) {
                     throw new InvalidMessageException("Error message must have 'message' field");
                 }
+                skipRest(payload);
+            }
+            default -> {
+                log.warn("Unknown message type for validation: {}", type);
+                if (payload != null) {
+                    payload.skipChildren();
+                }
             }
-            default -> log.warn("Unknown message type for validation: {}", type);
         }
     }
-    
-    private void validateWebRTCOffer(JsonNode payload) {
+
+    private void validateSdp(JsonParser payload, String kind) throws IOException {
         if (payload == null) {
-            throw new InvalidMessageException("WebRTC offer must have payload");
+            throw new InvalidMessageException("WebRTC " + kind + " must have payload");
+        }
+        if (!isObject(payload)) {
+            throw new InvalidMessageException("Invalid WebRTC " + kind + " payload: expected an object");
         }
-        
-        try {
-            objectMapper.treeToValue(payload, WebRTCOffer.class);
-        } catch (Exception e) {
-            throw new InvalidMessageException("Invalid WebRTC offer payload: " + e.getMessage());
+
+        boolean hasSdp = false;
+        while (payload.nextToken() == JsonToken.FIELD_NAME) {
+            String field = payload.currentName();
+            JsonToken value = payload.nextToken();
+            if ("sdp".equals(field)) {
+                if (value != JsonToken.VALUE_STRING) {
+                    throw new InvalidMessageException(
+                        "Invalid WebRTC " + kind + " payload: SDP is required for WebRTC " + kind
+                    );
+                }
+                hasSdp = true;
+            } else {
+                payload.skipChildren();
+            }
+        }
+
+        if (!hasSdp) {
+            throw new InvalidMessageException("Invalid WebRTC " + kind + " payload: SDP is required for WebRTC " + kind);
         }
     }
-    
-    private void validateWebRTCAnswer(JsonNode payload) {
+
+    private void validateWebRTCCandidate(JsonParser payload) throws IOException {
         if (payload == null) {
-            throw new InvalidMessageException("WebRTC answer must have payload");
+            throw new InvalidMessageException("WebRTC candidate must have payload");
         }
-        
-        try {
-            objectMapper.treeToValue(payload, WebRTCAnswer.class);
-        } catch (Exception e) {
-            throw new InvalidMessageException("Invalid WebRTC answer payload: " + e.getMessage());
+        if (!isObject(payload)) {
+            throw new InvalidMessageException("Invalid WebRTC candidate payload: expected an object");
+        }
+
+        boolean endOfCandidates = true;
+        while (payload.nextToken() == JsonToken.FIELD_NAME) {
+            String field = payload.currentName();
+            JsonToken value = payload.nextToken();
+            switch (field) {
+                case "candidate" -> {
+                    requireStringOrNull(field, value);
+                    endOfCandidates = value == JsonToken.VALUE_NULL || payload.getTextLength() == 0;
+                }
+                case "sdpMid", "usernameFragment" -> requireStringOrNull(field, value);
+                case "sdpMLineIndex" -> {
+                    if (value != JsonToken.VALUE_NUMBER_INT && value != JsonToken.VALUE_NULL) {
+                        throw new InvalidMessageException(
+                            "Invalid WebRTC candidate payload: 'sdpMLineIndex' must be an integer"
+                        );
+                    }
+                }
+                default -> payload.skipChildren();
+            }
+        }
+
+        if (endOfCandidates) {
+            log.debug("Received end-of-candidates signal");
         }
     }
-    
-    private void validateWebRTCCandidate(JsonNode payload) {
+
+    private void validateCallReject(JsonParser payload) throws IOException {
         if (payload == null) {
-            throw new InvalidMessageException("WebRTC candidate must have payload");
+            return;
+        }
+        if (!isObject(payload)) {
+            payload.skipChildren();
+            return;
         }
-        
-        try {
-            WebRTCCandidate candidate = objectMapper.treeToValue(payload, WebRTCCandidate.class);
 
-            if (candidate.candidate() == null || candidate.candidate().isEmpty()) {
-                log.debug("Received end-of-candidates signal");
+        while (payload.nextToken() == JsonToken.FIELD_NAME) {
+            String field = payload.currentName();
+            JsonToken value = payload.nextToken();
+            if ("reason".equals(field) && value == JsonToken.VALUE_STRING && !isKnownReason(payload.getText())) {
+                log.warn("Invalid call reject payload, using default reason: {}", payload.getText());
+            } else {
+                payload.skipChildren();
             }
-            
-        } catch (Exception e) {
-            throw new InvalidMessageException("Invalid WebRTC candidate payload: " + e.getMessage());
         }
     }
-    
-    private void validateCallReject(JsonNode payload) {
-        if (payload != null && !payload.isNull()) {
-            try {
-                objectMapper.treeToValue(payload, CallReject.class);
-            } catch (Exception e) {
-                log.warn("Invalid call reject payload, using default reason: {}", e.getMessage());
+
+    private void validateUsers(JsonParser payload, String kind) throws IOException {
+        if (!isObject(payload) || !skipToField(payload, "users") || payload.currentToken() != JsonToken.START_ARRAY) {
+            throw new InvalidMessageException(kind + " must have a 'users' array");
+        }
+        JsonToken value;
+        while ((value = payload.nextToken()) != JsonToken.END_ARRAY) {
+            if (value != JsonToken.VALUE_NUMBER_INT) {
+                throw new InvalidMessageException(kind + " 'users' must contain user ids");
             }
         }
+        skipRest(payload);
     }
-    
-    private void validateAuthPayload(JsonNode payload) {
+
+    private void validateAuthPayload(JsonParser payload) throws IOException {
         if (payload == null) {
             throw new InvalidMessageException("AUTH message must have payload");
         }
-        
-        if (!payload.has("token")) {
+
+        if (!isObject(payload) || !skipToField(payload, "token")) {
             throw new InvalidMessageException("AUTH payload must contain 'token' field");
         }
-        
-        String token = payload.get("token").asText();
+
+        String token = payload.getValueAsString();
         if (token == null || token.isBlank()) {
             throw new InvalidMessageException("Token cannot be empty");
         }
+        skipRest(payload);
+    }
+
+    private static boolean isObject(JsonParser payload) {
+        return payload != null && payload.currentToken() == JsonToken.START_OBJECT;
+    }
+
+    /**
+     * Advances to the value of {@code name}, skipping other fields.
+     * Returns {@code false} with the parser on the closing brace if the field is absent.
+     */
+    private static boolean skipToField(JsonParser payload, String name) throws IOException {
+        while (payload.nextToken() == JsonToken.FIELD_NAME) {
+            String field = payload.currentName();
+            payload.nextToken();
+            if (name.equals(field)) {
+                return true;
+            }
+            payload.skipChildren();
+        }
+        return false;
+    }
+
+    private static void skipRest(JsonParser payload) throws IOException {
+        payload.skipChildren();
+        while (payload.nextToken() == JsonToken.FIELD_NAME) {
+            payload.nextToken();
+            payload.skipChildren();
+        }
+    }
+
+    private static void requireStringOrNull(String field, JsonToken value) {
+        if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+            throw new InvalidMessageException("Invalid WebRTC candidate payload: '" + field + "' must be a string");
+        }
+    }
+
+    private static boolean isKnownReason(String reason) {
+        for (CallRejectReason known : CallRejectReason.values()) {
+            if (known.name().equals(reason)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,16 @@
+package ru.itmo.calls.service;
+
+/**
+ * Cluster-wide map of which node holds each online user's session.
+ */
+public interface PresenceDirectory {
+    void register(int userId, String nodeId);
+
+    /**
+     * Removes the entry only while it still points at {@code nodeId}, so a user who has
+     * already reconnected elsewhere stays reachable.
+     */
+    void unregister(int userId, String nodeId);
+
+    String lookup(int userId);
+}
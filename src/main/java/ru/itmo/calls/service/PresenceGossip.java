@@ -0,0 +1,21 @@
+package ru.itmo.calls.service;
+
+import ru.itmo.calls.model.PresenceChange;
+
+/**
+ * Receives the presence other nodes announce over a {@link NodeTransport}.
+ */
+public interface PresenceGossip {
+    /**
+     * Users connected to this node, announced in full whenever a link to a peer connects.
+     */
+    int[] localUsers();
+
+    /**
+     * Forgets every user {@code nodeId} announced. Called when its connection drops, and
+     * when it connects, just before it announces its current users.
+     */
+    void peerReset(String nodeId);
+
+    void peerChanged(String nodeId, PresenceChange change);
+}
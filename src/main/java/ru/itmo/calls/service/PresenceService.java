@@ -0,0 +1,219 @@
+package ru.itmo.calls.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.PresenceConfig;
+import ru.itmo.calls.exception.InvalidMessageException;
+import ru.itmo.calls.exception.SignallingException;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+
+/**
+ * Pushes {@code PRESENCE_DELTA} frames to users who subscribed to other users' presence.
+ * A reverse index maps each watched user to their subscribers, so a connect or disconnect
+ * costs a lookup for unwatched users and O(watchers) otherwise. Changes are collected and
+ * flushed every {@code signalling.presence.flush-interval} ms; only the latest state per
+ * user is kept and compared with the last one published, so a user who drops and comes
+ * back within one window produces no delta at all.
+ *
+ * <p>Changes are observed on this node only; a subscription snapshot is cluster-wide.
+ */
+@Service
+public class PresenceService {
+    private static final Logger log = LoggerFactory.getLogger(PresenceService.class);
+
+    private final PresenceConfig config;
+    private final OnlineUsersService onlineUsersService;
+    private final MessageSenderService messageSenderService;
+    private final WireCodec wireCodec;
+    private final Counter deltasSent;
+
+    private final Map<Integer, Set<Integer>> watchersByUser = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> watchedBySubscriber = new ConcurrentHashMap<>();
+    /** Last state published to the watchers of each watched user. */
+    private final Map<Integer, Boolean> published = new ConcurrentHashMap<>();
+    /** Latest state of each watched user that changed since the last flush. */
+    private final Map<Integer, Boolean> pending = new ConcurrentHashMap<>();
+
+    public PresenceService(
+            PresenceConfig config,
+            OnlineUsersService onlineUsersService,
+            MessageSenderService messageSenderService,
+            WireCodec wireCodec,
+            MeterRegistry meterRegistry
+    ) {
+        this.config = config;
+        this.onlineUsersService = onlineUsersService;
+        this.messageSenderService = messageSenderService;
+        this.wireCodec = wireCodec;
+        this.deltasSent = Counter.builder("signalling.presence.deltas")
+                .description("PRESENCE_DELTA frames sent to subscribers")
+                .register(meterRegistry);
+        Gauge.builder("signalling.presence.watched", watchersByUser, Map::size)
+                .description("Users with at least one presence subscriber on this node")
+                .register(meterRegistry);
+
+        onlineUsersService.onPresenceChange(this::presenceChanged);
+    }
+
+    public static boolean handles(SignalType type) {
+        return type == SignalType.PRESENCE_SUBSCRIBE || type == SignalType.PRESENCE_UNSUBSCRIBE;
+    }
+
+    public void route(SignalFrame message, Integer fromUserId) {
+        if (!config.isEnabled()) {
+            throw new InvalidMessageException("Presence subscriptions are disabled");
+        }
+        int[] userIds = wireCodec.readUsers(message);
+        if (message.type() == SignalType.PRESENCE_SUBSCRIBE) {
+            subscribe(fromUserId, userIds);
+        } else {
+            unsubscribe(fromUserId, userIds);
+        }
+    }
+
+    /**
+     * Adds {@code userIds} to the subscriber's watch list and sends one delta with the
+     * current state of all of them.
+     */
+    public void subscribe(Integer subscriberId, int[] userIds) {
+        Set<Integer> watched = watchedBySubscriber.computeIfAbsent(subscriberId, key -> ConcurrentHashMap.newKeySet());
+        Delta snapshot = new Delta();
+        for (int userId : userIds) {
+            if (userId == subscriberId) {
+                continue;
+            }
+            if (!watched.contains(userId) && watched.size() >= config.getMaxWatchedPerUser()) {
+                throw new InvalidMessageException("Too many presence subscriptions");
+            }
+            watched.add(userId);
+            watchersByUser.compute(userId, (key, watchers) -> {
+                Set<Integer> set = watchers != null ? watchers : ConcurrentHashMap.newKeySet();
+                set.add(subscriberId);
+                return set;
+            });
+            boolean online = published.computeIfAbsent(userId, key -> !onlineUsersService.isUserOffline(key));
+            snapshot.add(userId, online);
+        }
+        send(subscriberId, snapshot);
+        log.debug("User {} watches {} users", subscriberId, watched.size());
+    }
+
+    public void unsubscribe(Integer subscriberId, int[] userIds) {
+        Set<Integer> watched = watchedBySubscriber.get(subscriberId);
+        if (watched == null) {
+            return;
+        }
+        for (int userId : userIds) {
+            if (watched.remove(userId)) {
+                removeWatcher(userId, subscriberId);
+            }
+        }
+        watchedBySubscriber.computeIfPresent(subscriberId, (key, set) -> set.isEmpty() ? null : set);
+    }
+
+    /**
+     * Drops every subscription of a user who is gone for good.
+     */
+    public void unsubscribeAll(Integer subscriberId) {
+        Set<Integer> watched = watchedBySubscriber.remove(subscriberId);
+        if (watched != null) {
+            for (Integer userId : watched) {
+                removeWatcher(userId, subscriberId);
+            }
+        }
+    }
+
+    private void presenceChanged(int userId, boolean online) {
+        if (watchersByUser.containsKey(userId)) {
+            pending.put(userId, online);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${signalling.presence.flush-interval:250}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Delta> deltas = new HashMap<>();
+        Iterator<Map.Entry<Integer, Boolean>> changes = pending.entrySet().iterator();
+        while (changes.hasNext()) {
+            Map.Entry<Integer, Boolean> change = changes.next();
+            int userId = change.getKey();
+            boolean online = change.getValue();
+            changes.remove();
+
+            Set<Integer> watchers = watchersByUser.get(userId);
+            Boolean previous = published.put(userId, online);
+            if (watchers == null || (previous != null && previous == online)) {
+                continue;
+            }
+            for (Integer subscriberId : watchers) {
+                deltas.computeIfAbsent(subscriberId, key -> new Delta()).add(userId, online);
+            }
+        }
+
+        deltas.forEach(this::send);
+    }
+
+    private void removeWatcher(int userId, Integer subscriberId) {
+        watchersByUser.computeIfPresent(userId, (key, watchers) -> {
+            watchers.remove(subscriberId);
+            if (watchers.isEmpty()) {
+                published.remove(userId);
+                return null;
+            }
+            return watchers;
+        });
+    }
+
+    private void send(Integer subscriberId, Delta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        String payload = delta.toJson();
+        SignalFrame frame = new SignalFrame(
+                SignalType.PRESENCE_DELTA, null, subscriberId, WireFormat.JSON, payload, null, 0, payload.length()
+        );
+        try {
+            messageSenderService.sendFrame(subscriberId, frame);
+            deltasSent.increment();
+        } catch (SignallingException e) {
+            log.debug("Presence delta to user {} not delivered: {}", subscriberId, e.getMessage());
+        }
+    }
+
+    private static final class Delta {
+        private final StringBuilder online = new StringBuilder();
+        private final StringBuilder offline = new StringBuilder();
+
+        void add(int userId, boolean isOnline) {
+            StringBuilder ids = isOnline ? online : offline;
+            if (!ids.isEmpty()) {
+                ids.append(',');
+            }
+            ids.append(userId);
+        }
+
+        boolean isEmpty() {
+            return online.isEmpty() && offline.isEmpty();
+        }
+
+        String toJson() {
+            return "{\"online\":[" + online + "],\"offline\":[" + offline + "]}";
+        }
+    }
+}
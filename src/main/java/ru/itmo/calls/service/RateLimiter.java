@@ -0,0 +1,81 @@
+package ru.itmo.calls.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.RateLimitConfig;
+import ru.itmo.calls.model.RateLimitVerdict;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Per-connection flood protection: a token bucket per {@link SignalType} checked before
+ * a frame is decoded, and a cap on distinct users addressed per minute. Rejections within
+ * a minute add up; past {@code max-violations-per-minute} the connection is closed.
+ */
+@Service
+public class RateLimiter {
+    private static final String LIMITS_ATTRIBUTE = "rateLimits";
+    private static final SignalType[] TYPES = SignalType.values();
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final RateLimitConfig config;
+    private final SignallingMetrics metrics;
+    private final long[] intervals = new long[TYPES.length];
+    private final long[] tolerances = new long[TYPES.length];
+
+    public RateLimiter(RateLimitConfig config, SignallingMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        for (SignalType type : TYPES) {
+            RateLimitConfig.Limit limit = config.getTypes().getOrDefault(type, config.getDefaults());
+            if (limit.getPerSecond() > 0) {
+                intervals[type.ordinal()] = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getPerSecond());
+                tolerances[type.ordinal()] = intervals[type.ordinal()] * (Math.max(1, limit.getBurst()) - 1);
+            }
+        }
+    }
+
+    public RateLimitVerdict admit(Connection session, SignalType type) {
+        int slot = type.ordinal();
+        if (!config.isEnabled() || intervals[slot] == 0) {
+            return RateLimitVerdict.ALLOWED;
+        }
+        long now = System.nanoTime();
+        if (getLimits(session, now).tryAcquire(slot, now, intervals[slot], tolerances[slot])) {
+            return RateLimitVerdict.ALLOWED;
+        }
+        metrics.rateLimited(type);
+        return violation(session, now);
+    }
+
+    public RateLimitVerdict admitTarget(Connection session, int targetUserId) {
+        if (!config.isEnabled() || config.getMaxTargetsPerMinute() <= 0) {
+            return RateLimitVerdict.ALLOWED;
+        }
+        long now = System.nanoTime();
+        if (getLimits(session, now).admitTarget(targetUserId, now, WINDOW_NANOS)) {
+            return RateLimitVerdict.ALLOWED;
+        }
+        metrics.targetLimited();
+        return violation(session, now);
+    }
+
+    private RateLimitVerdict violation(Connection session, long now) {
+        int violations = getLimits(session, now).recordViolation(now, WINDOW_NANOS);
+        if (violations < config.getMaxViolationsPerMinute()) {
+            return RateLimitVerdict.REJECTED;
+        }
+        if (violations == config.getMaxViolationsPerMinute()) {
+            metrics.floodDisconnected();
+        }
+        return RateLimitVerdict.DISCONNECT;
+    }
+
+    private ConnectionLimits getLimits(Connection session, long now) {
+        return (ConnectionLimits) session.getAttributes().computeIfAbsent(
+                LIMITS_ATTRIBUTE,
+                key -> new ConnectionLimits(TYPES.length, Math.max(0, config.getMaxTargetsPerMinute()), now)
+        );
+    }
+}
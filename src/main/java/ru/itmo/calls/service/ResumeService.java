@@ -0,0 +1,332 @@
+package ru.itmo.calls.service;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.config.ResumeConfig;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.UserIdentity;
+import ru.itmo.calls.model.WireFormat;
+import ru.itmo.calls.transport.Connection;
+
+/**
+ * Resumable sessions. Every authenticated user gets a resume token and a bounded ring of
+ * recent replayable frames, numbered from 1 in the order they were sent. When the
+ * socket drops, frames for the user are buffered for the grace period instead of failing;
+ * a reconnect that presents the token with the number of replayable frames it received
+ * ({@code lastSeq}) gets everything after that replayed in order.
+ * <p>
+ * Replayable frames are all frames except AUTH*, PING, PONG and ERROR.
+ */
+@Service
+public class ResumeService {
+    private static final Logger log = LoggerFactory.getLogger(ResumeService.class);
+    private static final int WHEEL_SIZE = 64;
+    private static final int TOKEN_BYTES = 24;
+
+    private final ResumeConfig config;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Resumable> byToken = new ConcurrentHashMap<>();
+    private final IntConcurrentMap<Resumable> byUser = new IntConcurrentMap<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    private TimingWheel<Resumable> graceWheel;
+    private volatile IntConsumer expiryHandler = userId -> { };
+
+    public ResumeService(ResumeConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+
+        Gauge.builder("signalling.resume.buffered", bufferedBytes, AtomicLong::get)
+                .description("Bytes held in replay buffers")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("signalling.resume.sessions", byUser, IntConcurrentMap::size)
+                .description("Users with a replay buffer")
+                .register(meterRegistry);
+        Gauge.builder("signalling.resume.detached", this, ResumeService::countDetached)
+                .description("Users in their reconnect grace period")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void initWheel() {
+        graceWheel = new TimingWheel<>(TimeUnit.SECONDS.toNanos(1), WHEEL_SIZE, System.nanoTime());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public void onExpired(IntConsumer handler) {
+        this.expiryHandler = handler;
+    }
+
+    /**
+     * Starts recording a freshly authenticated session, replacing any earlier one of the user.
+     *
+     * @return the resume token to hand to the client
+     */
+    public String open(UserIdentity identity, Connection session, OutboundQueue queue) {
+        Resumable resumable = new Resumable(identity, WireFormat.of(session.getAttributes()), newToken());
+        Resumable previous = byUser.put(identity.userId(), resumable);
+        if (previous != null) {
+            discard(previous);
+        }
+        byToken.put(resumable.token, resumable);
+
+        synchronized (resumable) {
+            resumable.attach(session, queue);
+        }
+        return resumable.token;
+    }
+
+    /**
+     * Keeps the user's frames buffered after {@code session} closed.
+     *
+     * @return {@code false} if the session is not resumable, so the user should be
+     * treated as gone right away
+     */
+    public boolean detach(int userId, Connection session) {
+        Resumable resumable = byUser.get(userId);
+        if (resumable == null) {
+            return false;
+        }
+
+        synchronized (resumable) {
+            if (resumable.discarded || resumable.session != session) {
+                return false;
+            }
+            resumable.session = null;
+            resumable.queue = null;
+            resumable.detachedAt = System.nanoTime();
+        }
+        graceWheel.schedule(resumable, resumable.detachedAt + config.getGracePeriod().toNanos());
+        log.debug("User {} detached, buffering frames for {}", userId, config.getGracePeriod());
+        return true;
+    }
+
+    public boolean isDetached(int userId) {
+        Resumable resumable = byUser.get(userId);
+        return resumable != null && resumable.queue == null && !resumable.discarded;
+    }
+
+    /**
+     * Buffers a frame for a detached user. The encoder is given the wire format of the
+     * user's last session.
+     *
+     * @return {@code false} if the user has no resumable session
+     */
+    public boolean offer(int userId, SignalType type, Function<WireFormat, WebSocketMessage<?>> encoder) {
+        Resumable resumable = byUser.get(userId);
+        if (resumable == null) {
+            return false;
+        }
+
+        OutboundQueue queue;
+        WebSocketMessage<?> message;
+        synchronized (resumable) {
+            if (resumable.discarded) {
+                return false;
+            }
+            message = encoder.apply(resumable.format);
+            // A socket that is already closing would drop the frame without recording it
+            queue = resumable.queue != null && resumable.session.isOpen() ? resumable.queue : null;
+            if (queue == null) {
+                if (isReplayable(type)) {
+                    resumable.append(type, message);
+                }
+                return true;
+            }
+        }
+        // Outside the lock: an overflow may close the queue, which records into this session
+        if (queue.enqueue(type, message)) {
+            return true;
+        }
+        synchronized (resumable) {
+            // The socket closed in between: keep the frame after those its queue handed over
+            if (!queue.isClosed() || resumable.discarded || (resumable.queue != null && resumable.queue != queue)) {
+                return false;
+            }
+            if (isReplayable(type)) {
+                resumable.append(type, message);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Moves a resumable session onto a new socket. {@code authSuccess} builds the
+     * confirmation carrying the rotated token; it is queued ahead of the replayed frames.
+     *
+     * @return the resumed identity, or {@code null} if the token is unknown, expired, the
+     * wire format changed, or frames after {@code lastSeq} are no longer buffered
+     */
+    public UserIdentity resume(
+            String token,
+            long lastSeq,
+            Connection session,
+            OutboundQueue queue,
+            Function<String, WebSocketMessage<?>> authSuccess
+    ) {
+        Resumable resumable = byToken.get(token);
+        if (resumable == null) {
+            return null;
+        }
+
+        synchronized (resumable) {
+            if (resumable.discarded || resumable.format != WireFormat.of(session.getAttributes())) {
+                return null;
+            }
+            if (lastSeq < resumable.firstSeq() - 1 || lastSeq >= resumable.nextSeq) {
+                log.info("User {} cannot resume from frame {}: buffer holds {}..{}",
+                        resumable.identity.userId(), lastSeq, resumable.firstSeq(), resumable.nextSeq - 1);
+                return null;
+            }
+
+            byToken.remove(resumable.token, resumable);
+            resumable.token = newToken();
+            byToken.put(resumable.token, resumable);
+
+            queue.enqueueReplay(SignalType.AUTH_SUCCESS, authSuccess.apply(resumable.token));
+            int replayed = 0;
+            for (Entry entry : resumable.frames) {
+                if (entry.seq > lastSeq) {
+                    queue.enqueueReplay(entry.type, entry.message);
+                    replayed++;
+                }
+            }
+            resumable.attach(session, queue);
+            log.info("User {} resumed, replaying {} frames", resumable.identity.userId(), replayed);
+        }
+        return resumable.identity;
+    }
+
+    @Scheduled(fixedRateString = "${signalling.resume.tick:1000}")
+    public synchronized void tick() {
+        graceWheel.advance(System.nanoTime(), this::expire);
+    }
+
+    private void expire(Resumable resumable) {
+        int userId = resumable.identity.userId();
+        synchronized (resumable) {
+            if (resumable.discarded || resumable.queue != null
+                    || System.nanoTime() - resumable.detachedAt < config.getGracePeriod().toNanos()) {
+                return;
+            }
+        }
+        if (byUser.remove(userId, resumable)) {
+            discard(resumable);
+            log.info("User {} did not reconnect within {}", userId, config.getGracePeriod());
+            expiryHandler.accept(userId);
+        }
+    }
+
+    private void discard(Resumable resumable) {
+        synchronized (resumable) {
+            resumable.discarded = true;
+            byToken.remove(resumable.token, resumable);
+            bufferedBytes.addAndGet(-resumable.bytes);
+            resumable.frames.clear();
+            resumable.bytes = 0;
+        }
+    }
+
+    private int countDetached() {
+        int[] detached = new int[1];
+        byUser.forEach((userId, resumable) -> {
+            if (resumable.queue == null) {
+                detached[0]++;
+            }
+        });
+        return detached[0];
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static boolean isReplayable(SignalType type) {
+        return switch (type) {
+            case AUTH, AUTH_SUCCESS, AUTH_FAILED, PING, PONG, ERROR -> false;
+            default -> true;
+        };
+    }
+
+    private record Entry(long seq, SignalType type, WebSocketMessage<?> message, int size) {
+    }
+
+    /**
+     * Guarded by its own monitor.
+     */
+    private final class Resumable {
+        private final UserIdentity identity;
+        private final WireFormat format;
+        private final ArrayDeque<Entry> frames = new ArrayDeque<>();
+        private String token;
+        private long nextSeq = 1;
+        private long bytes;
+        private Connection session;
+        private volatile OutboundQueue queue;
+        private long detachedAt;
+        private volatile boolean discarded;
+
+        private Resumable(UserIdentity identity, WireFormat format, String token) {
+            this.identity = identity;
+            this.format = format;
+            this.token = token;
+        }
+
+        private void attach(Connection session, OutboundQueue queue) {
+            this.session = session;
+            this.queue = queue;
+            queue.recordTo((type, message) -> record(queue, type, message));
+        }
+
+        private void record(OutboundQueue from, SignalType type, WebSocketMessage<?> message) {
+            if (!isReplayable(type)) {
+                return;
+            }
+            synchronized (this) {
+                if (!discarded && queue == from) {
+                    append(type, message);
+                }
+            }
+        }
+
+        private long firstSeq() {
+            Entry first = frames.peekFirst();
+            return first != null ? first.seq : nextSeq;
+        }
+
+        private void append(SignalType type, WebSocketMessage<?> message) {
+            int size = message.getPayloadLength();
+            frames.addLast(new Entry(nextSeq++, type, message, size));
+            bytes += size;
+            bufferedBytes.addAndGet(size);
+
+            while (!frames.isEmpty()
+                    && (frames.size() > config.getMaxBufferedFrames() || bytes > config.getMaxBufferedBytes())) {
+                Entry evicted = frames.removeFirst();
+                bytes -= evicted.size;
+                bufferedBytes.addAndGet(-evicted.size);
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package ru.itmo.calls.service;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.RoomConfig;
+import ru.itmo.calls.exception.InvalidMessageException;
+import ru.itmo.calls.exception.UserOfflineException;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+
+/**
+ * Multi-party rooms on this node. Members are kept in a concurrent key set, so joins and
+ * leaves never copy the membership and a broadcast iterates it without locking. Each
+ * broadcast is encoded once into a {@link SharedFrame}; delivery only enqueues that frame
+ * on every member's outbound queue, whose writers then send in parallel.
+ * <p>
+ * Room ids are sequential, so they grant nothing: a user may only join a room a member
+ * invited them to with {@code ROOM_INVITE}. The invite is used up by the join.
+ */
+@Service
+public class RoomService {
+    private static final Logger log = LoggerFactory.getLogger(RoomService.class);
+
+    private final RoomConfig config;
+    private final MessageSenderService messageSenderService;
+    private final WireCodec wireCodec;
+    private final Timer broadcastTimer;
+
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> roomsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRoomId = new AtomicInteger();
+
+    public RoomService(
+            RoomConfig config,
+            MessageSenderService messageSenderService,
+            WireCodec wireCodec,
+            MeterRegistry meterRegistry
+    ) {
+        this.config = config;
+        this.messageSenderService = messageSenderService;
+        this.wireCodec = wireCodec;
+        this.broadcastTimer = Timer.builder("signalling.room.broadcast")
+                .description("Time spent encoding a room broadcast and queueing it for every member")
+                .register(meterRegistry);
+        Gauge.builder("signalling.rooms", rooms, Map::size)
+                .description("Rooms with at least one member on this node")
+                .register(meterRegistry);
+    }
+
+    public static boolean handles(SignalType type) {
+        return switch (type) {
+            case ROOM_CREATE, ROOM_INVITE, ROOM_JOIN, ROOM_LEAVE, ROOM_BROADCAST -> true;
+            default -> false;
+        };
+    }
+
+    public void route(SignalFrame message, Integer fromUserId) {
+        if (!config.isEnabled()) {
+            throw new InvalidMessageException("Rooms are disabled");
+        }
+        switch (message.type()) {
+            case ROOM_CREATE -> create(fromUserId);
+            case ROOM_INVITE -> invite(requireRoomId(message), fromUserId, wireCodec.readUsers(message));
+            case ROOM_JOIN -> join(requireRoomId(message), fromUserId);
+            case ROOM_LEAVE -> leave(requireRoomId(message), fromUserId);
+            case ROOM_BROADCAST -> broadcast(requireRoomId(message), message.withFrom(fromUserId));
+            default -> throw new InvalidMessageException("Unsupported room message type: " + message.type());
+        }
+    }
+
+    /**
+     * @return the new room's id; the creator is its first member
+     */
+    public int create(Integer userId) {
+        Room room = new Room(nextRoomId.incrementAndGet());
+        room.invited.add(userId);
+        rooms.put(room.id, room);
+        try {
+            join(room.id, userId);
+        } catch (RuntimeException e) {
+            rooms.remove(room.id, room);
+            throw e;
+        }
+        messageSenderService.sendControl(userId, SignalType.ROOM_CREATED, null, room.id);
+        log.info("Room {} created by user {}", room.id, userId);
+        return room.id;
+    }
+
+    /**
+     * Lets {@code userIds} join the room and tells each of them with {@code ROOM_INVITED}.
+     * Only members may invite.
+     */
+    public void invite(int roomId, Integer inviterId, int[] userIds) {
+        Room room = rooms.get(roomId);
+        if (room == null) {
+            throw new InvalidMessageException("Not a member of room " + roomId);
+        }
+
+        Set<Integer> invited = new HashSet<>();
+        synchronized (room) {
+            if (room.closed || !room.members.contains(inviterId)) {
+                throw new InvalidMessageException("Not a member of room " + roomId);
+            }
+            for (int userId : userIds) {
+                if (room.members.contains(userId) || room.invited.contains(userId)) {
+                    continue;
+                }
+                if (room.invited.size() >= config.getMaxMembers()) {
+                    throw new InvalidMessageException("Too many pending invites to room " + roomId);
+                }
+                room.invited.add(userId);
+                invited.add(userId);
+            }
+        }
+
+        for (Integer userId : invited) {
+            notify(userId, SignalType.ROOM_INVITED, inviterId, roomId);
+        }
+        log.debug("User {} invited {} users to room {}", inviterId, invited.size(), roomId);
+    }
+
+    public void join(int roomId, Integer userId) {
+        Room room = rooms.get(roomId);
+        if (room == null) {
+            // Same answer as for a room that exists, so ids cannot be probed
+            throw new InvalidMessageException("Not invited to room " + roomId);
+        }
+
+        synchronized (room) {
+            if (room.members.contains(userId)) {
+                return;
+            }
+            if (room.closed || !room.invited.contains(userId)) {
+                throw new InvalidMessageException("Not invited to room " + roomId);
+            }
+            if (room.members.size() >= config.getMaxMembers()) {
+                throw new InvalidMessageException("Room " + roomId + " is full");
+            }
+            roomsByUser.compute(userId, (key, joined) -> {
+                Set<Integer> set = joined != null ? joined : ConcurrentHashMap.newKeySet();
+                if (set.size() >= config.getMaxRoomsPerUser()) {
+                    throw new InvalidMessageException("Too many rooms joined");
+                }
+                set.add(roomId);
+                return set;
+            });
+            room.invited.remove(userId);
+            room.members.add(userId);
+        }
+
+        for (Integer member : room.members) {
+            if (!member.equals(userId)) {
+                notify(member, SignalType.ROOM_MEMBER_JOINED, userId, roomId);
+                notify(userId, SignalType.ROOM_MEMBER_JOINED, member, roomId);
+            }
+        }
+        log.debug("User {} joined room {}", userId, roomId);
+    }
+
+    public void leave(int roomId, Integer userId) {
+        Room room = rooms.get(roomId);
+        if (room == null || !removeMember(room, userId)) {
+            throw new InvalidMessageException("Not a member of room " + roomId);
+        }
+        for (Integer member : room.members) {
+            notify(member, SignalType.ROOM_MEMBER_LEFT, userId, roomId);
+        }
+        log.debug("User {} left room {}", userId, roomId);
+    }
+
+    /**
+     * Removes a user who is gone for good from every room they joined.
+     */
+    public void leaveAll(Integer userId) {
+        Set<Integer> joined = roomsByUser.get(userId);
+        if (joined == null) {
+            return;
+        }
+        for (Integer roomId : joined) {
+            Room room = rooms.get(roomId);
+            if (room != null && removeMember(room, userId)) {
+                for (Integer member : room.members) {
+                    notify(member, SignalType.ROOM_MEMBER_LEFT, userId, roomId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param message the sender's frame, with {@code from} set and the room id in {@code to}
+     */
+    public void broadcast(int roomId, SignalFrame message) {
+        Room room = rooms.get(roomId);
+        if (room == null || !room.members.contains(message.from())) {
+            throw new InvalidMessageException("Not a member of room " + roomId);
+        }
+
+        long start = System.nanoTime();
+        SharedFrame shared = new SharedFrame(message, wireCodec);
+        for (Integer member : room.members) {
+            if (member.equals(message.from())) {
+                continue;
+            }
+            try {
+                messageSenderService.sendShared(member, shared);
+            } catch (UserOfflineException e) {
+                log.debug("Room {} member {} is offline, broadcast skipped", roomId, member);
+            }
+        }
+        broadcastTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public Set<Integer> getMembers(int roomId) {
+        Room room = rooms.get(roomId);
+        return room != null ? Set.copyOf(room.members) : Set.of();
+    }
+
+    private boolean removeMember(Room room, Integer userId) {
+        synchronized (room) {
+            if (!room.members.remove(userId)) {
+                return false;
+            }
+            roomsByUser.computeIfPresent(userId, (key, joined) -> {
+                joined.remove(room.id);
+                return joined.isEmpty() ? null : joined;
+            });
+            if (room.members.isEmpty()) {
+                room.closed = true;
+                rooms.remove(room.id, room);
+                log.info("Room {} closed", room.id);
+            }
+            return true;
+        }
+    }
+
+    private void notify(Integer userId, SignalType type, Integer from, int roomId) {
+        try {
+            messageSenderService.sendControl(userId, type, from, roomId);
+        } catch (UserOfflineException e) {
+            log.debug("Room {} member {} is offline, {} skipped", roomId, userId, type);
+        }
+    }
+
+    private static int requireRoomId(SignalFrame message) {
+        if (message.to() == null) {
+            throw new InvalidMessageException("Room id (to) is required");
+        }
+        return message.to();
+    }
+
+    private static final class Room {
+        private final int id;
+        private final Set<Integer> members = ConcurrentHashMap.newKeySet();
+        /** Guarded by the room's monitor. */
+        private final Set<Integer> invited = new HashSet<>();
+        private boolean closed;
+
+        private Room(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.itmo.calls.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Preset deflate dictionary of lines that recur in browser SDP. Deflate matches
+ * nearer the end of the dictionary more cheaply, so the most frequent lines come last.
+ * Clients must use exactly these bytes.
+ */
+final class SdpDictionary {
+    private static final String[] LINES = {
+            "a=rtpmap:35 AV1/90000",
+            "a=rtpmap:98 VP9/90000",
+            "a=fmtp:98 profile-id=0",
+            "a=rtpmap:45 AV1/90000",
+            "a=rtpmap:127 red/90000",
+            "a=rtpmap:125 ulpfec/90000",
+            "a=rtpmap:63 red/48000/2",
+            "a=fmtp:63 111/111",
+            "a=rtpmap:9 G722/8000",
+            "a=rtpmap:0 PCMU/8000",
+            "a=rtpmap:8 PCMA/8000",
+            "a=rtpmap:13 CN/8000",
+            "a=rtpmap:110 telephone-event/48000",
+            "a=rtpmap:126 telephone-event/8000",
+            "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+            "a=fmtp:108 level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42e01f",
+            "a=rtpmap:102 H264/90000",
+            "a=rtpmap:108 H264/90000",
+            "a=rtpmap:96 VP8/90000",
+            "a=rtpmap:97 rtx/90000",
+            "a=fmtp:97 apt=96",
+            "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+            "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+            "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+            "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+            "a=extmap:9 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id",
+            "a=extmap:10 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id",
+            "a=extmap:13 urn:3gpp:video-orientation",
+            "a=extmap:14 urn:ietf:params:rtp-hdrext:toffset",
+            "a=extmap:12 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay",
+            "a=extmap:11 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type",
+            "a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing",
+            "a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space",
+            "a=extmap-allow-mixed",
+            "a=msid-semantic: WMS",
+            "a=group:BUNDLE 0 1",
+            "a=ice-options:trickle",
+            "a=fingerprint:sha-256 ",
+            "a=setup:actpass",
+            "a=setup:active",
+            "a=sendrecv",
+            "a=rtcp-mux",
+            "a=rtcp-rsize",
+            "a=rtcp:9 IN IP4 0.0.0.0",
+            "c=IN IP4 0.0.0.0",
+            "m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103 104 105 106 107 108 109 127 125 39 40 45 46 98 99 100 101",
+            "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126",
+            "a=rtpmap:111 opus/48000/2",
+            "a=fmtp:111 minptime=10;useinbandfec=1",
+            "a=rtcp-fb:111 transport-cc",
+            "a=rtcp-fb:96 goog-remb",
+            "a=rtcp-fb:96 transport-cc",
+            "a=rtcp-fb:96 ccm fir",
+            "a=rtcp-fb:96 nack",
+            "a=rtcp-fb:96 nack pli",
+            "a=ssrc-group:FID ",
+            " cname:",
+            " msid:",
+            "a=ssrc:",
+            "a=msid:",
+            "a=ice-ufrag:",
+            "a=ice-pwd:",
+            "a=mid:",
+            "t=0 0",
+            "s=-",
+            "o=- ",
+            " 2 IN IP4 127.0.0.1",
+            "v=0",
+    };
+
+    private static final byte[] BYTES = String.join("\r\n", LINES).concat("\r\n").getBytes(StandardCharsets.UTF_8);
+
+    private SdpDictionary() {
+    }
+
+    static byte[] bytes() {
+        return BYTES.clone();
+    }
+}
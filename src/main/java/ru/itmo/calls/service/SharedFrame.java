@@ -0,0 +1,44 @@
+package ru.itmo.calls.service;
+
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.WireFormat;
+
+/**
+ * A frame sent to many recipients. It is encoded at most once per wire format and the
+ * resulting message is shared by every recipient's outbound queue, so fan-out does no
+ * per-recipient JSON work. Encoded messages are never modified after they are built.
+ */
+public final class SharedFrame {
+    private final SignalFrame frame;
+    private final WireCodec wireCodec;
+
+    private volatile WebSocketMessage<?> json;
+    private volatile WebSocketMessage<?> binary;
+
+    public SharedFrame(SignalFrame frame, WireCodec wireCodec) {
+        this.frame = frame;
+        this.wireCodec = wireCodec;
+    }
+
+    public SignalFrame frame() {
+        return frame;
+    }
+
+    public WebSocketMessage<?> encoded(WireFormat format) {
+        if (format == WireFormat.BINARY) {
+            WebSocketMessage<?> message = binary;
+            if (message == null) {
+                message = wireCodec.encode(format, frame);
+                binary = message;
+            }
+            return message;
+        }
+        WebSocketMessage<?> message = json;
+        if (message == null) {
+            message = wireCodec.encode(format, frame);
+            json = message;
+        }
+        return message;
+    }
+}
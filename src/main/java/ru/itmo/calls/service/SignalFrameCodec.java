@@ -0,0 +1,236 @@
+package ru.itmo.calls.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.exception.InvalidMessageException;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass codec for relayed frames. Decoding reads the envelope with a streaming
+ * parser and validates the payload in the same pass; encoding splices the envelope
+ * around the untouched payload text.
+ */
+@Service
+public class SignalFrameCodec {
+    private static final int ENVELOPE_OVERHEAD = 64;
+    private static final int MAX_TYPE_LENGTH = 32;
+    private static final int SEEN_TYPE = 1;
+    private static final int SEEN_TO = 1 << 1;
+    private static final int SEEN_PAYLOAD = 1 << 2;
+    private static final Map<String, SignalType> TYPES_BY_NAME = new HashMap<>();
+
+    static {
+        for (SignalType type : SignalType.values()) {
+            TYPES_BY_NAME.put(type.name(), type);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final PayloadValidator payloadValidator;
+
+    public SignalFrameCodec(ObjectMapper objectMapper, PayloadValidator payloadValidator) {
+        this.objectMapper = objectMapper;
+        this.payloadValidator = payloadValidator;
+    }
+
+    /**
+     * AUTH payloads are not validated here: the authentication path reports its own failures.
+     * A repeated {@code type}, {@code to} or {@code payload} key is rejected, since the
+     * payload is validated for the type seen so far.
+     */
+    public SignalFrame decode(String text) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidMessageException("Message must be a JSON object");
+            }
+
+            SignalType type = null;
+            Integer to = null;
+            int payloadStart = -1;
+            int payloadEnd = -1;
+            boolean validated = false;
+            int seen = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "type" -> {
+                        seen = markSeen(seen, SEEN_TYPE, field);
+                        type = value == JsonToken.VALUE_NULL ? null : parseType(parser.getText());
+                    }
+                    case "to" -> {
+                        seen = markSeen(seen, SEEN_TO, field);
+                        to = parseUserId(parser, value);
+                    }
+                    case "payload" -> {
+                        seen = markSeen(seen, SEEN_PAYLOAD, field);
+                        if (value != JsonToken.VALUE_NULL) {
+                            payloadStart = (int) parser.currentTokenLocation().getCharOffset();
+                            if (type != null && type != SignalType.AUTH) {
+                                payloadValidator.validatePayload(type, parser);
+                                validated = true;
+                            } else {
+                                parser.skipChildren();
+                            }
+                            payloadEnd = payloadEnd(parser);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (!validated && type != null && type != SignalType.AUTH) {
+                validateDetached(type, text, payloadStart, payloadEnd);
+            }
+
+            return SignalFrame.json(type, to, text, payloadStart, payloadEnd);
+        } catch (IOException e) {
+            throw new InvalidMessageException("Malformed message: " + e.getMessage(), e);
+        }
+    }
+
+    private static int markSeen(int seen, int key, String field) {
+        if ((seen & key) != 0) {
+            throw new InvalidMessageException("Duplicate '" + field + "' field");
+        }
+        return seen | key;
+    }
+
+    /**
+     * Offset just past the payload's last token. Strings are decoded lazily, so a string
+     * payload the validator did not read must be finished before the parser has moved past it.
+     */
+    private static int payloadEnd(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            parser.finishToken();
+        }
+        return (int) parser.currentLocation().getCharOffset();
+    }
+
+    /**
+     * Reads the type without parsing the frame, when the envelope starts with it as
+     * clients send it: {@code {"type":"NAME", ...}}.
+     *
+     * @return the type, or {@code null} if it is not the first field or is unknown
+     */
+    public SignalType peekType(String text) {
+        int i = skipWhitespace(text, 0);
+        if (i >= text.length() || text.charAt(i) != '{') {
+            return null;
+        }
+        i = skipWhitespace(text, i + 1);
+        if (!text.startsWith("\"type\"", i)) {
+            return null;
+        }
+        i = skipWhitespace(text, i + 6);
+        if (i >= text.length() || text.charAt(i) != ':') {
+            return null;
+        }
+        i = skipWhitespace(text, i + 1);
+        if (i >= text.length() || text.charAt(i) != '"') {
+            return null;
+        }
+        int end = text.indexOf('"', i + 1);
+        if (end < 0 || end - i - 1 > MAX_TYPE_LENGTH) {
+            return null;
+        }
+        return TYPES_BY_NAME.get(text.substring(i + 1, end));
+    }
+
+    private static int skipWhitespace(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    public String encode(SignalFrame frame) {
+        if (!frame.hasPayload()) {
+            return encode(frame, null, 0, 0);
+        }
+        return encode(frame, frame.text(), frame.payloadStart(), frame.payloadEnd());
+    }
+
+    /**
+     * Encodes a frame whose payload was transcoded from another wire format.
+     */
+    public String encode(SignalFrame frame, String payloadJson) {
+        return payloadJson == null ? encode(frame, null, 0, 0) : encode(frame, payloadJson, 0, payloadJson.length());
+    }
+
+    private String encode(SignalFrame frame, String payload, int payloadStart, int payloadEnd) {
+        String typeName = frame.type().name();
+        StringBuilder json = new StringBuilder(ENVELOPE_OVERHEAD + typeName.length() + payloadEnd - payloadStart);
+
+        json.append("{\"type\":\"").append(typeName).append('"');
+        if (frame.from() != null) {
+            json.append(",\"from\":").append(frame.from().intValue());
+        }
+        if (frame.to() != null) {
+            json.append(",\"to\":").append(frame.to().intValue());
+        }
+        if (payload != null) {
+            json.append(",\"payload\":").append(payload, payloadStart, payloadEnd);
+        }
+        return json.append('}').toString();
+    }
+
+    public JsonNode readPayload(SignalFrame frame) {
+        if (!frame.hasPayload()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(frame.text().substring(frame.payloadStart(), frame.payloadEnd()));
+        } catch (IOException e) {
+            throw new InvalidMessageException("Malformed payload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fallback for frames whose payload precedes their type, so it could not be
+     * validated while streaming.
+     */
+    private void validateDetached(SignalType type, String text, int payloadStart, int payloadEnd) throws IOException {
+        if (payloadStart < 0) {
+            payloadValidator.validatePayload(type, null);
+            return;
+        }
+        try (JsonParser payload = objectMapper.getFactory().createParser(text.substring(payloadStart, payloadEnd))) {
+            payload.nextToken();
+            payloadValidator.validatePayload(type, payload);
+        }
+    }
+
+    private static SignalType parseType(String name) {
+        try {
+            return SignalType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMessageException("Unknown message type: " + name);
+        }
+    }
+
+    private static Integer parseUserId(JsonParser parser, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            case VALUE_STRING -> {
+                try {
+                    yield Integer.valueOf(parser.getText());
+                } catch (NumberFormatException e) {
+                    throw new InvalidMessageException("Recipient (to) must be a user id");
+                }
+            }
+            default -> throw new InvalidMessageException("Recipient (to) must be a user id");
+        };
+    }
+}
@@ -0,0 +1,260 @@
+package ru.itmo.calls.service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.itmo.calls.model.AdmissionVerdict;
+import ru.itmo.calls.model.AuthOutcome;
+import ru.itmo.calls.model.SignalType;
+
+/**
+ * Meters for the signalling hot path. Every meter is registered up front and looked up
+ * by {@link SignalType#ordinal()}, so recording never allocates; with
+ * {@code signalling.metrics.enabled=false} nothing is registered and every call is a
+ * single branch. Tags are limited to message types and outcomes, never user ids.
+ */
+@Component
+public class SignallingMetrics {
+    private static final SignalType[] TYPES = SignalType.values();
+    private static final AdmissionVerdict[] VERDICTS = AdmissionVerdict.values();
+    private static final AuthOutcome[] AUTH_OUTCOMES = AuthOutcome.values();
+
+    private final boolean enabled;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final Counter[] inboundFrames = new Counter[TYPES.length];
+    private final Timer[] routed = new Timer[TYPES.length];
+    private final Timer[] routeFailed = new Timer[TYPES.length];
+    private Counter inboundDropped;
+    private final Counter[] rateLimited = new Counter[TYPES.length];
+    private Counter targetLimited;
+    private Counter floodDisconnects;
+    private final Counter[] handshakesRejected = new Counter[VERDICTS.length];
+
+    private Timer sendMessage;
+    private Timer sendFrame;
+    private Timer sendControl;
+    private Counter sendOffline;
+    private Counter sendError;
+
+    private final Timer[] auth = new Timer[AUTH_OUTCOMES.length];
+
+    private Timer heartbeatSweep;
+    private Counter heartbeatTimeouts;
+
+    public SignallingMetrics(
+            @Value("${signalling.metrics.enabled:true}") boolean enabled,
+            MeterRegistry meterRegistry,
+            OnlineUsersService onlineUsersService
+    ) {
+        this.enabled = enabled;
+        if (enabled) {
+            register(meterRegistry, onlineUsersService);
+        }
+    }
+
+    private void register(MeterRegistry registry, OnlineUsersService onlineUsersService) {
+        for (SignalType type : TYPES) {
+            inboundFrames[type.ordinal()] = Counter.builder("signalling.frames.inbound")
+                    .description("Frames received from clients")
+                    .tag("type", type.name())
+                    .register(registry);
+            routed[type.ordinal()] = routeTimer(registry, type, "success");
+            routeFailed[type.ordinal()] = routeTimer(registry, type, "error");
+            rateLimited[type.ordinal()] = Counter.builder("signalling.ratelimit.rejected")
+                    .description("Frames rejected by the sender's token bucket")
+                    .tag("type", type.name())
+                    .register(registry);
+        }
+        targetLimited = Counter.builder("signalling.ratelimit.targets")
+                .description("Frames rejected because the sender addressed too many distinct users")
+                .register(registry);
+        floodDisconnects = Counter.builder("signalling.ratelimit.disconnects")
+                .description("Connections closed for repeated rate limit violations")
+                .register(registry);
+
+        for (AdmissionVerdict verdict : VERDICTS) {
+            if (verdict == AdmissionVerdict.ADMITTED) {
+                continue;
+            }
+            handshakesRejected[verdict.ordinal()] = Counter.builder("signalling.handshakes.rejected")
+                    .description("WebSocket handshakes refused with 503 by admission control")
+                    .tag("reason", verdict.name())
+                    .register(registry);
+        }
+
+        inboundDropped = Counter.builder("signalling.frames.inbound.dropped")
+                .description("Frames dropped because the sender's inbound mailbox was full")
+                .register(registry);
+
+        sendMessage = sendTimer(registry, "message");
+        sendFrame = sendTimer(registry, "frame");
+        sendControl = sendTimer(registry, "control");
+        sendOffline = sendFailures(registry, "offline");
+        sendError = sendFailures(registry, "error");
+
+        for (AuthOutcome outcome : AUTH_OUTCOMES) {
+            auth[outcome.ordinal()] = authTimer(registry, outcome.name().toLowerCase(Locale.ROOT));
+        }
+
+        heartbeatSweep = Timer.builder("signalling.heartbeat.sweep")
+                .description("Time spent on one heartbeat wheel tick")
+                .register(registry);
+        heartbeatTimeouts = Counter.builder("signalling.heartbeat.timeouts")
+                .description("Sessions closed for missing pings")
+                .register(registry);
+
+        Gauge.builder("signalling.users.online", onlineUsersService, OnlineUsersService::getOnlineCount)
+                .description("Users with a session on this node")
+                .register(registry);
+        Gauge.builder("signalling.connections", connections, AtomicInteger::get)
+                .description("Open WebSocket connections, authenticated or not")
+                .register(registry);
+    }
+
+    private static Timer routeTimer(MeterRegistry registry, SignalType type, String outcome) {
+        return Timer.builder("signalling.route")
+                .description("Time spent routing one inbound frame")
+                .tag("type", type.name())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer sendTimer(MeterRegistry registry, String kind) {
+        return Timer.builder("signalling.send")
+                .description("Time spent handing one frame to a local queue or a peer node")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    private static Counter sendFailures(MeterRegistry registry, String reason) {
+        return Counter.builder("signalling.send.failures")
+                .description("Frames that could not be delivered")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static Timer authTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("signalling.auth")
+                .description("Latency of token validation by the configured auth provider")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * @return the start timestamp to pass back when recording, or 0 when metrics are disabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void inboundFrame(SignalType type) {
+        if (enabled && type != null) {
+            inboundFrames[type.ordinal()].increment();
+        }
+    }
+
+    public void inboundDropped() {
+        if (enabled) {
+            inboundDropped.increment();
+        }
+    }
+
+    public void rateLimited(SignalType type) {
+        if (enabled) {
+            rateLimited[type.ordinal()].increment();
+        }
+    }
+
+    public void targetLimited() {
+        if (enabled) {
+            targetLimited.increment();
+        }
+    }
+
+    public void floodDisconnected() {
+        if (enabled) {
+            floodDisconnects.increment();
+        }
+    }
+
+    public void handshakeRejected(AdmissionVerdict verdict) {
+        if (enabled && verdict != AdmissionVerdict.ADMITTED) {
+            handshakesRejected[verdict.ordinal()].increment();
+        }
+    }
+
+    public void routed(SignalType type, long start, boolean success) {
+        if (enabled && type != null) {
+            record(success ? routed[type.ordinal()] : routeFailed[type.ordinal()], start);
+        }
+    }
+
+    public void messageSent(long start) {
+        if (enabled) {
+            record(sendMessage, start);
+        }
+    }
+
+    public void frameSent(long start) {
+        if (enabled) {
+            record(sendFrame, start);
+        }
+    }
+
+    public void controlSent(long start) {
+        if (enabled) {
+            record(sendControl, start);
+        }
+    }
+
+    public void sendFailed(boolean recipientOffline) {
+        if (enabled) {
+            (recipientOffline ? sendOffline : sendError).increment();
+        }
+    }
+
+    public void authCompleted(long start, AuthOutcome outcome) {
+        if (enabled) {
+            record(auth[outcome.ordinal()], start);
+        }
+    }
+
+    public void heartbeatSwept(long start) {
+        if (enabled) {
+            record(heartbeatSweep, start);
+        }
+    }
+
+    public void heartbeatTimedOut() {
+        if (enabled) {
+            heartbeatTimeouts.increment();
+        }
+    }
+
+    public void connectionOpened() {
+        connections.incrementAndGet();
+    }
+
+    public void connectionClosed() {
+        connections.decrementAndGet();
+    }
+
+    /**
+     * @return open WebSocket connections, counted even with metrics disabled
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    private static void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
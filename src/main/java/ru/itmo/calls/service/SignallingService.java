@@ -4,35 +4,65 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import ru.itmo.calls.exception.InvalidMessageException;
-import ru.itmo.calls.model.SignalMessage;
+import ru.itmo.calls.model.SignalFrame;
 import ru.itmo.calls.model.SignalType;
 
 @Service
 public class SignallingService {
     private static final Logger log = LoggerFactory.getLogger(SignallingService.class);
 
-    private final PayloadValidator payloadValidator;
     private final CallSignallingService callSignallingService;
     private final WebRTCSignallingService webRTCSignallingService;
     private final MessageSenderService messageSenderService;
+    private final RoomService roomService;
+    private final PresenceService presenceService;
+    private final SignallingMetrics metrics;
 
     public SignallingService(
-            PayloadValidator payloadValidator,
             CallSignallingService callSignallingService,
             WebRTCSignallingService webRTCSignallingService,
-            MessageSenderService messageSenderService
+            MessageSenderService messageSenderService,
+            RoomService roomService,
+            PresenceService presenceService,
+            SignallingMetrics metrics
     ) {
-        this.payloadValidator = payloadValidator;
         this.callSignallingService = callSignallingService;
         this.webRTCSignallingService = webRTCSignallingService;
         this.messageSenderService = messageSenderService;
+        this.roomService = roomService;
+        this.presenceService = presenceService;
+        this.metrics = metrics;
     }
 
-    public void routeMessage(SignalMessage message, Integer fromUserId) {
+    /**
+     * Routes a frame already decoded and payload-validated by {@link SignalFrameCodec}.
+     */
+    public void routeMessage(SignalFrame message, Integer fromUserId) {
+        long start = metrics.startTimer();
+        boolean routed = false;
+        try {
+            route(message, fromUserId);
+            routed = true;
+        } finally {
+            metrics.routed(message.type(), start, routed);
+        }
+    }
+
+    private void route(SignalFrame message, Integer fromUserId) {
         if (message.type() == null) {
             throw new InvalidMessageException("Message type is required");
         }
 
+        if (RoomService.handles(message.type())) {
+            roomService.route(message, fromUserId);
+            return;
+        }
+
+        if (PresenceService.handles(message.type())) {
+            presenceService.route(message, fromUserId);
+            return;
+        }
+
         if (message.to() == null) {
             throw new InvalidMessageException("Recipient (to) is required");
         }
@@ -41,14 +71,7 @@ public class SignallingService {
             throw new InvalidMessageException("Cannot call yourself");
         }
 
-        payloadValidator.validatePayload(message.type(), message.payload());
-
-        SignalMessage enrichedMessage = new SignalMessage(
-                message.type(),
-                fromUserId,
-                message.to(),
-                message.payload()
-        );
+        SignalFrame enrichedMessage = message.withFrom(fromUserId);
 
         log.debug(
                 "Routing message: type={}, from={}, to={}",
@@ -68,21 +91,20 @@ public class SignallingService {
     }
 
     private void handlePing(Integer fromUserId) {
-        SignalMessage pong = new SignalMessage(
-                SignalType.PONG,
-                null,
-                fromUserId,
-                null
-        );
-
         try {
-            messageSenderService.sendMessage(fromUserId, pong);
+            messageSenderService.sendControl(fromUserId, SignalType.PONG, null, fromUserId);
             log.debug("Pong sent to user {}", fromUserId);
         } catch (Exception e) {
             log.error("Failed to send pong to user {}", fromUserId, e);
         }
     }
 
+    public void handleDisconnect(Integer userId) {
+        callSignallingService.handleDisconnect(userId);
+        roomService.leaveAll(userId);
+        presenceService.unsubscribeAll(userId);
+    }
+
     public void sendError(Integer userId, String errorMessage) {
         messageSenderService.sendError(userId, errorMessage);
     }
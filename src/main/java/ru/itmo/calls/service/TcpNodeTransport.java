@@ -0,0 +1,251 @@
+package ru.itmo.calls.service;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.itmo.calls.config.ClusterConfig;
+import ru.itmo.calls.exception.NodeUnreachableException;
+import ru.itmo.calls.model.ForwardedFrame;
+import ru.itmo.calls.model.NodeMessage;
+import ru.itmo.calls.model.PresenceChange;
+
+/**
+ * Forwards frames over plain TCP, one outbound {@link NodeLink} per peer. Peers on
+ * 127.0.0.1 with distinct ports make a loopback cluster on a single machine.
+ * <p>
+ * An inbound connection is only read once its hello names a node in
+ * {@code signalling.cluster.peers} whose host is the connection's source address; frames
+ * from anyone else, including the users they claim to come from, are never delivered.
+ * <p>
+ * The same links carry presence for {@link GossipPresenceDirectory}. On startup every
+ * peer is connected to, and a peer seen with a new incarnation, i.e. one that restarted,
+ * has the link to it reconnected, so both sides learn each other's users.
+ */
+@Service
+@ConditionalOnProperty(name = "signalling.cluster.enabled", havingValue = "true")
+public class TcpNodeTransport implements NodeTransport {
+    private static final Logger log = LoggerFactory.getLogger(TcpNodeTransport.class);
+    private static final int HELLO_TIMEOUT_MILLIS = 5000;
+
+    private final ClusterConfig config;
+    private final ExecutorService clusterExecutor;
+    private final Map<String, NodeLink> links = new ConcurrentHashMap<>();
+    private final Map<String, Socket> inbound = new ConcurrentHashMap<>();
+    private final Map<String, Long> incarnations = new ConcurrentHashMap<>();
+    private final long incarnation = ThreadLocalRandom.current().nextLong();
+
+    private volatile Consumer<ForwardedFrame> receiver = frame -> { };
+    private volatile Consumer<ForwardedFrame> undeliverable = frame -> { };
+    private volatile PresenceGossip gossip;
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+
+    public TcpNodeTransport(ClusterConfig config, @Qualifier("clusterExecutor") ExecutorService clusterExecutor) {
+        this.config = config;
+        this.clusterExecutor = clusterExecutor;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(config.getHost(), config.getPort()));
+        running = true;
+        clusterExecutor.execute(this::acceptLoop);
+        log.info("Node {} accepting forwarded frames on {}:{}", config.getNodeId(), config.getHost(), config.getPort());
+
+        for (String nodeId : config.getPeers().keySet()) {
+            link(nodeId).resync();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.debug("Failed to close cluster listener", e);
+        }
+        links.values().forEach(NodeLink::close);
+    }
+
+    @Override
+    public void send(String nodeId, ForwardedFrame frame) {
+        NodeLink link = link(nodeId);
+        if (!link.enqueue(frame)) {
+            log.warn("Link to node {} is congested, frame for user {} dropped", nodeId, frame.recipient());
+            undeliverable.accept(frame);
+        }
+    }
+
+    @Override
+    public void setReceiver(Consumer<ForwardedFrame> receiver) {
+        this.receiver = receiver;
+    }
+
+    @Override
+    public void setUndeliverable(Consumer<ForwardedFrame> handler) {
+        this.undeliverable = handler;
+    }
+
+    @Override
+    public void publish(PresenceChange change) {
+        for (String nodeId : config.getPeers().keySet()) {
+            NodeLink link = link(nodeId);
+            if (!link.enqueue(change)) {
+                log.warn("Link to node {} is congested, presence of user {} will be resent", nodeId, change.userId());
+                link.resync();
+            }
+        }
+    }
+
+    @Override
+    public void setGossip(PresenceGossip gossip) {
+        this.gossip = gossip;
+    }
+
+    private NodeLink link(String nodeId) {
+        return links.computeIfAbsent(nodeId, this::openLink);
+    }
+
+    private int[] localUsers() {
+        PresenceGossip current = gossip;
+        return current != null ? current.localUsers() : new int[0];
+    }
+
+    private NodeLink openLink(String nodeId) {
+        String address = config.getPeers().get(nodeId);
+        if (address == null) {
+            throw new NodeUnreachableException(nodeId);
+        }
+        int separator = address.lastIndexOf(':');
+        return new NodeLink(
+                config.getNodeId(),
+                incarnation,
+                this::localUsers,
+                nodeId,
+                new InetSocketAddress(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1))),
+                config.getMaxBatchFrames(),
+                config.getMaxQueuedFrames(),
+                config.getReconnectBackoff().toNanos(),
+                config.getMaxReconnectBackoff().toNanos(),
+                clusterExecutor,
+                frame -> undeliverable.accept(frame)
+        );
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                clusterExecutor.execute(() -> readLoop(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to accept cluster connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        String nodeId = null;
+        try (socket) {
+            DataInputStream in = NodeLink.input(socket);
+            socket.setSoTimeout(HELLO_TIMEOUT_MILLIS);
+            NodeLink.Hello hello = NodeLink.readHello(in);
+            nodeId = hello.nodeId();
+            if (!isPeer(nodeId, socket.getInetAddress())) {
+                log.warn("Rejected cluster connection from {} claiming to be node {}", socket.getRemoteSocketAddress(), nodeId);
+                return;
+            }
+            socket.setSoTimeout(0);
+            log.info("Node {} connected from {}", nodeId, socket.getRemoteSocketAddress());
+            accepted(nodeId, hello.incarnation(), socket);
+
+            while (running) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    receive(nodeId, socket, NodeLink.read(in));
+                }
+            }
+        } catch (EOFException e) {
+            log.debug("Cluster connection from {} closed", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            if (running) {
+                log.warn("Cluster connection from {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            PresenceGossip current = gossip;
+            if (nodeId != null && inbound.remove(nodeId, socket) && current != null) {
+                current.peerReset(nodeId);
+            }
+        }
+    }
+
+    /**
+     * The peer announces all of its users next, replacing what an earlier connection said.
+     */
+    private void accepted(String nodeId, long peerIncarnation, Socket socket) {
+        inbound.put(nodeId, socket);
+        PresenceGossip current = gossip;
+        if (current != null) {
+            current.peerReset(nodeId);
+        }
+        if (!Objects.equals(incarnations.put(nodeId, peerIncarnation), peerIncarnation)) {
+            // A peer that (re)started knows none of this node's users
+            link(nodeId).resync();
+        }
+    }
+
+    private void receive(String nodeId, Socket socket, NodeMessage message) {
+        if (message instanceof ForwardedFrame frame) {
+            deliver(frame);
+            return;
+        }
+        PresenceGossip current = gossip;
+        // A replaced connection may still be draining changes older than the new one's
+        if (current != null && inbound.get(nodeId) == socket) {
+            current.peerChanged(nodeId, (PresenceChange) message);
+        }
+    }
+
+    private boolean isPeer(String nodeId, InetAddress source) throws IOException {
+        String address = config.getPeers().get(nodeId);
+        if (address == null || nodeId.equals(config.getNodeId())) {
+            return false;
+        }
+        for (InetAddress allowed : InetAddress.getAllByName(address.substring(0, address.lastIndexOf(':')))) {
+            if (allowed.equals(source)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deliver(ForwardedFrame frame) {
+        try {
+            receiver.accept(frame);
+        } catch (Exception e) {
+            log.warn("Failed to deliver forwarded frame to user {}: {}", frame.recipient(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.itmo.calls.service;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel. {@link #schedule} may be called from any thread;
+ * {@link #advance} must only be called from a single ticking thread and touches
+ * only the slots whose ticks have elapsed.
+ */
+public class TimingWheel<T> {
+    private final long tickNanos;
+    private final int mask;
+    private final ArrayDeque<Entry<T>>[] slots;
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final long startNanos;
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickNanos, int wheelSize, long startNanos) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = tickNanos;
+        this.mask = wheelSize - 1;
+        this.slots = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.startNanos = startNanos;
+    }
+
+    public void schedule(T item, long deadlineNanos) {
+        incoming.offer(new Entry<>(item, (deadlineNanos - startNanos) / tickNanos));
+    }
+
+    public void advance(long nowNanos, Consumer<T> onExpired) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        transferIncoming();
+
+        while (currentTick <= targetTick) {
+            ArrayDeque<Entry<T>> slot = slots[(int) (currentTick & mask)];
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                Entry<T> entry = slot.poll();
+                if (entry.deadlineTick() <= currentTick) {
+                    onExpired.accept(entry.item());
+                } else {
+                    slot.add(entry);
+                }
+            }
+            currentTick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            long tick = Math.max(entry.deadlineTick(), currentTick);
+            slots[(int) (tick & mask)].add(entry);
+        }
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
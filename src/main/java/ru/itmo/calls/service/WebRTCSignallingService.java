@@ -4,7 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import ru.itmo.calls.exception.UserOfflineException;
-import ru.itmo.calls.model.SignalMessage;
+import ru.itmo.calls.model.SignalFrame;
 
 @Service
 public class WebRTCSignallingService {
@@ -21,7 +21,7 @@ public class WebRTCSignallingService {
         this.messageSenderService = messageSenderService;
     }
 
-    public void handleWebRTCSignal(SignalMessage message) {
+    public void handleWebRTCSignal(SignalFrame message) {
         Integer fromUserId = message.from();
         Integer toUserId = message.to();
 
@@ -29,7 +29,7 @@ public class WebRTCSignallingService {
             throw new UserOfflineException(toUserId);
         }
 
-        messageSenderService.sendMessage(toUserId, message);
+        messageSenderService.sendFrame(toUserId, message);
         log.debug(
                 "WebRTC signal forwarded: type={}, from={}, to={}",
                 message.type(), fromUserId, toUserId
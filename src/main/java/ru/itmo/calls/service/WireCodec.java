@@ -0,0 +1,163 @@
+package ru.itmo.calls.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import ru.itmo.calls.exception.InvalidMessageException;
+import ru.itmo.calls.model.AuthRequest;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalMessage;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the codec for each end of a relay. Frames are spliced when sender and recipient
+ * share a wire format and transcoded only when they differ.
+ */
+@Service
+public class WireCodec {
+    private final ObjectMapper objectMapper;
+    private final SignalFrameCodec signalFrameCodec;
+    private final BinaryFrameCodec binaryFrameCodec;
+
+    public WireCodec(
+            ObjectMapper objectMapper,
+            SignalFrameCodec signalFrameCodec,
+            BinaryFrameCodec binaryFrameCodec
+    ) {
+        this.objectMapper = objectMapper;
+        this.signalFrameCodec = signalFrameCodec;
+        this.binaryFrameCodec = binaryFrameCodec;
+    }
+
+    public SignalFrame decode(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return signalFrameCodec.decode(text.getPayload());
+        }
+        if (message instanceof BinaryMessage binary) {
+            return binaryFrameCodec.decode(binary.getPayload());
+        }
+        throw new InvalidMessageException("Unsupported message: " + message.getClass().getSimpleName());
+    }
+
+    /**
+     * Cheap look at the frame's type before it is decoded, for admission checks.
+     *
+     * @return the type, or {@code null} if it cannot be read without decoding
+     */
+    public SignalType peekType(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return signalFrameCodec.peekType(text.getPayload());
+        }
+        if (message instanceof BinaryMessage binary) {
+            return binaryFrameCodec.peekType(binary.getPayload());
+        }
+        return null;
+    }
+
+    public AuthRequest readAuthRequest(SignalFrame frame) {
+        if (frame.format() == WireFormat.BINARY) {
+            Integer lastSeq = binaryFrameCodec.readIntField(frame, "lastSeq");
+            return new AuthRequest(
+                    binaryFrameCodec.readStringField(frame, "token"),
+                    binaryFrameCodec.readStringField(frame, "resumeToken"),
+                    lastSeq != null ? Integer.toUnsignedLong(lastSeq) : 0
+            );
+        }
+        JsonNode payload = signalFrameCodec.readPayload(frame);
+        if (payload == null) {
+            return new AuthRequest(null, null, 0);
+        }
+        return new AuthRequest(
+                payload.hasNonNull("token") ? payload.get("token").asText() : null,
+                payload.hasNonNull("resumeToken") ? payload.get("resumeToken").asText() : null,
+                payload.path("lastSeq").asLong(0)
+        );
+    }
+
+    /**
+     * Returns the frame's payload as JSON text, or {@code null} if it has none.
+     */
+    public String payloadJson(SignalFrame frame) {
+        if (frame.format() == WireFormat.BINARY) {
+            return binaryFrameCodec.payloadToJson(frame);
+        }
+        return frame.hasPayload() ? frame.text().substring(frame.payloadStart(), frame.payloadEnd()) : null;
+    }
+
+    /**
+     * Reads the ids from a {@code {"users":[...]}} payload.
+     */
+    public int[] readUsers(SignalFrame frame) {
+        String payloadJson = payloadJson(frame);
+        if (payloadJson == null) {
+            throw new InvalidMessageException(frame.type() + " must have a 'users' array");
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(payloadJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidMessageException(frame.type() + " must have a 'users' array");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("users".equals(field) && value == JsonToken.START_ARRAY) {
+                    List<Integer> users = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                        users.add(parser.getIntValue());
+                    }
+                    return users.stream().mapToInt(Integer::intValue).toArray();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            throw new InvalidMessageException("Invalid " + frame.type() + " payload");
+        }
+        throw new InvalidMessageException(frame.type() + " must have a 'users' array");
+    }
+
+    public WebSocketMessage<?> encode(WireFormat format, SignalFrame frame) {
+        if (format == WireFormat.BINARY) {
+            return new BinaryMessage(binaryFrameCodec.encode(frame));
+        }
+        if (frame.format() == WireFormat.BINARY) {
+            return new TextMessage(signalFrameCodec.encode(frame, binaryFrameCodec.payloadToJson(frame)));
+        }
+        return new TextMessage(signalFrameCodec.encode(frame));
+    }
+
+    public WebSocketMessage<?> encode(WireFormat format, SignalMessage message) throws IOException {
+        if (format == WireFormat.BINARY) {
+            return new BinaryMessage(binaryFrameCodec.encode(message));
+        }
+        return new TextMessage(objectMapper.writeValueAsString(message));
+    }
+
+    /**
+     * Converts a server-built message into a frame that can be forwarded to another node.
+     */
+    public SignalFrame toFrame(SignalMessage message) throws IOException {
+        if (message.payload() == null || message.payload().isNull()) {
+            return SignalFrame.control(message.type(), message.from(), message.to());
+        }
+        String payload = objectMapper.writeValueAsString(message.payload());
+        return new SignalFrame(
+                message.type(), message.from(), message.to(), WireFormat.JSON, payload, null, 0, payload.length()
+        );
+    }
+
+    public WebSocketMessage<?> encodeControl(WireFormat format, SignalType type, Integer from, Integer to) {
+        if (format == WireFormat.BINARY) {
+            return new BinaryMessage(binaryFrameCodec.encodeControl(type, from, to));
+        }
+        return ControlFrames.json(type, from, to);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.itmo.calls.transport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * A client's WebSocket connection, independent of the server stack carrying it. Frames
+ * and close codes use Spring's {@code org.springframework.web.socket} value types on
+ * every transport.
+ */
+public interface Connection {
+    String getId();
+
+    /**
+     * Per-connection state; safe for concurrent use.
+     */
+    Map<String, Object> getAttributes();
+
+    boolean isOpen();
+
+    String getAcceptedProtocol();
+
+    URI getUri();
+
+    HttpHeaders getHandshakeHeaders();
+
+    /**
+     * Starts writing a frame without blocking the caller. The future completes once the
+     * transport has taken the frame and fails if it could not be written. Callers must
+     * not start another send before the previous one completes.
+     */
+    CompletableFuture<Void> send(WebSocketMessage<?> message);
+
+    void close(CloseStatus status) throws IOException;
+}
@@ -0,0 +1,98 @@
+package ru.itmo.calls.transport;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import reactor.core.publisher.Mono;
+
+/**
+ * Connection on WebFlux over Reactor Netty. Sends complete when Netty has written the
+ * frame, without holding a thread while the socket is busy.
+ */
+public class ReactorConnection implements Connection {
+    private final WebSocketSession session;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    public ReactorConnection(WebSocketSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Copies an inbound frame out of its pooled buffer.
+     *
+     * @return the frame, or {@code null} for ping and pong frames
+     */
+    public static WebSocketMessage<?> toMessage(org.springframework.web.reactive.socket.WebSocketMessage frame) {
+        return switch (frame.getType()) {
+            case TEXT -> new TextMessage(frame.getPayloadAsText());
+            case BINARY -> {
+                DataBuffer payload = frame.getPayload();
+                byte[] bytes = new byte[payload.readableByteCount()];
+                payload.read(bytes);
+                yield new BinaryMessage(bytes);
+            }
+            default -> null;
+        };
+    }
+
+    @Override
+    public String getId() {
+        return session.getId();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return session.isOpen();
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return session.getHandshakeInfo().getSubProtocol();
+    }
+
+    @Override
+    public URI getUri() {
+        return session.getHandshakeInfo().getUri();
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return session.getHandshakeInfo().getHeaders();
+    }
+
+    @Override
+    public CompletableFuture<Void> send(WebSocketMessage<?> message) {
+        org.springframework.web.reactive.socket.WebSocketMessage frame;
+        if (message instanceof TextMessage text) {
+            frame = session.textMessage(text.getPayload());
+        } else if (message instanceof BinaryMessage binary) {
+            // Relayed payloads may be shared between recipients, so never move their position
+            frame = session.binaryMessage(factory -> factory.wrap(binary.getPayload().duplicate()));
+        } else {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Unsupported message: " + message.getClass().getSimpleName())
+            );
+        }
+        return session.send(Mono.just(frame)).toFuture();
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        session.close(new org.springframework.web.reactive.socket.CloseStatus(status.getCode(), status.getReason()))
+                .subscribe();
+    }
+}
@@ -0,0 +1,81 @@
+package ru.itmo.calls.transport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Connection on the servlet WebSocket stack. The container's send blocks, so
+ * {@link #send} writes on the calling thread, which is always an outbound writer task.
+ * Binary payloads may be shared between recipients, so the container gets a duplicate
+ * whose position it is free to advance.
+ */
+public class ServletConnection implements Connection {
+    private static final String CONNECTION_ATTRIBUTE = "connection";
+
+    private final WebSocketSession session;
+
+    private ServletConnection(WebSocketSession session) {
+        this.session = session;
+    }
+
+    public static Connection of(WebSocketSession session) {
+        return (Connection) session.getAttributes().computeIfAbsent(
+                CONNECTION_ATTRIBUTE, key -> new ServletConnection(session)
+        );
+    }
+
+    @Override
+    public String getId() {
+        return session.getId();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return session.getAttributes();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return session.isOpen();
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return session.getAcceptedProtocol();
+    }
+
+    @Override
+    public URI getUri() {
+        return session.getUri();
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return session.getHandshakeHeaders();
+    }
+
+    @Override
+    public CompletableFuture<Void> send(WebSocketMessage<?> message) {
+        try {
+            session.sendMessage(message instanceof BinaryMessage binary
+                    ? new BinaryMessage(binary.getPayload().duplicate(), binary.isLast())
+                    : message);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        session.close(status);
+    }
+}
@@ -0,0 +1,215 @@
+package ru.itmo.calls.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import ru.itmo.calls.config.ClusterConfig;
+import ru.itmo.calls.model.ForwardedFrame;
+import ru.itmo.calls.model.SignalFrame;
+import ru.itmo.calls.model.SignalType;
+import ru.itmo.calls.model.WireFormat;
+
+/**
+ * Nodes talking over real loopback sockets, one transport per node in the same JVM.
+ */
+class TcpNodeTransportTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final String clusterName = "test-" + UUID.randomUUID();
+    private final List<Node> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(Node::stop);
+    }
+
+    @Test
+    void routesFramesToTheNodeHoldingTheRecipient() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        Node a = inProcessNode("node-a", portA, Map.of("node-b", "127.0.0.1:" + portB));
+        Node b = inProcessNode("node-b", portB, Map.of("node-a", "127.0.0.1:" + portA));
+
+        a.router.userConnected(1);
+        b.router.userConnected(2);
+        assertThat(a.router.findRemoteNode(2)).isEqualTo("node-b");
+        assertThat(a.router.findRemoteNode(1)).isNull();
+        assertThat(b.router.findRemoteNode(1)).isEqualTo("node-a");
+
+        // Sent from the node started last: the other one may still be backing off after finding it down
+        String payload = "{\"sdp\":\"v=0\"}";
+        b.router.forward("node-a", 1, new SignalFrame(
+                SignalType.WEBRTC_OFFER, 2, 1, WireFormat.JSON, payload, null, 0, payload.length()
+        ));
+        ForwardedFrame received = a.received.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+        assertThat(received).isNotNull();
+        assertThat(received.recipient()).isEqualTo(1);
+        assertThat(received.frame().type()).isEqualTo(SignalType.WEBRTC_OFFER);
+        assertThat(received.frame().from()).isEqualTo(2);
+        assertThat(received.frame().to()).isEqualTo(1);
+        assertThat(received.frame().text().substring(received.frame().payloadStart(), received.frame().payloadEnd()))
+                .isEqualTo(payload);
+        assertThat(b.received).isEmpty();
+    }
+
+    @Test
+    void ignoresNodesThatAreNotConfiguredPeers() throws Exception {
+        int portB = freePort();
+        int portX = freePort();
+        int portA = freePort();
+        Node b = inProcessNode("node-b", portB, Map.of("node-a", "127.0.0.1:" + portA));
+        Node x = inProcessNode("node-x", portX, Map.of("node-b", "127.0.0.1:" + portB));
+        Node a = inProcessNode("node-a", portA, Map.of("node-b", "127.0.0.1:" + portB));
+
+        x.router.forward("node-b", 2, SignalFrame.control(SignalType.INCOMING_CALL, 66, 2));
+        a.router.forward("node-b", 2, SignalFrame.control(SignalType.INCOMING_CALL, 1, 2));
+
+        ForwardedFrame received = b.received.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        assertThat(received).isNotNull();
+        assertThat(received.frame().from()).isEqualTo(1);
+        assertThat(b.received.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void gossipsPresenceAndForgetsTheUsersOfADisconnectedPeer() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        Node a = gossipNode("node-a", portA, Map.of("node-b", "127.0.0.1:" + portB));
+        Node b = gossipNode("node-b", portB, Map.of("node-a", "127.0.0.1:" + portA));
+
+        a.router.userConnected(1);
+        b.router.userConnected(2);
+        await().atMost(TIMEOUT).untilAsserted(() -> {
+            assertThat(b.router.findRemoteNode(1)).isEqualTo("node-a");
+            assertThat(a.router.findRemoteNode(2)).isEqualTo("node-b");
+        });
+
+        a.router.userDisconnected(1);
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(b.router.findRemoteNode(1)).isNull());
+
+        a.router.userConnected(3);
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(b.router.findRemoteNode(3)).isEqualTo("node-a"));
+        a.stop();
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(b.router.findRemoteNode(3)).isNull());
+    }
+
+    @Test
+    void announcesExistingUsersToAPeerThatStartsLater() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        Node a = gossipNode("node-a", portA, Map.of("node-b", "127.0.0.1:" + portB));
+        a.router.userConnected(1);
+        a.router.userConnected(2);
+
+        Node b = gossipNode("node-b", portB, Map.of("node-a", "127.0.0.1:" + portA));
+
+        await().atMost(TIMEOUT).untilAsserted(() -> {
+            assertThat(b.router.findRemoteNode(1)).isEqualTo("node-a");
+            assertThat(b.router.findRemoteNode(2)).isEqualTo("node-a");
+        });
+    }
+
+    @Test
+    void reportsFramesForAnUnreachablePeer() throws Exception {
+        int portA = freePort();
+        Node a = inProcessNode("node-a", portA, Map.of("node-b", "127.0.0.1:" + freePort()));
+
+        a.router.forward("node-b", 2, SignalFrame.control(SignalType.INCOMING_CALL, 1, 2));
+        a.router.forward("node-b", 2, SignalFrame.control(SignalType.CALL_END, 1, 2));
+
+        ForwardedFrame first = a.undeliverable.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        ForwardedFrame second = a.undeliverable.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        assertThat(first).isNotNull();
+        assertThat(first.frame().type()).isEqualTo(SignalType.INCOMING_CALL);
+        assertThat(second).isNotNull();
+        assertThat(second.frame().type()).isEqualTo(SignalType.CALL_END);
+    }
+
+    private Node inProcessNode(String nodeId, int port, Map<String, String> peers) throws IOException {
+        return start(config(nodeId, port, peers), false);
+    }
+
+    private Node gossipNode(String nodeId, int port, Map<String, String> peers) throws IOException {
+        return start(config(nodeId, port, peers), true);
+    }
+
+    private ClusterConfig config(String nodeId, int port, Map<String, String> peers) {
+        ClusterConfig config = new ClusterConfig();
+        config.setEnabled(true);
+        config.setName(clusterName);
+        config.setNodeId(nodeId);
+        config.setPort(port);
+        config.setPeers(peers);
+        config.setReconnectBackoff(Duration.ofMillis(50));
+        config.setMaxReconnectBackoff(Duration.ofMillis(200));
+        return config;
+    }
+
+    private Node start(ClusterConfig config, boolean gossip) throws IOException {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(config.getNodeId() + "-", 0).factory());
+        TcpNodeTransport transport = new TcpNodeTransport(config, executor);
+        ObjectProvider<NodeTransport> provider = new StaticListableBeanFactory(Map.of("nodeTransport", transport))
+                .getBeanProvider(NodeTransport.class);
+        PresenceDirectory directory;
+        if (gossip) {
+            GossipPresenceDirectory gossipDirectory = new GossipPresenceDirectory(config, provider);
+            gossipDirectory.attach();
+            directory = gossipDirectory;
+        } else {
+            directory = new InProcessPresenceDirectory(config);
+        }
+        Node node = new Node(transport, new ClusterRouter(config, directory, provider), executor);
+        node.router.onForwarded(node.received::add);
+        node.router.onUndeliverable(node.undeliverable::add);
+        transport.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class Node {
+        private final TcpNodeTransport transport;
+        private final ClusterRouter router;
+        private final ExecutorService executor;
+        private final BlockingQueue<ForwardedFrame> received = new LinkedBlockingQueue<>();
+        private final BlockingQueue<ForwardedFrame> undeliverable = new LinkedBlockingQueue<>();
+        private boolean stopped;
+
+        private Node(TcpNodeTransport transport, ClusterRouter router, ExecutorService executor) {
+            this.transport = transport;
+            this.router = router;
+            this.executor = executor;
+        }
+
+        private void stop() {
+            if (!stopped) {
+                stopped = true;
+                transport.stop();
+                executor.shutdownNow();
+            }
+        }
+    }
+}